@@ -0,0 +1,80 @@
+package net.mischneider;
+
+import com.facebook.react.bridge.Callback;
+import com.facebook.react.bridge.JavaOnlyMap;
+import com.facebook.react.bridge.ReadableMap;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of events from React Native to a receiver, and of a callback request and its response
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MSREventBridgeCallbackBenchmark {
+
+    private MSREventBridgeTestEnvironment mEnvironment;
+    private final ReadableMap mInfo = JavaOnlyMap.of("value", 1);
+    private Blackhole mBlackhole;
+
+    private final Callback mCallback = new Callback() {
+        @Override
+        public void invoke(Object... args) {
+            mBlackhole.consume(args);
+        }
+    };
+
+    @Setup(Level.Trial)
+    public void setUp(Blackhole blackhole) {
+        mBlackhole = blackhole;
+        mEnvironment = new MSREventBridgeTestEnvironment();
+        MSREventBridgeAwareReactRootView rootView = mEnvironment.addRootView(1);
+        rootView.setEventBridgeEventReceiver(new MSREventBridgeEventReceiver() {
+            @Override
+            public void onEvent(String name, ReadableMap info) {
+                mBlackhole.consume(info);
+            }
+
+            @Override
+            public void onEventCallback(String name, ReadableMap info, MSREventBridgeReceiverCallback callback) {
+                callback.onSuccess(info.getInt("value"));
+            }
+        });
+        mEnvironment.uiManager.setRootTag(5, 1);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        mEnvironment.destroy();
+    }
+
+    @Benchmark
+    public void onEvent() {
+        mEnvironment.module.onEvent(5, "Event", mInfo);
+        mEnvironment.runUntilIdle();
+    }
+
+    @Benchmark
+    public void onEventCallbackRoundTrip() {
+        mEnvironment.module.onEventCallback(5, "Event", mInfo, mCallback);
+        mEnvironment.runUntilIdle();
+    }
+}
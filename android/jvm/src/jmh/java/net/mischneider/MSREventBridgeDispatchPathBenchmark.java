@@ -0,0 +1,68 @@
+package net.mischneider;
+
+import com.facebook.react.bridge.WritableMap;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares emitting an event directly on the module with emitting it via the LocalBroadcastManager,
+ * which converts the info to a Bundle and back and hops over the main looper. Both include running the
+ * main looper, so the difference is the cost of the broadcast path.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MSREventBridgeDispatchPathBenchmark {
+
+    // Number of entries in the info of an event
+    @Param({ "0", "8", "64" })
+    public int payloadSize;
+
+    private MSREventBridgeTestEnvironment mEnvironment;
+    private WritableMap mInfo;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        mEnvironment = new MSREventBridgeTestEnvironment();
+        mEnvironment.emitter.recordBodies = false;
+        mEnvironment.addRootView(1);
+        mEnvironment.module.addListenerForTag(1, "Event");
+        mEnvironment.runUntilIdle();
+
+        mInfo = payloadSize > 0 ? MSREventBridgeEmitBenchmark.createInfo(payloadSize) : null;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        mEnvironment.destroy();
+    }
+
+    @Benchmark
+    public void direct() {
+        mEnvironment.module.emitEvent("Event", mInfo);
+        mEnvironment.runUntilIdle();
+    }
+
+    @Benchmark
+    public void broadcast() {
+        MSREventBridgeModule.emitEventContext(mEnvironment.application, "Event", mInfo);
+        mEnvironment.runUntilIdle();
+    }
+}
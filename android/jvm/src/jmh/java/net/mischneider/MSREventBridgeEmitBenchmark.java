@@ -0,0 +1,107 @@
+package net.mischneider;
+
+import com.facebook.react.bridge.JavaOnlyMap;
+import com.facebook.react.bridge.WritableMap;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of emitting events from native to React Native by payload size and number of root views
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MSREventBridgeEmitBenchmark {
+
+    // Number of entries in the info of an event
+    @Param({ "0", "8", "64" })
+    public int payloadSize;
+
+    // Number of root views in the activity that listen for the event
+    @Param({ "1", "8", "32" })
+    public int rootViewCount;
+
+    private MSREventBridgeTestEnvironment mEnvironment;
+    private WritableMap mInfo;
+    private MSREventBridgeEventTarget mRootTagsTarget;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        mEnvironment = new MSREventBridgeTestEnvironment();
+        mEnvironment.emitter.recordBodies = false;
+
+        int[] rootTags = new int[rootViewCount];
+        for (int i = 0; i < rootViewCount; i++) {
+            int rootTag = 1 + i * 10;
+            mEnvironment.addRootView(rootTag);
+            mEnvironment.module.addListenerForTag(rootTag, "Event");
+            rootTags[i] = rootTag;
+        }
+        mEnvironment.runUntilIdle();
+        mRootTagsTarget = MSREventBridgeEventTarget.rootTags(rootTags);
+
+        mInfo = payloadSize > 0 ? createInfo(payloadSize) : null;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        mEnvironment.destroy();
+    }
+
+    @TearDown(Level.Iteration)
+    public void runMainThread() {
+        mEnvironment.runUntilIdle();
+    }
+
+    @Benchmark
+    public void emitEvent() {
+        mEnvironment.module.emitEvent("Event", mInfo);
+    }
+
+    @Benchmark
+    public void emitEventForActivity() {
+        mEnvironment.module.emitEventForActivity(mEnvironment.activity, "Event", mInfo);
+    }
+
+    @Benchmark
+    public void emitEventForRootTags() {
+        mEnvironment.module.emitEvent(mRootTagsTarget, "Event", mInfo);
+    }
+
+    @Benchmark
+    public void emitEventViaHub() {
+        MSREventBridgeEventHub.getInstance().emitEventForActivity(mEnvironment.activity, "Event", mInfo);
+    }
+
+    /**
+     * Returns an info with the given number of string and number entries
+     */
+    static WritableMap createInfo(int size) {
+        WritableMap info = new JavaOnlyMap();
+        for (int i = 0; i < size; i++) {
+            if (i % 2 == 0) {
+                info.putString("key" + i, "value" + i);
+            } else {
+                info.putDouble("key" + i, i);
+            }
+        }
+        return info;
+    }
+}
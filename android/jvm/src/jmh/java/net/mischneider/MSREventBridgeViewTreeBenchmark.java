@@ -0,0 +1,119 @@
+package net.mischneider;
+
+import android.view.View;
+import android.view.ViewGroup;
+
+import com.facebook.react.ReactRootView;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of finding the root views of an activity by the size of its view tree. The root views are plain
+ * ReactRootViews, so the tree has to be walked to find them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MSREventBridgeViewTreeBenchmark {
+
+    // Number of view groups in the tree, every view group has the same number of children
+    @Param({ "16", "256", "4096" })
+    public int viewCount;
+
+    private static final int ChildCount = 4;
+    private static final int RootViewCount = 4;
+
+    private MSREventBridgeTestEnvironment mEnvironment;
+    private ViewGroup mTree;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        mEnvironment = new MSREventBridgeTestEnvironment();
+        mEnvironment.emitter.recordBodies = false;
+
+        mTree = new ViewGroup(mEnvironment.activity);
+        int remaining = addChildren(mTree, viewCount - 1);
+        while (remaining > 0) {
+            remaining = addChildren(mTree, remaining);
+        }
+        mEnvironment.contentContainer.addView(mTree);
+
+        // The root views are the deepest views of the tree
+        ViewGroup leaf = mTree;
+        for (int i = 0; i < RootViewCount; i++) {
+            while (leaf.getChildCount() > 0) {
+                leaf = (ViewGroup) leaf.getChildAt(leaf.getChildCount() - 1 - i % leaf.getChildCount());
+            }
+            ReactRootView rootView = new ReactRootView(mEnvironment.activity);
+            rootView.setId(1 + i * 10);
+            leaf.addView(rootView);
+            leaf = mTree;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        mEnvironment.destroy();
+    }
+
+    /**
+     * Root views are looked up from the index
+     */
+    @Benchmark
+    public ArrayList<View> getRootViews() {
+        ArrayList<View> rootViews = new ArrayList<>();
+        MSREventBridgeRootViewIndex.getInstance().getRootViews(mEnvironment.activity, rootViews);
+        return rootViews;
+    }
+
+    /**
+     * Root views are looked up after the view tree changed, which doesn't walk the tree again
+     */
+    @Benchmark
+    public ArrayList<View> getRootViewsAfterHierarchyChange() {
+        mEnvironment.contentContainer.removeView(mTree);
+        mEnvironment.contentContainer.addView(mTree);
+        ArrayList<View> rootViews = new ArrayList<>();
+        MSREventBridgeRootViewIndex.getInstance().getRootViews(mEnvironment.activity, rootViews);
+        return rootViews;
+    }
+
+    /**
+     * Adds up to count view groups to the tree breadth first and returns the number of view groups that
+     * are left to add
+     */
+    private static int addChildren(ViewGroup parent, int count) {
+        java.util.ArrayDeque<ViewGroup> queue = new java.util.ArrayDeque<>();
+        queue.add(parent);
+        while (!queue.isEmpty() && count > 0) {
+            ViewGroup viewGroup = queue.poll();
+            if (viewGroup.getChildCount() == 0) {
+                for (int i = 0; i < ChildCount && count > 0; i++, count--) {
+                    viewGroup.addView(new ViewGroup(viewGroup.getContext()));
+                }
+            }
+            for (int i = 0; i < viewGroup.getChildCount(); i++) {
+                queue.add((ViewGroup) viewGroup.getChildAt(i));
+            }
+        }
+        return count;
+    }
+}
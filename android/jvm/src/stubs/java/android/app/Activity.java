@@ -0,0 +1,78 @@
+package android.app;
+
+import android.content.ContextWrapper;
+import android.view.View;
+import android.view.ViewGroup;
+
+/**
+ * Activity with a content view. Tests drive the lifecycle via performStart and performStop.
+ */
+public class Activity extends ContextWrapper {
+    private final Application mApplication;
+    private final ViewGroup mContentView;
+    private ViewGroup mDecorView;
+    private boolean mFinishing = false;
+    private boolean mDestroyed = false;
+
+    public Activity(Application application) {
+        super(application);
+        mApplication = application;
+        mContentView = new ViewGroup(this);
+        mContentView.setId(android.R.id.content);
+    }
+
+    public final Application getApplication() {
+        return mApplication;
+    }
+
+    public View findViewById(int id) {
+        return mContentView.findViewById(id);
+    }
+
+    public void setContentView(View view) {
+        mContentView.removeAllViews();
+        mContentView.addView(view);
+    }
+
+    /**
+     * Attaches the content view to the window
+     */
+    public void attachToWindow() {
+        mContentView.dispatchAttachedToWindow();
+    }
+
+    public void detachFromWindow() {
+        mContentView.dispatchDetachedFromWindow();
+    }
+
+    public void performStart() {
+        for (Application.ActivityLifecycleCallbacks callbacks : mApplication.collectActivityLifecycleCallbacks()) {
+            callbacks.onActivityStarted(this);
+        }
+    }
+
+    public void performStop() {
+        for (Application.ActivityLifecycleCallbacks callbacks : mApplication.collectActivityLifecycleCallbacks()) {
+            callbacks.onActivityStopped(this);
+        }
+    }
+
+    public void finish() {
+        mFinishing = true;
+    }
+
+    public boolean isFinishing() {
+        return mFinishing;
+    }
+
+    public boolean isDestroyed() {
+        return mDestroyed;
+    }
+
+    public void performDestroy() {
+        mDestroyed = true;
+        for (Application.ActivityLifecycleCallbacks callbacks : mApplication.collectActivityLifecycleCallbacks()) {
+            callbacks.onActivityDestroyed(this);
+        }
+    }
+}
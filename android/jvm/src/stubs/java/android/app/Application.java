@@ -0,0 +1,49 @@
+package android.app;
+
+import android.content.Context;
+import android.content.ContextWrapper;
+import android.os.Bundle;
+
+import java.util.ArrayList;
+
+public class Application extends ContextWrapper {
+
+    public interface ActivityLifecycleCallbacks {
+        void onActivityCreated(Activity activity, Bundle savedInstanceState);
+        void onActivityStarted(Activity activity);
+        void onActivityResumed(Activity activity);
+        void onActivityPaused(Activity activity);
+        void onActivityStopped(Activity activity);
+        void onActivitySaveInstanceState(Activity activity, Bundle outState);
+        void onActivityDestroyed(Activity activity);
+    }
+
+    private final ArrayList<ActivityLifecycleCallbacks> mActivityLifecycleCallbacks = new ArrayList<>();
+
+    public Application() {
+        super(null);
+    }
+
+    @Override
+    public Context getApplicationContext() {
+        return this;
+    }
+
+    public void registerActivityLifecycleCallbacks(ActivityLifecycleCallbacks callback) {
+        synchronized (mActivityLifecycleCallbacks) {
+            mActivityLifecycleCallbacks.add(callback);
+        }
+    }
+
+    public void unregisterActivityLifecycleCallbacks(ActivityLifecycleCallbacks callback) {
+        synchronized (mActivityLifecycleCallbacks) {
+            mActivityLifecycleCallbacks.remove(callback);
+        }
+    }
+
+    ActivityLifecycleCallbacks[] collectActivityLifecycleCallbacks() {
+        synchronized (mActivityLifecycleCallbacks) {
+            return mActivityLifecycleCallbacks.toArray(new ActivityLifecycleCallbacks[mActivityLifecycleCallbacks.size()]);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package android.content;
+
+public class ContextWrapper extends Context {
+    private Context mBase;
+
+    public ContextWrapper(Context base) {
+        mBase = base;
+    }
+
+    protected void attachBaseContext(Context base) {
+        mBase = base;
+    }
+
+    public Context getBaseContext() {
+        return mBase;
+    }
+
+    @Override
+    public Context getApplicationContext() {
+        return mBase != null ? mBase.getApplicationContext() : null;
+    }
+}
@@ -0,0 +1,25 @@
+package android.content;
+
+import android.os.Bundle;
+
+public class Intent {
+    private final String mAction;
+    private final Bundle mExtras = new Bundle();
+
+    public Intent(String action) {
+        mAction = action;
+    }
+
+    public String getAction() {
+        return mAction;
+    }
+
+    public Intent putExtra(String name, Bundle value) {
+        mExtras.putBundle(name, value);
+        return this;
+    }
+
+    public Bundle getBundleExtra(String name) {
+        return mExtras.getBundle(name);
+    }
+}
@@ -0,0 +1,15 @@
+package android.content;
+
+import java.util.ArrayList;
+
+public class IntentFilter {
+    private final ArrayList<String> mActions = new ArrayList<>();
+
+    public IntentFilter(String action) {
+        mActions.add(action);
+    }
+
+    public final boolean hasAction(String action) {
+        return action != null && mActions.contains(action);
+    }
+}
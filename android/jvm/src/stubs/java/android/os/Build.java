@@ -0,0 +1,12 @@
+package android.os;
+
+public class Build {
+
+    public static class VERSION {
+        public static final int SDK_INT = 25;
+    }
+
+    public static class VERSION_CODES {
+        public static final int JELLY_BEAN_MR1 = 17;
+    }
+}
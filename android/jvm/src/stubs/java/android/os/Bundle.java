@@ -0,0 +1,110 @@
+package android.os;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Set;
+
+public final class Bundle {
+    private final HashMap<String, Object> mMap = new HashMap<>();
+
+    public Bundle() {}
+
+    public Bundle(Bundle bundle) {
+        mMap.putAll(bundle.mMap);
+    }
+
+    public int size() {
+        return mMap.size();
+    }
+
+    public boolean isEmpty() {
+        return mMap.isEmpty();
+    }
+
+    public boolean containsKey(String key) {
+        return mMap.containsKey(key);
+    }
+
+    public Object get(String key) {
+        return mMap.get(key);
+    }
+
+    public Set<String> keySet() {
+        return mMap.keySet();
+    }
+
+    public void remove(String key) {
+        mMap.remove(key);
+    }
+
+    public void putString(String key, String value) {
+        mMap.put(key, value);
+    }
+
+    public void putBoolean(String key, boolean value) {
+        mMap.put(key, value);
+    }
+
+    public void putInt(String key, int value) {
+        mMap.put(key, value);
+    }
+
+    public void putLong(String key, long value) {
+        mMap.put(key, value);
+    }
+
+    public void putDouble(String key, double value) {
+        mMap.put(key, value);
+    }
+
+    public void putDoubleArray(String key, double[] value) {
+        mMap.put(key, value);
+    }
+
+    public void putBundle(String key, Bundle value) {
+        mMap.put(key, value);
+    }
+
+    public void putSerializable(String key, java.io.Serializable value) {
+        mMap.put(key, value);
+    }
+
+    public void putParcelableArrayList(String key, ArrayList<?> value) {
+        mMap.put(key, value);
+    }
+
+    public String getString(String key) {
+        Object value = mMap.get(key);
+        return value instanceof String ? (String) value : null;
+    }
+
+    public boolean getBoolean(String key) {
+        Object value = mMap.get(key);
+        return value instanceof Boolean ? (Boolean) value : false;
+    }
+
+    public int getInt(String key) {
+        Object value = mMap.get(key);
+        return value instanceof Integer ? (Integer) value : 0;
+    }
+
+    public long getLong(String key) {
+        Object value = mMap.get(key);
+        return value instanceof Long ? (Long) value : 0L;
+    }
+
+    public double getDouble(String key) {
+        Object value = mMap.get(key);
+        return value instanceof Double ? (Double) value : 0.0;
+    }
+
+    public double[] getDoubleArray(String key) {
+        Object value = mMap.get(key);
+        return value instanceof double[] ? (double[]) value : null;
+    }
+
+    public Bundle getBundle(String key) {
+        Object value = mMap.get(key);
+        return value instanceof Bundle ? (Bundle) value : null;
+    }
+}
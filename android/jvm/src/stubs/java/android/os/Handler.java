@@ -0,0 +1,47 @@
+package android.os;
+
+public class Handler {
+    private final Looper mLooper;
+
+    public Handler() {
+        this(Looper.myLooper());
+    }
+
+    public Handler(Looper looper) {
+        if (looper == null) {
+            throw new IllegalStateException("Can't create handler without a looper");
+        }
+        mLooper = looper;
+    }
+
+    public final Looper getLooper() {
+        return mLooper;
+    }
+
+    public final boolean post(Runnable r) {
+        mLooper.mQueue.enqueue(this, r, SystemClock.uptimeMillis(), false);
+        return true;
+    }
+
+    public final boolean postDelayed(Runnable r, long delayMillis) {
+        mLooper.mQueue.enqueue(this, r, SystemClock.uptimeMillis() + Math.max(0, delayMillis), false);
+        return true;
+    }
+
+    public final boolean postAtFrontOfQueue(Runnable r) {
+        mLooper.mQueue.enqueue(this, r, 0, true);
+        return true;
+    }
+
+    public final void removeCallbacks(Runnable r) {
+        mLooper.mQueue.remove(this, r);
+    }
+
+    public final void removeCallbacksAndMessages(Object token) {
+        mLooper.mQueue.removeAll(this);
+    }
+
+    public final boolean hasCallbacks(Runnable r) {
+        return mLooper.mQueue.has(this, r);
+    }
+}
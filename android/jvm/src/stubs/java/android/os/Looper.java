@@ -0,0 +1,44 @@
+package android.os;
+
+/**
+ * The main looper is not backed by a thread. The thread that calls prepareMainLooper acts as main
+ * thread and runs the queued messages via MessageQueue.runUntilIdle.
+ */
+public final class Looper {
+    private static final Looper sMainLooper = new Looper();
+    private static final ThreadLocal<Looper> sThreadLocal = new ThreadLocal<>();
+
+    final MessageQueue mQueue = new MessageQueue();
+    private volatile Thread mThread;
+
+    private Looper() {}
+
+    public static void prepareMainLooper() {
+        sMainLooper.mThread = Thread.currentThread();
+        sThreadLocal.set(sMainLooper);
+    }
+
+    public static Looper getMainLooper() {
+        return sMainLooper;
+    }
+
+    public static Looper myLooper() {
+        return sThreadLocal.get();
+    }
+
+    public static MessageQueue myQueue() {
+        Looper looper = myLooper();
+        if (looper == null) {
+            throw new IllegalStateException("The current thread has no looper");
+        }
+        return looper.mQueue;
+    }
+
+    public MessageQueue getQueue() {
+        return mQueue;
+    }
+
+    public Thread getThread() {
+        return mThread;
+    }
+}
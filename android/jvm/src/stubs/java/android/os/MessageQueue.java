@@ -0,0 +1,155 @@
+package android.os;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+
+/**
+ * Messages are run in the order of their time, messages posted to the front before all others. Idle
+ * handlers are run once no message is due.
+ */
+public final class MessageQueue {
+
+    public interface IdleHandler {
+        boolean queueIdle();
+    }
+
+    private static final class Message {
+        final Handler handler;
+        final Runnable callback;
+        final long when;
+        final long sequence;
+
+        Message(Handler handler, Runnable callback, long when, long sequence) {
+            this.handler = handler;
+            this.callback = callback;
+            this.when = when;
+            this.sequence = sequence;
+        }
+    }
+
+    private final ArrayList<Message> mMessages = new ArrayList<>();
+    private final ArrayList<IdleHandler> mIdleHandlers = new ArrayList<>();
+    private long mNextSequence = 0;
+    private long mNextFrontSequence = -1;
+
+    MessageQueue() {}
+
+    public void addIdleHandler(IdleHandler handler) {
+        synchronized (this) {
+            mIdleHandlers.add(handler);
+        }
+    }
+
+    public void removeIdleHandler(IdleHandler handler) {
+        synchronized (this) {
+            mIdleHandlers.remove(handler);
+        }
+    }
+
+    synchronized void enqueue(Handler handler, Runnable callback, long when, boolean front) {
+        mMessages.add(new Message(handler, callback, front ? 0 : when, front ? mNextFrontSequence-- : mNextSequence++));
+    }
+
+    synchronized void remove(Handler handler, Runnable callback) {
+        Iterator<Message> messages = mMessages.iterator();
+        while (messages.hasNext()) {
+            Message message = messages.next();
+            if (message.handler == handler && message.callback == callback) {
+                messages.remove();
+            }
+        }
+    }
+
+    synchronized void removeAll(Handler handler) {
+        Iterator<Message> messages = mMessages.iterator();
+        while (messages.hasNext()) {
+            if (messages.next().handler == handler) {
+                messages.remove();
+            }
+        }
+    }
+
+    synchronized boolean has(Handler handler, Runnable callback) {
+        for (Message message : mMessages) {
+            if (message.handler == handler && message.callback == callback) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private synchronized Message next() {
+        long now = SystemClock.uptimeMillis();
+        Message next = null;
+        for (Message message : mMessages) {
+            if (message.when > now) {
+                continue;
+            }
+            if (next == null
+                    || message.when < next.when
+                    || (message.when == next.when && message.sequence < next.sequence)) {
+                next = message;
+            }
+        }
+        if (next != null) {
+            mMessages.remove(next);
+        }
+        return next;
+    }
+
+    /**
+     * Runs all messages that are due and the idle handlers, until nothing is left to do. Must be called
+     * on the main thread.
+     */
+    public void runUntilIdle() {
+        while (true) {
+            Message message = next();
+            if (message != null) {
+                message.callback.run();
+                continue;
+            }
+
+            IdleHandler[] idleHandlers;
+            synchronized (this) {
+                idleHandlers = mIdleHandlers.toArray(new IdleHandler[mIdleHandlers.size()]);
+            }
+            if (idleHandlers.length == 0) {
+                return;
+            }
+            for (IdleHandler idleHandler : idleHandlers) {
+                if (!idleHandler.queueIdle()) {
+                    removeIdleHandler(idleHandler);
+                }
+            }
+            synchronized (this) {
+                if (!hasDueMessages()) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs all messages that are due without running idle handlers. Must be called on the main thread.
+     */
+    public void runDueMessages() {
+        Message message;
+        while ((message = next()) != null) {
+            message.callback.run();
+        }
+    }
+
+    public synchronized boolean isIdle() {
+        return !hasDueMessages();
+    }
+
+    private boolean hasDueMessages() {
+        long now = SystemClock.uptimeMillis();
+        for (Message message : mMessages) {
+            if (message.when <= now) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
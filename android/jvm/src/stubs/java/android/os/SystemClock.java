@@ -0,0 +1,23 @@
+package android.os;
+
+/**
+ * Uptime is real time plus an offset that tests can advance with sleep, without actually sleeping
+ */
+public final class SystemClock {
+    private static final long sStart = System.nanoTime();
+    private static volatile long sOffsetMs = 0;
+
+    public static long uptimeMillis() {
+        return (System.nanoTime() - sStart) / 1000000 + sOffsetMs;
+    }
+
+    public static long elapsedRealtime() {
+        return uptimeMillis();
+    }
+
+    public static void sleep(long ms) {
+        sOffsetMs += ms;
+    }
+
+    private SystemClock() {}
+}
@@ -0,0 +1,66 @@
+package android.support.v4.content;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Delivers broadcasts asynchronously on the main looper, like the support library does
+ */
+public final class LocalBroadcastManager {
+    private static LocalBroadcastManager sInstance;
+
+    private final HashMap<BroadcastReceiver, IntentFilter> mReceivers = new HashMap<>();
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+    private final Context mAppContext;
+
+    public static synchronized LocalBroadcastManager getInstance(Context context) {
+        if (sInstance == null) {
+            sInstance = new LocalBroadcastManager(context.getApplicationContext());
+        }
+        return sInstance;
+    }
+
+    private LocalBroadcastManager(Context context) {
+        mAppContext = context;
+    }
+
+    public synchronized void registerReceiver(BroadcastReceiver receiver, IntentFilter filter) {
+        mReceivers.put(receiver, filter);
+    }
+
+    public synchronized void unregisterReceiver(BroadcastReceiver receiver) {
+        mReceivers.remove(receiver);
+    }
+
+    public boolean sendBroadcast(final Intent intent) {
+        final ArrayList<BroadcastReceiver> receivers = new ArrayList<>();
+        synchronized (this) {
+            for (Map.Entry<BroadcastReceiver, IntentFilter> entry : mReceivers.entrySet()) {
+                if (entry.getValue().hasAction(intent.getAction())) {
+                    receivers.add(entry.getKey());
+                }
+            }
+        }
+        if (receivers.isEmpty()) {
+            return false;
+        }
+
+        mHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                for (BroadcastReceiver receiver : receivers) {
+                    receiver.onReceive(mAppContext, intent);
+                }
+            }
+        });
+        return true;
+    }
+}
@@ -0,0 +1,9 @@
+package android.support.v4.view;
+
+import android.view.View;
+
+public class ViewCompat {
+    public static boolean isAttachedToWindow(View view) {
+        return view.isAttachedToWindow();
+    }
+}
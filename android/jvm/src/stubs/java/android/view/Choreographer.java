@@ -0,0 +1,46 @@
+package android.view;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.IdentityHashMap;
+
+/**
+ * Frame callbacks are run with the next message of the main looper
+ */
+public final class Choreographer {
+
+    public interface FrameCallback {
+        void doFrame(long frameTimeNanos);
+    }
+
+    private static final Choreographer sInstance = new Choreographer();
+
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+    private final IdentityHashMap<FrameCallback, Runnable> mCallbacks = new IdentityHashMap<>();
+
+    public static Choreographer getInstance() {
+        return sInstance;
+    }
+
+    public synchronized void postFrameCallback(final FrameCallback callback) {
+        Runnable runnable = new Runnable() {
+            @Override
+            public void run() {
+                synchronized (Choreographer.this) {
+                    mCallbacks.remove(callback);
+                }
+                callback.doFrame(System.nanoTime());
+            }
+        };
+        mCallbacks.put(callback, runnable);
+        mHandler.post(runnable);
+    }
+
+    public synchronized void removeFrameCallback(FrameCallback callback) {
+        Runnable runnable = mCallbacks.remove(callback);
+        if (runnable != null) {
+            mHandler.removeCallbacks(runnable);
+        }
+    }
+}
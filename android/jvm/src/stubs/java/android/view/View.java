@@ -0,0 +1,83 @@
+package android.view;
+
+import android.content.Context;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+
+public class View {
+    public static final int NO_ID = -1;
+
+    public interface OnAttachStateChangeListener {
+        void onViewAttachedToWindow(View v);
+        void onViewDetachedFromWindow(View v);
+    }
+
+    private final Context mContext;
+    private int mId = NO_ID;
+    ViewGroup mParent;
+    private boolean mAttachedToWindow = false;
+    private final CopyOnWriteArrayList<OnAttachStateChangeListener> mOnAttachStateChangeListeners =
+            new CopyOnWriteArrayList<>();
+
+    public View(Context context) {
+        mContext = context;
+    }
+
+    public final Context getContext() {
+        return mContext;
+    }
+
+    public int getId() {
+        return mId;
+    }
+
+    public void setId(int id) {
+        mId = id;
+    }
+
+    public final ViewParent getParent() {
+        return mParent;
+    }
+
+    public boolean isAttachedToWindow() {
+        return mAttachedToWindow;
+    }
+
+    public void addOnAttachStateChangeListener(OnAttachStateChangeListener listener) {
+        mOnAttachStateChangeListeners.add(listener);
+    }
+
+    public void removeOnAttachStateChangeListener(OnAttachStateChangeListener listener) {
+        mOnAttachStateChangeListeners.remove(listener);
+    }
+
+    public View findViewById(int id) {
+        return id == mId ? this : null;
+    }
+
+    protected void onAttachedToWindow() {}
+
+    protected void onDetachedFromWindow() {}
+
+    public void dispatchAttachedToWindow() {
+        if (mAttachedToWindow) {
+            return;
+        }
+        mAttachedToWindow = true;
+        onAttachedToWindow();
+        for (OnAttachStateChangeListener listener : mOnAttachStateChangeListeners) {
+            listener.onViewAttachedToWindow(this);
+        }
+    }
+
+    public void dispatchDetachedFromWindow() {
+        if (!mAttachedToWindow) {
+            return;
+        }
+        onDetachedFromWindow();
+        mAttachedToWindow = false;
+        for (OnAttachStateChangeListener listener : mOnAttachStateChangeListeners) {
+            listener.onViewDetachedFromWindow(this);
+        }
+    }
+}
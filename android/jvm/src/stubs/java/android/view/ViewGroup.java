@@ -0,0 +1,93 @@
+package android.view;
+
+import android.content.Context;
+
+import java.util.ArrayList;
+
+public class ViewGroup extends View implements ViewParent {
+
+    public interface OnHierarchyChangeListener {
+        void onChildViewAdded(View parent, View child);
+        void onChildViewRemoved(View parent, View child);
+    }
+
+    private final ArrayList<View> mChildren = new ArrayList<>();
+    private OnHierarchyChangeListener mOnHierarchyChangeListener;
+
+    public ViewGroup(Context context) {
+        super(context);
+    }
+
+    public int getChildCount() {
+        return mChildren.size();
+    }
+
+    public View getChildAt(int index) {
+        return index >= 0 && index < mChildren.size() ? mChildren.get(index) : null;
+    }
+
+    public void setOnHierarchyChangeListener(OnHierarchyChangeListener listener) {
+        mOnHierarchyChangeListener = listener;
+    }
+
+    public void addView(View child) {
+        if (child.mParent != null) {
+            throw new IllegalStateException("The specified child already has a parent");
+        }
+        mChildren.add(child);
+        child.mParent = this;
+        if (isAttachedToWindow()) {
+            child.dispatchAttachedToWindow();
+        }
+        if (mOnHierarchyChangeListener != null) {
+            mOnHierarchyChangeListener.onChildViewAdded(this, child);
+        }
+    }
+
+    public void removeView(View child) {
+        if (!mChildren.remove(child)) {
+            return;
+        }
+        child.dispatchDetachedFromWindow();
+        child.mParent = null;
+        if (mOnHierarchyChangeListener != null) {
+            mOnHierarchyChangeListener.onChildViewRemoved(this, child);
+        }
+    }
+
+    public void removeAllViews() {
+        while (!mChildren.isEmpty()) {
+            removeView(mChildren.get(mChildren.size() - 1));
+        }
+    }
+
+    @Override
+    public View findViewById(int id) {
+        if (id == getId()) {
+            return this;
+        }
+        for (View child : mChildren) {
+            View view = child.findViewById(id);
+            if (view != null) {
+                return view;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void dispatchAttachedToWindow() {
+        super.dispatchAttachedToWindow();
+        for (View child : new ArrayList<>(mChildren)) {
+            child.dispatchAttachedToWindow();
+        }
+    }
+
+    @Override
+    public void dispatchDetachedFromWindow() {
+        for (View child : new ArrayList<>(mChildren)) {
+            child.dispatchDetachedFromWindow();
+        }
+        super.dispatchDetachedFromWindow();
+    }
+}
@@ -0,0 +1,45 @@
+package com.facebook.react;
+
+import com.facebook.react.bridge.ReactContext;
+
+import java.util.ArrayList;
+
+/**
+ * Tests create the React context with setCurrentReactContext, which notifies the listeners
+ */
+public class ReactInstanceManager {
+
+    public interface ReactInstanceEventListener {
+        void onReactContextInitialized(ReactContext context);
+    }
+
+    private final ArrayList<ReactInstanceEventListener> mReactInstanceEventListeners = new ArrayList<>();
+    private volatile ReactContext mCurrentReactContext;
+
+    public ReactContext getCurrentReactContext() {
+        return mCurrentReactContext;
+    }
+
+    public void setCurrentReactContext(ReactContext reactContext) {
+        mCurrentReactContext = reactContext;
+        ReactInstanceEventListener[] listeners;
+        synchronized (mReactInstanceEventListeners) {
+            listeners = mReactInstanceEventListeners.toArray(new ReactInstanceEventListener[mReactInstanceEventListeners.size()]);
+        }
+        for (ReactInstanceEventListener listener : listeners) {
+            listener.onReactContextInitialized(reactContext);
+        }
+    }
+
+    public void addReactInstanceEventListener(ReactInstanceEventListener listener) {
+        synchronized (mReactInstanceEventListeners) {
+            mReactInstanceEventListeners.add(listener);
+        }
+    }
+
+    public void removeReactInstanceEventListener(ReactInstanceEventListener listener) {
+        synchronized (mReactInstanceEventListeners) {
+            mReactInstanceEventListeners.remove(listener);
+        }
+    }
+}
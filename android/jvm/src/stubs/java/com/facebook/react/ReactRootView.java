@@ -0,0 +1,26 @@
+package com.facebook.react;
+
+import android.content.Context;
+import android.util.AttributeSet;
+import android.view.ViewGroup;
+
+import com.facebook.react.uimanager.RootView;
+
+public class ReactRootView extends ViewGroup implements RootView {
+
+    public ReactRootView(Context context) {
+        super(context);
+    }
+
+    public ReactRootView(Context context, AttributeSet attrs) {
+        super(context);
+    }
+
+    public ReactRootView(Context context, AttributeSet attrs, int defStyle) {
+        super(context);
+    }
+
+    public int getRootViewTag() {
+        return getId();
+    }
+}
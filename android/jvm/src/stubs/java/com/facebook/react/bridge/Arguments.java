@@ -0,0 +1,132 @@
+package com.facebook.react.bridge;
+
+import android.os.Bundle;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class Arguments {
+
+    public static WritableMap createMap() {
+        return new JavaOnlyMap();
+    }
+
+    public static WritableArray createArray() {
+        return new JavaOnlyArray();
+    }
+
+    public static Bundle toBundle(ReadableMap readableMap) {
+        if (readableMap == null) {
+            return null;
+        }
+
+        Bundle bundle = new Bundle();
+        ReadableMapKeySetIterator iterator = readableMap.keySetIterator();
+        while (iterator.hasNextKey()) {
+            String key = iterator.nextKey();
+            switch (readableMap.getType(key)) {
+                case Null:
+                    bundle.putString(key, null);
+                    break;
+                case Boolean:
+                    bundle.putBoolean(key, readableMap.getBoolean(key));
+                    break;
+                case Number:
+                    bundle.putDouble(key, readableMap.getDouble(key));
+                    break;
+                case String:
+                    bundle.putString(key, readableMap.getString(key));
+                    break;
+                case Map:
+                    bundle.putBundle(key, toBundle(readableMap.getMap(key)));
+                    break;
+                case Array:
+                    bundle.putSerializable(key, toList(readableMap.getArray(key)));
+                    break;
+            }
+        }
+        return bundle;
+    }
+
+    public static WritableMap fromBundle(Bundle bundle) {
+        WritableMap map = createMap();
+        for (String key : bundle.keySet()) {
+            Object value = bundle.get(key);
+            if (value == null) {
+                map.putNull(key);
+            } else if (value instanceof String) {
+                map.putString(key, (String) value);
+            } else if (value instanceof Number) {
+                map.putDouble(key, ((Number) value).doubleValue());
+            } else if (value instanceof Boolean) {
+                map.putBoolean(key, (Boolean) value);
+            } else if (value instanceof Bundle) {
+                map.putMap(key, fromBundle((Bundle) value));
+            } else if (value instanceof List) {
+                map.putArray(key, fromList((List) value));
+            } else if (value instanceof double[]) {
+                WritableArray array = createArray();
+                for (double element : (double[]) value) {
+                    array.pushDouble(element);
+                }
+                map.putArray(key, array);
+            } else {
+                throw new IllegalArgumentException("Could not convert " + value.getClass());
+            }
+        }
+        return map;
+    }
+
+    public static ArrayList toList(ReadableArray readableArray) {
+        if (readableArray == null) {
+            return null;
+        }
+
+        ArrayList<Object> list = new ArrayList<>();
+        for (int i = 0; i < readableArray.size(); i++) {
+            switch (readableArray.getType(i)) {
+                case Null:
+                    list.add(null);
+                    break;
+                case Boolean:
+                    list.add(readableArray.getBoolean(i));
+                    break;
+                case Number:
+                    list.add(readableArray.getDouble(i));
+                    break;
+                case String:
+                    list.add(readableArray.getString(i));
+                    break;
+                case Map:
+                    list.add(toBundle(readableArray.getMap(i)));
+                    break;
+                case Array:
+                    list.add(toList(readableArray.getArray(i)));
+                    break;
+            }
+        }
+        return list;
+    }
+
+    public static WritableArray fromList(List list) {
+        WritableArray array = createArray();
+        for (Object value : list) {
+            if (value == null) {
+                array.pushNull();
+            } else if (value instanceof String) {
+                array.pushString((String) value);
+            } else if (value instanceof Number) {
+                array.pushDouble(((Number) value).doubleValue());
+            } else if (value instanceof Boolean) {
+                array.pushBoolean((Boolean) value);
+            } else if (value instanceof Bundle) {
+                array.pushMap(fromBundle((Bundle) value));
+            } else if (value instanceof List) {
+                array.pushArray(fromList((List) value));
+            } else {
+                throw new IllegalArgumentException("Could not convert " + value.getClass());
+            }
+        }
+        return array;
+    }
+}
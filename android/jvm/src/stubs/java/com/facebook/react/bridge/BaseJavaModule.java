@@ -0,0 +1,21 @@
+package com.facebook.react.bridge;
+
+import java.util.Map;
+
+public abstract class BaseJavaModule implements NativeModule {
+
+    public Map<String, Object> getConstants() {
+        return null;
+    }
+
+    @Override
+    public void initialize() {}
+
+    @Override
+    public boolean canOverrideExistingModule() {
+        return false;
+    }
+
+    @Override
+    public void onCatalystInstanceDestroy() {}
+}
@@ -0,0 +1,146 @@
+package com.facebook.react.bridge;
+
+import java.util.ArrayList;
+
+/**
+ * Java only implementation of an array, numbers are kept as doubles like on the bridge
+ */
+public class JavaOnlyArray implements WritableArray {
+    private final ArrayList<Object> mBackingList = new ArrayList<>();
+
+    public static JavaOnlyArray of(Object... values) {
+        JavaOnlyArray array = new JavaOnlyArray();
+        for (Object value : values) {
+            array.mBackingList.add(value instanceof Number && !(value instanceof Double)
+                    ? ((Number) value).doubleValue()
+                    : value);
+        }
+        return array;
+    }
+
+    static ReadableType typeOf(Object value) {
+        if (value == null) {
+            return ReadableType.Null;
+        } else if (value instanceof Boolean) {
+            return ReadableType.Boolean;
+        } else if (value instanceof Number) {
+            return ReadableType.Number;
+        } else if (value instanceof String) {
+            return ReadableType.String;
+        } else if (value instanceof ReadableMap) {
+            return ReadableType.Map;
+        } else if (value instanceof ReadableArray) {
+            return ReadableType.Array;
+        }
+        throw new IllegalArgumentException("Unknown type: " + value.getClass());
+    }
+
+    @Override
+    public int size() {
+        return mBackingList.size();
+    }
+
+    @Override
+    public boolean isNull(int index) {
+        return mBackingList.get(index) == null;
+    }
+
+    @Override
+    public boolean getBoolean(int index) {
+        return (Boolean) mBackingList.get(index);
+    }
+
+    @Override
+    public double getDouble(int index) {
+        return ((Number) mBackingList.get(index)).doubleValue();
+    }
+
+    @Override
+    public int getInt(int index) {
+        return ((Number) mBackingList.get(index)).intValue();
+    }
+
+    @Override
+    public String getString(int index) {
+        return (String) mBackingList.get(index);
+    }
+
+    @Override
+    public ReadableArray getArray(int index) {
+        return (ReadableArray) mBackingList.get(index);
+    }
+
+    @Override
+    public ReadableMap getMap(int index) {
+        return (ReadableMap) mBackingList.get(index);
+    }
+
+    @Override
+    public ReadableType getType(int index) {
+        return typeOf(mBackingList.get(index));
+    }
+
+    @Override
+    public ArrayList<Object> toArrayList() {
+        ArrayList<Object> result = new ArrayList<>();
+        for (Object value : mBackingList) {
+            if (value instanceof ReadableMap) {
+                value = ((ReadableMap) value).toHashMap();
+            } else if (value instanceof ReadableArray) {
+                value = ((ReadableArray) value).toArrayList();
+            }
+            result.add(value);
+        }
+        return result;
+    }
+
+    @Override
+    public void pushNull() {
+        mBackingList.add(null);
+    }
+
+    @Override
+    public void pushBoolean(boolean value) {
+        mBackingList.add(value);
+    }
+
+    @Override
+    public void pushDouble(double value) {
+        mBackingList.add(value);
+    }
+
+    @Override
+    public void pushInt(int value) {
+        mBackingList.add((double) value);
+    }
+
+    @Override
+    public void pushString(String value) {
+        mBackingList.add(value);
+    }
+
+    @Override
+    public void pushArray(WritableArray array) {
+        mBackingList.add(array);
+    }
+
+    @Override
+    public void pushMap(WritableMap map) {
+        mBackingList.add(map);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof JavaOnlyArray && mBackingList.equals(((JavaOnlyArray) o).mBackingList);
+    }
+
+    @Override
+    public int hashCode() {
+        return mBackingList.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return mBackingList.toString();
+    }
+}
@@ -0,0 +1,155 @@
+package com.facebook.react.bridge;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Java only implementation of a map, numbers are kept as doubles like on the bridge
+ */
+public class JavaOnlyMap implements WritableMap {
+    private final LinkedHashMap<String, Object> mBackingMap = new LinkedHashMap<>();
+
+    public static JavaOnlyMap of(Object... keysAndValues) {
+        JavaOnlyMap map = new JavaOnlyMap();
+        for (int i = 0; i < keysAndValues.length; i += 2) {
+            Object value = keysAndValues[i + 1];
+            map.mBackingMap.put((String) keysAndValues[i], value instanceof Number && !(value instanceof Double)
+                    ? ((Number) value).doubleValue()
+                    : value);
+        }
+        return map;
+    }
+
+    @Override
+    public boolean hasKey(String name) {
+        return mBackingMap.containsKey(name);
+    }
+
+    @Override
+    public boolean isNull(String name) {
+        return mBackingMap.get(name) == null;
+    }
+
+    @Override
+    public boolean getBoolean(String name) {
+        return (Boolean) mBackingMap.get(name);
+    }
+
+    @Override
+    public double getDouble(String name) {
+        return ((Number) mBackingMap.get(name)).doubleValue();
+    }
+
+    @Override
+    public int getInt(String name) {
+        return ((Number) mBackingMap.get(name)).intValue();
+    }
+
+    @Override
+    public String getString(String name) {
+        return (String) mBackingMap.get(name);
+    }
+
+    @Override
+    public ReadableArray getArray(String name) {
+        return (ReadableArray) mBackingMap.get(name);
+    }
+
+    @Override
+    public ReadableMap getMap(String name) {
+        return (ReadableMap) mBackingMap.get(name);
+    }
+
+    @Override
+    public ReadableType getType(String name) {
+        return JavaOnlyArray.typeOf(mBackingMap.get(name));
+    }
+
+    @Override
+    public ReadableMapKeySetIterator keySetIterator() {
+        final Iterator<String> iterator = mBackingMap.keySet().iterator();
+        return new ReadableMapKeySetIterator() {
+            @Override
+            public boolean hasNextKey() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public String nextKey() {
+                return iterator.next();
+            }
+        };
+    }
+
+    @Override
+    public HashMap<String, Object> toHashMap() {
+        HashMap<String, Object> result = new HashMap<>();
+        for (Map.Entry<String, Object> entry : mBackingMap.entrySet()) {
+            Object value = entry.getValue();
+            if (value instanceof ReadableMap) {
+                value = ((ReadableMap) value).toHashMap();
+            } else if (value instanceof ReadableArray) {
+                value = ((ReadableArray) value).toArrayList();
+            }
+            result.put(entry.getKey(), value);
+        }
+        return result;
+    }
+
+    @Override
+    public void putNull(String key) {
+        mBackingMap.put(key, null);
+    }
+
+    @Override
+    public void putBoolean(String key, boolean value) {
+        mBackingMap.put(key, value);
+    }
+
+    @Override
+    public void putDouble(String key, double value) {
+        mBackingMap.put(key, value);
+    }
+
+    @Override
+    public void putInt(String key, int value) {
+        mBackingMap.put(key, (double) value);
+    }
+
+    @Override
+    public void putString(String key, String value) {
+        mBackingMap.put(key, value);
+    }
+
+    @Override
+    public void putArray(String key, WritableArray value) {
+        mBackingMap.put(key, value);
+    }
+
+    @Override
+    public void putMap(String key, WritableMap value) {
+        mBackingMap.put(key, value);
+    }
+
+    @Override
+    public void merge(ReadableMap source) {
+        mBackingMap.putAll(((JavaOnlyMap) source).mBackingMap);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof JavaOnlyMap && mBackingMap.equals(((JavaOnlyMap) o).mBackingMap);
+    }
+
+    @Override
+    public int hashCode() {
+        return mBackingMap.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return mBackingMap.toString();
+    }
+}
@@ -0,0 +1,8 @@
+package com.facebook.react.bridge;
+
+public interface NativeModule {
+    String getName();
+    void initialize();
+    boolean canOverrideExistingModule();
+    void onCatalystInstanceDestroy();
+}
@@ -0,0 +1,8 @@
+package com.facebook.react.bridge;
+
+public interface Promise {
+    void resolve(Object value);
+    void reject(String code, String message);
+    void reject(String code, Throwable e);
+    void reject(String code, String message, Throwable e);
+}
@@ -0,0 +1,55 @@
+package com.facebook.react.bridge;
+
+import android.app.Activity;
+import android.content.Context;
+import android.content.ContextWrapper;
+
+import java.util.HashMap;
+
+/**
+ * Tests register the JS and native modules of the instance with setJSModule and addNativeModule
+ */
+public class ReactContext extends ContextWrapper {
+    private final HashMap<Class<?>, Object> mJSModules = new HashMap<>();
+    private final HashMap<Class<?>, NativeModule> mNativeModules = new HashMap<>();
+    private volatile boolean mHasActiveCatalystInstance = true;
+    private Activity mCurrentActivity;
+
+    public ReactContext(Context base) {
+        super(base);
+    }
+
+    @SuppressWarnings("unchecked")
+    public synchronized <T extends JavaScriptModule> T getJSModule(Class<T> jsInterface) {
+        return (T) mJSModules.get(jsInterface);
+    }
+
+    public synchronized <T extends JavaScriptModule> void setJSModule(Class<T> jsInterface, T module) {
+        mJSModules.put(jsInterface, module);
+    }
+
+    @SuppressWarnings("unchecked")
+    public synchronized <T extends NativeModule> T getNativeModule(Class<T> nativeModuleInterface) {
+        return (T) mNativeModules.get(nativeModuleInterface);
+    }
+
+    public synchronized <T extends NativeModule> void addNativeModule(Class<T> nativeModuleInterface, T module) {
+        mNativeModules.put(nativeModuleInterface, module);
+    }
+
+    public boolean hasActiveCatalystInstance() {
+        return mHasActiveCatalystInstance;
+    }
+
+    public void setHasActiveCatalystInstance(boolean hasActiveCatalystInstance) {
+        mHasActiveCatalystInstance = hasActiveCatalystInstance;
+    }
+
+    public Activity getCurrentActivity() {
+        return mCurrentActivity;
+    }
+
+    public void setCurrentActivity(Activity activity) {
+        mCurrentActivity = activity;
+    }
+}
@@ -0,0 +1,19 @@
+package com.facebook.react.bridge;
+
+import android.app.Activity;
+
+public abstract class ReactContextBaseJavaModule extends BaseJavaModule {
+    private final ReactApplicationContext mReactApplicationContext;
+
+    public ReactContextBaseJavaModule(ReactApplicationContext reactContext) {
+        mReactApplicationContext = reactContext;
+    }
+
+    protected final ReactApplicationContext getReactApplicationContext() {
+        return mReactApplicationContext;
+    }
+
+    protected final Activity getCurrentActivity() {
+        return mReactApplicationContext.getCurrentActivity();
+    }
+}
@@ -0,0 +1,10 @@
+package com.facebook.react.bridge;
+
+import java.lang.annotation.Retention;
+
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+@Retention(RUNTIME)
+public @interface ReactMethod {
+    boolean isBlockingSynchronousMethod() default false;
+}
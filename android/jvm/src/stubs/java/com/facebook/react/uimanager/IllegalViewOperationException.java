@@ -0,0 +1,7 @@
+package com.facebook.react.uimanager;
+
+public class IllegalViewOperationException extends RuntimeException {
+    public IllegalViewOperationException(String msg) {
+        super(msg);
+    }
+}
@@ -0,0 +1,27 @@
+package com.facebook.react.uimanager;
+
+import android.util.SparseArray;
+import android.view.View;
+
+/**
+ * Tests add the views React Native would have created with addView
+ */
+public class NativeViewHierarchyManager {
+    private final SparseArray<View> mTagsToViews = new SparseArray<>();
+
+    public synchronized View resolveView(int tag) {
+        View view = mTagsToViews.get(tag);
+        if (view == null) {
+            throw new IllegalViewOperationException("Trying to resolve view with tag " + tag + " which doesn't exist");
+        }
+        return view;
+    }
+
+    public synchronized void addView(int tag, View view) {
+        mTagsToViews.put(tag, view);
+    }
+
+    public synchronized void removeView(int tag) {
+        mTagsToViews.remove(tag);
+    }
+}
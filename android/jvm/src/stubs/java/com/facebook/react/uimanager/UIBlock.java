@@ -0,0 +1,5 @@
+package com.facebook.react.uimanager;
+
+public interface UIBlock {
+    void execute(NativeViewHierarchyManager nativeViewHierarchyManager);
+}
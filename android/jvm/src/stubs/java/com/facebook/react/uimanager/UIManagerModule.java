@@ -0,0 +1,42 @@
+package com.facebook.react.uimanager;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.SparseIntArray;
+
+import com.facebook.react.bridge.BaseJavaModule;
+
+/**
+ * UI blocks are run on the main looper. Tests map react tags to root tags with setRootTag.
+ */
+public class UIManagerModule extends BaseJavaModule {
+    private final NativeViewHierarchyManager mNativeViewHierarchyManager = new NativeViewHierarchyManager();
+    private final SparseIntArray mRootTags = new SparseIntArray();
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+
+    @Override
+    public String getName() {
+        return "UIManager";
+    }
+
+    public NativeViewHierarchyManager getNativeViewHierarchyManager() {
+        return mNativeViewHierarchyManager;
+    }
+
+    public synchronized void setRootTag(int reactTag, int rootTag) {
+        mRootTags.put(reactTag, rootTag);
+    }
+
+    public synchronized int resolveRootTagFromReactTag(int reactTag) {
+        return mRootTags.get(reactTag, reactTag);
+    }
+
+    public void addUIBlock(final UIBlock block) {
+        mMainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                block.execute(mNativeViewHierarchyManager);
+            }
+        });
+    }
+}
@@ -0,0 +1,7 @@
+package com.facebook.react.uimanager;
+
+import android.view.View;
+
+public abstract class ViewManager<T extends View, C> {
+    public abstract String getName();
+}
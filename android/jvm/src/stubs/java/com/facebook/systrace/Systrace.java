@@ -0,0 +1,9 @@
+package com.facebook.systrace;
+
+public class Systrace {
+    public static final long TRACE_TAG_REACT_JAVA_BRIDGE = 1L << 13;
+
+    public static void beginSection(long tag, String sectionName) {}
+
+    public static void endSection(long tag) {}
+}
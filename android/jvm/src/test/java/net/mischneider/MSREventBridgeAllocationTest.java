@@ -0,0 +1,159 @@
+package net.mischneider;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.JavaOnlyMap;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Emitting an event should only allocate the message that is passed over the bridge: the body and
+ * the array of react tags. The body is created once for comparison and the emit paths may not
+ * allocate more than that.
+ */
+public class MSREventBridgeAllocationTest {
+
+    private static final int RootViewCount = 8;
+    private static final int Iterations = 20000;
+
+    // Allowance for allocations of the measurement itself
+    private static final long ToleranceBytes = 8;
+
+    private static volatile Object sSink;
+
+    private MSREventBridgeTestEnvironment mEnvironment;
+    private final WritableMap mInfo = JavaOnlyMap.of("value", 1);
+    private int[] mRootTags;
+
+    @Before
+    public void setUp() {
+        assumeTrue(getThreadMXBean() != null && getThreadMXBean().isThreadAllocatedMemorySupported());
+
+        mEnvironment = new MSREventBridgeTestEnvironment();
+        mEnvironment.emitter.recordBodies = false;
+        mRootTags = new int[RootViewCount];
+        for (int i = 0; i < RootViewCount; i++) {
+            mRootTags[i] = 1 + i * 10;
+            mEnvironment.addRootView(mRootTags[i]);
+            mEnvironment.module.addListenerForTag(mRootTags[i], "Event");
+        }
+        mEnvironment.runUntilIdle();
+    }
+
+    @After
+    public void tearDown() {
+        if (mEnvironment != null) {
+            mEnvironment.destroy();
+        }
+    }
+
+    @Test
+    public void emitEventOnlyAllocatesTheBody() {
+        long bodyBytes = measureAllocatedBytes(new Runnable() {
+            @Override
+            public void run() {
+                sSink = createBody(null);
+            }
+        });
+        long emitBytes = measureAllocatedBytes(new Runnable() {
+            @Override
+            public void run() {
+                mEnvironment.module.emitEvent("Event", mInfo);
+            }
+        });
+
+        assertAllocatedAtMost(bodyBytes, emitBytes);
+    }
+
+    @Test
+    public void emitEventForActivityOnlyAllocatesTheBody() {
+        long bodyBytes = measureAllocatedBytes(new Runnable() {
+            @Override
+            public void run() {
+                sSink = createBody(mRootTags);
+            }
+        });
+        long emitBytes = measureAllocatedBytes(new Runnable() {
+            @Override
+            public void run() {
+                mEnvironment.module.emitEventForActivity(mEnvironment.activity, "Event", mInfo);
+            }
+        });
+
+        assertAllocatedAtMost(bodyBytes, emitBytes);
+    }
+
+    @Test
+    public void emitEventForRootTagsOnlyAllocatesTheBody() {
+        final MSREventBridgeEventTarget target = MSREventBridgeEventTarget.rootTags(mRootTags);
+        long bodyBytes = measureAllocatedBytes(new Runnable() {
+            @Override
+            public void run() {
+                sSink = createBody(mRootTags);
+            }
+        });
+        long emitBytes = measureAllocatedBytes(new Runnable() {
+            @Override
+            public void run() {
+                mEnvironment.module.emitEvent(target, "Event", mInfo);
+            }
+        });
+
+        assertAllocatedAtMost(bodyBytes, emitBytes);
+    }
+
+    // Helper
+
+    /**
+     * Creates the same body the dispatcher passes over the bridge
+     */
+    private WritableMap createBody(int[] reactTags) {
+        WritableMap body = Arguments.createMap();
+        if (reactTags != null) {
+            WritableArray reactTagsArray = Arguments.createArray();
+            for (int reactTag : reactTags) {
+                reactTagsArray.pushInt(reactTag);
+            }
+            body.putArray(MSREventBridgeModule.EventBridgeModuleEventReactTagsKey, reactTagsArray);
+        }
+        body.putString(MSREventBridgeModule.EventBridgeModuleEventNameKey, "Event");
+        body.putMap(MSREventBridgeModule.EventBridgeModuleEventInfoKey, mInfo);
+        return body;
+    }
+
+    private static void assertAllocatedAtMost(long expectedBytes, long actualBytes) {
+        assertTrue("Allocated " + actualBytes + " bytes per emit, the body takes " + expectedBytes,
+                actualBytes <= expectedBytes + ToleranceBytes);
+    }
+
+    /**
+     * Returns the bytes the operation allocates per run once it's warmed up
+     */
+    private static long measureAllocatedBytes(Runnable operation) {
+        for (int i = 0; i < Iterations; i++) {
+            operation.run();
+        }
+
+        long threadId = Thread.currentThread().getId();
+        long startBytes = getThreadMXBean().getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < Iterations; i++) {
+            operation.run();
+        }
+        return (getThreadMXBean().getThreadAllocatedBytes(threadId) - startBytes) / Iterations;
+    }
+
+    private static com.sun.management.ThreadMXBean getThreadMXBean() {
+        java.lang.management.ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        return threadMXBean instanceof com.sun.management.ThreadMXBean
+                ? (com.sun.management.ThreadMXBean) threadMXBean
+                : null;
+    }
+}
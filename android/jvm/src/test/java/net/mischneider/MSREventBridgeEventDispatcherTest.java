@@ -0,0 +1,346 @@
+package net.mischneider;
+
+import android.app.Application;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.support.annotation.Nullable;
+
+import com.facebook.react.bridge.JavaOnlyMap;
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.modules.core.DeviceEventManagerModule;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MSREventBridgeEventDispatcherTest {
+
+    private final MSREventBridgeTestEnvironment.RecordingEventEmitter mEmitter =
+            new MSREventBridgeTestEnvironment.RecordingEventEmitter();
+    private MSREventBridgeEventDispatcher mDispatcher;
+
+    @Before
+    public void setUp() {
+        Looper.prepareMainLooper();
+        ReactApplicationContext reactContext = new ReactApplicationContext(new Application());
+        reactContext.setJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class, mEmitter);
+        mDispatcher = new MSREventBridgeEventDispatcher(reactContext, new MSREventBridgeMetrics());
+    }
+
+    @After
+    public void tearDown() {
+        mDispatcher.clear();
+        runUntilIdle();
+    }
+
+    @Test
+    public void enablingTheWindowAfterEventsWereSentDoesNotStall() {
+        for (int i = 0; i < 3; i++) {
+            dispatch(i);
+        }
+        assertEquals(0, mDispatcher.getEventsInFlightCount());
+
+        mDispatcher.setMaxEventsInFlight(2);
+        dispatch(3);
+        dispatch(4);
+        dispatch(5);
+        runUntilIdle();
+
+        assertEquals(5, mEmitter.bodies.size());
+        assertEquals(1, mEmitter.bodies.get(3).getInt(MSREventBridgeModule.EventBridgeModuleEventSequenceNumberKey));
+        assertEquals(2, mEmitter.bodies.get(4).getInt(MSREventBridgeModule.EventBridgeModuleEventSequenceNumberKey));
+        assertEquals(1, mDispatcher.getQueuedEventCount());
+
+        mDispatcher.acknowledge(2);
+        runUntilIdle();
+
+        assertEquals(6, mEmitter.bodies.size());
+        assertEquals(3, mEmitter.bodies.get(5).getInt(MSREventBridgeModule.EventBridgeModuleEventSequenceNumberKey));
+        assertEquals(1, mDispatcher.getEventsInFlightCount());
+    }
+
+    @Test
+    public void eventsAreNotSequencedWithoutWindow() {
+        dispatch(0);
+
+        assertFalse(mEmitter.bodies.get(0).hasKey(MSREventBridgeModule.EventBridgeModuleEventSequenceNumberKey));
+        assertEquals(0, mDispatcher.getEventsInFlightCount());
+    }
+
+    @Test
+    public void resetEmptiesTheWindow() {
+        mDispatcher.setMaxEventsInFlight(1);
+        dispatch(0);
+        dispatch(1);
+        assertEquals(1, mDispatcher.getQueuedEventCount());
+
+        mDispatcher.reset();
+        assertEquals(0, mDispatcher.getQueuedEventCount());
+        assertEquals(0, mDispatcher.getEventsInFlightCount());
+
+        dispatch(2);
+        assertEquals(2, mEmitter.bodies.size());
+    }
+
+    @Test
+    public void batchedEventsAreFlushedAsOneMessageWithTheNextFrame() {
+        mDispatcher.setBatchingEnabled(true);
+        dispatch(0);
+        dispatch(1);
+        dispatch(2);
+        assertEquals(0, mEmitter.bodies.size());
+
+        runUntilIdle();
+
+        assertEquals(1, mEmitter.bodies.size());
+        assertEquals(3, mEmitter.bodies.get(0).getArray(MSREventBridgeModule.EventBridgeModuleEventBatchKey).size());
+        assertEquals(Arrays.asList(0, 1, 2), getValues());
+    }
+
+    @Test
+    public void batchedEventsWaitForTheBatchingInterval() {
+        mDispatcher.setBatchingEnabled(true);
+        mDispatcher.setBatchingInterval(100);
+        dispatch(0);
+        dispatch(1);
+
+        runUntilIdle();
+        assertEquals(0, mEmitter.bodies.size());
+
+        SystemClock.sleep(100);
+        runUntilIdle();
+        assertEquals(1, mEmitter.bodies.size());
+        assertEquals(Arrays.asList(0, 1), getValues());
+    }
+
+    @Test
+    public void disablingBatchingFlushesQueuedEvents() {
+        mDispatcher.setBatchingEnabled(true);
+        mDispatcher.setBatchingInterval(60000);
+        dispatch(0);
+
+        mDispatcher.setBatchingEnabled(false);
+        runUntilIdle();
+
+        assertEquals(Arrays.asList(0), getValues());
+    }
+
+    @Test
+    public void coalescedEventsKeepTheLatestInfoPerNameAndTarget() {
+        mDispatcher.setBatchingEnabled(true);
+        mDispatcher.setCoalescingEnabled("Event", true);
+        dispatch("Event", 0, new int[] { 1 }, MSREventBridgeEventPriority.NORMAL);
+        dispatch("Event", 1, new int[] { 2 }, MSREventBridgeEventPriority.NORMAL);
+        dispatch("Other", 2, new int[] { 1 }, MSREventBridgeEventPriority.NORMAL);
+        dispatch("Event", 3, new int[] { 1 }, MSREventBridgeEventPriority.NORMAL);
+        assertEquals(3, mDispatcher.getQueuedEventCount());
+
+        runUntilIdle();
+
+        // The coalesced event keeps its place in the queue
+        assertEquals(Arrays.asList(3, 1, 2), getValues());
+        assertEquals(0, mDispatcher.getDroppedEventCount());
+    }
+
+    @Test
+    public void eventsWithoutCoalescingAreAllDelivered() {
+        mDispatcher.setBatchingEnabled(true);
+        dispatch(0);
+        dispatch(1);
+        runUntilIdle();
+
+        assertEquals(Arrays.asList(0, 1), getValues());
+    }
+
+    @Test
+    public void highPriorityEventsDontWaitForTheBatchingInterval() {
+        mDispatcher.setBatchingEnabled(true);
+        mDispatcher.setBatchingInterval(60000);
+        dispatch("Event", 0, null, MSREventBridgeEventPriority.NORMAL);
+        dispatch("Event", 1, null, MSREventBridgeEventPriority.HIGH);
+
+        assertEquals(Arrays.asList(1), getValues());
+        assertEquals(1, mDispatcher.getQueuedEventCount());
+    }
+
+    @Test
+    public void queuedEventsAreSentByPriority() {
+        mDispatcher.setMaxEventsInFlight(1);
+        dispatch("Event", 0, null, MSREventBridgeEventPriority.NORMAL);
+        dispatch("Event", 1, null, MSREventBridgeEventPriority.LOW);
+        dispatch("Event", 2, null, MSREventBridgeEventPriority.NORMAL);
+        dispatch("Event", 3, null, MSREventBridgeEventPriority.HIGH);
+        dispatch("Event", 4, null, MSREventBridgeEventPriority.NORMAL);
+
+        for (int i = 1; i <= 4; i++) {
+            mDispatcher.acknowledge(i);
+            runUntilIdle();
+        }
+
+        assertEquals(Arrays.asList(0, 3, 2, 4, 1), getValues());
+    }
+
+    @Test
+    public void lowPriorityEventsWaitForTheMainThreadToBeIdle() {
+        dispatch("Event", 0, null, MSREventBridgeEventPriority.LOW);
+        dispatch("Event", 1, null, MSREventBridgeEventPriority.NORMAL);
+
+        Looper.getMainLooper().getQueue().runDueMessages();
+        assertEquals(Arrays.asList(1), getValues());
+
+        runUntilIdle();
+        assertEquals(Arrays.asList(1, 0), getValues());
+    }
+
+    @Test
+    public void queueCapacityIsCountedPerRootView() {
+        mDispatcher.setBatchingEnabled(true);
+        mDispatcher.setQueueCapacity(2, MSREventBridgeOverflowPolicy.DROP_OLDEST);
+
+        dispatch("Event", 0, new int[] { 1, 11 }, MSREventBridgeEventPriority.NORMAL);
+        dispatch("Event", 1, new int[] { 1 }, MSREventBridgeEventPriority.NORMAL);
+        // Root view 1 is full, its oldest event is dropped
+        dispatch("Event", 2, null, MSREventBridgeEventPriority.NORMAL);
+        // Root view 11 only has the event for all subscribers queued
+        dispatch("Event", 3, new int[] { 11 }, MSREventBridgeEventPriority.NORMAL);
+        dispatch("Event", 4, new int[] { 1 }, MSREventBridgeEventPriority.NORMAL);
+        runUntilIdle();
+
+        assertEquals(Arrays.asList(2, 3, 4), getValues());
+        assertEquals(2, mDispatcher.getDroppedEventCount());
+    }
+
+    @Test
+    public void eventsForSeveralRootViewsNeedSpaceInEachQueue() {
+        mDispatcher.setBatchingEnabled(true);
+        mDispatcher.setQueueCapacity(1, MSREventBridgeOverflowPolicy.DROP_NEWEST);
+
+        dispatch("Event", 0, new int[] { 1 }, MSREventBridgeEventPriority.NORMAL);
+        dispatch("Event", 1, new int[] { 11 }, MSREventBridgeEventPriority.NORMAL);
+        dispatch("Event", 2, new int[] { 1, 11 }, MSREventBridgeEventPriority.NORMAL);
+        dispatch("Event", 3, null, MSREventBridgeEventPriority.NORMAL);
+        dispatch("Event", 4, new int[] { 21 }, MSREventBridgeEventPriority.NORMAL);
+        runUntilIdle();
+
+        assertEquals(Arrays.asList(0, 1, 4), getValues());
+        assertEquals(2, mDispatcher.getDroppedEventCount());
+    }
+
+    @Test
+    public void blockPolicyDropsEventsOnTheMainThread() {
+        mDispatcher.setBatchingEnabled(true);
+        mDispatcher.setQueueCapacity(1, MSREventBridgeOverflowPolicy.BLOCK);
+
+        long startTime = System.currentTimeMillis();
+        dispatch(0);
+        dispatch(1);
+
+        assertTrue(System.currentTimeMillis() - startTime < 500);
+        assertEquals(1, mDispatcher.getDroppedEventCount());
+        assertEquals(1, mDispatcher.getQueuedEventCount());
+    }
+
+    @Test(timeout = 10000)
+    public void blockPolicyWaitsForSpaceOnOtherThreads() throws InterruptedException {
+        mDispatcher.setBatchingEnabled(true);
+        mDispatcher.setQueueCapacity(1, MSREventBridgeOverflowPolicy.BLOCK);
+        dispatch(0);
+
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                dispatch(1);
+            }
+        });
+        thread.start();
+        while (thread.getState() != Thread.State.TIMED_WAITING) {
+            Thread.sleep(1);
+        }
+
+        runUntilIdle();
+        thread.join();
+        runUntilIdle();
+
+        assertEquals(0, mDispatcher.getDroppedEventCount());
+        assertEquals(2, getValues().size());
+    }
+
+    @Test(timeout = 10000)
+    public void queuedEventsAreEmittedBeforeLaterEvents() {
+        final int eventCount = 2000;
+        mDispatcher.setMaxEventsInFlight(4);
+
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 0; i < eventCount; i++) {
+                    dispatch(i);
+                }
+            }
+        });
+        thread.start();
+        while (thread.isAlive() || mDispatcher.getQueuedEventCount() > 0) {
+            mDispatcher.acknowledge(getLastSequenceNumber());
+            runUntilIdle();
+        }
+
+        ArrayList<Integer> values = getValues();
+        assertEquals(eventCount, values.size());
+        for (int i = 0; i < eventCount; i++) {
+            assertEquals(i, (int) values.get(i));
+        }
+    }
+
+    // Helper
+
+    private void dispatch(int value) {
+        mDispatcher.dispatch("Event", JavaOnlyMap.of("value", value), null, MSREventBridgeEventPriority.NORMAL);
+    }
+
+    private void dispatch(String name, int value, @Nullable int[] reactTags, MSREventBridgeEventPriority priority) {
+        mDispatcher.dispatch(name, JavaOnlyMap.of("value", value), reactTags, priority);
+    }
+
+    private static void runUntilIdle() {
+        Looper.getMainLooper().getQueue().runUntilIdle();
+    }
+
+    private long getLastSequenceNumber() {
+        synchronized (mEmitter) {
+            if (mEmitter.bodies.isEmpty()) {
+                return 0;
+            }
+            ReadableMap body = mEmitter.bodies.get(mEmitter.bodies.size() - 1);
+            return (long) body.getDouble(MSREventBridgeModule.EventBridgeModuleEventSequenceNumberKey);
+        }
+    }
+
+    /**
+     * Returns the values of all emitted events in the order they were emitted
+     */
+    private ArrayList<Integer> getValues() {
+        ArrayList<Integer> values = new ArrayList<>();
+        synchronized (mEmitter) {
+            for (ReadableMap body : mEmitter.bodies) {
+                if (!body.hasKey(MSREventBridgeModule.EventBridgeModuleEventBatchKey)) {
+                    values.add(body.getMap(MSREventBridgeModule.EventBridgeModuleEventInfoKey).getInt("value"));
+                    continue;
+                }
+                ReadableArray batch = body.getArray(MSREventBridgeModule.EventBridgeModuleEventBatchKey);
+                for (int i = 0; i < batch.size(); i++) {
+                    values.add(batch.getMap(i).getMap(MSREventBridgeModule.EventBridgeModuleEventInfoKey).getInt("value"));
+                }
+            }
+        }
+        return values;
+    }
+}
@@ -0,0 +1,916 @@
+package net.mischneider;
+
+import android.app.Activity;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.view.View;
+import android.view.ViewGroup;
+
+import com.facebook.react.ReactInstanceManager;
+import com.facebook.react.ReactRootView;
+import com.facebook.react.bridge.Callback;
+import com.facebook.react.bridge.JavaOnlyArray;
+import com.facebook.react.bridge.JavaOnlyMap;
+import com.facebook.react.bridge.Promise;
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class MSREventBridgeModuleTest {
+
+    private MSREventBridgeTestEnvironment mEnvironment;
+
+    @Before
+    public void setUp() {
+        mEnvironment = new MSREventBridgeTestEnvironment();
+    }
+
+    @After
+    public void tearDown() {
+        mEnvironment.destroy();
+    }
+
+    @Test
+    public void emitEventIsSentToReactNativeIfListenedFor() {
+        mEnvironment.module.emitEvent("Skipped", JavaOnlyMap.of("value", 1));
+        assertEquals(0, mEnvironment.emitter.bodies.size());
+
+        mEnvironment.addRootView(1);
+        mEnvironment.module.addListenerForTag(1, "Event");
+        mEnvironment.module.emitEvent("Event", JavaOnlyMap.of("value", 1));
+
+        assertEquals(1, mEnvironment.emitter.bodies.size());
+        ReadableMap body = mEnvironment.emitter.bodies.get(0);
+        assertEquals("Event", body.getString(MSREventBridgeModule.EventBridgeModuleEventNameKey));
+        assertEquals(1, body.getMap(MSREventBridgeModule.EventBridgeModuleEventInfoKey).getInt("value"));
+        assertFalse(body.hasKey(MSREventBridgeModule.EventBridgeModuleEventReactTagsKey));
+    }
+
+    @Test
+    public void eventNamesWithTheChannelSeparatorReachListenersForAllEvents() {
+        mEnvironment.addRootView(1);
+        mEnvironment.module.addListenerForTag(1, MSREventBridgeListenerRegistry.AllEventsName);
+
+        mEnvironment.module.emitEvent("Score#1", null);
+        mEnvironment.module.emitEvent(MSREventBridgeEventTarget.channel("Player"), "Progress", null);
+
+        assertEquals(1, mEnvironment.emitter.bodies.size());
+        assertEquals("Score#1", mEnvironment.emitter.bodies.get(0).getString(MSREventBridgeModule.EventBridgeModuleEventNameKey));
+    }
+
+    @Test
+    public void emitEventContextIsSentViaTheBroadcast() {
+        mEnvironment.addRootView(1);
+        mEnvironment.module.addListenerForTag(1, "Event");
+
+        MSREventBridgeModule.emitEventContext(mEnvironment.application, "Event", JavaOnlyMap.of("value", 1));
+        assertEquals(0, mEnvironment.emitter.bodies.size());
+        mEnvironment.runUntilIdle();
+
+        assertEquals(1, mEnvironment.emitter.bodies.size());
+        ReadableMap body = mEnvironment.emitter.bodies.get(0);
+        assertEquals("Event", body.getString(MSREventBridgeModule.EventBridgeModuleEventNameKey));
+        assertEquals(1, body.getMap(MSREventBridgeModule.EventBridgeModuleEventInfoKey).getInt("value"));
+    }
+
+    @Test
+    public void emitEventForActivityBeforeTheContextIsCreatedWaitsForAListener() {
+        final ReactInstanceManager instanceManager = new ReactInstanceManager();
+        MSREventBridgeInstanceManagerProvider instanceManagerProvider = new MSREventBridgeInstanceManagerProvider() {
+            @Override
+            public ReactInstanceManager getEventBridgeReactInstanceManager() {
+                return instanceManager;
+            }
+        };
+        MSREventBridgeModule.emitEventForActivity(mEnvironment.activity, instanceManagerProvider, "Event", JavaOnlyMap.of("value", 1));
+
+        instanceManager.setCurrentReactContext(mEnvironment.reactContext);
+        assertEquals(0, mEnvironment.emitter.bodies.size());
+
+        mEnvironment.addRootView(1);
+        mEnvironment.module.addListenerForTag(1, "Event");
+        mEnvironment.module.replayEventsForListener(1, "Event", 1);
+        mEnvironment.runUntilIdle();
+
+        assertEquals(1, mEnvironment.emitter.bodies.size());
+        ReadableMap body = mEnvironment.emitter.bodies.get(0);
+        assertEquals(1, body.getMap(MSREventBridgeModule.EventBridgeModuleEventInfoKey).getInt("value"));
+    }
+
+    @Test
+    public void bufferedEmitEventForActivityDoesntKeepTheActivityAlive() throws InterruptedException {
+        ReactInstanceManager instanceManager = new ReactInstanceManager();
+        WeakReference<Activity> activity = emitEventForNewActivity(instanceManager);
+        MSREventBridgeTestEnvironment.assertCollected(activity);
+
+        // The action is handed to the module once the context is created and still held there
+        activity = emitEventForNewActivity(instanceManager);
+        instanceManager.setCurrentReactContext(mEnvironment.reactContext);
+        MSREventBridgeTestEnvironment.assertCollected(activity);
+
+        mEnvironment.addRootView(1);
+        mEnvironment.module.addListenerForTag(1, "Event");
+        mEnvironment.module.replayEventsForListener(1, "Event", 1);
+        mEnvironment.runUntilIdle();
+        assertEquals(0, mEnvironment.emitter.bodies.size());
+    }
+
+    @Test
+    public void bufferedEmitEventForActivityIsDroppedForAFinishingActivity() {
+        final ReactInstanceManager instanceManager = new ReactInstanceManager();
+        MSREventBridgeModule.emitEventForActivity(mEnvironment.activity, getInstanceManagerProvider(instanceManager), "Event", null);
+        instanceManager.setCurrentReactContext(mEnvironment.reactContext);
+
+        mEnvironment.activity.finish();
+        mEnvironment.addRootView(1);
+        mEnvironment.module.addListenerForTag(1, "Event");
+        mEnvironment.module.replayEventsForListener(1, "Event", 1);
+        mEnvironment.runUntilIdle();
+
+        assertEquals(0, mEnvironment.emitter.bodies.size());
+    }
+
+    @Test
+    public void emitEventForActivityAddressesListeningRootViews() {
+        mEnvironment.addRootView(1);
+        mEnvironment.addRootView(11);
+        mEnvironment.addRootView(21);
+        mEnvironment.module.addListenerForTag(1, "Event");
+        mEnvironment.module.addListenerForTag(21, "Event");
+        mEnvironment.runUntilIdle();
+
+        mEnvironment.module.emitEventForActivity(mEnvironment.activity, "Event", null);
+
+        assertEquals(1, mEnvironment.emitter.bodies.size());
+        ReadableArray reactTags = mEnvironment.emitter.bodies.get(0).getArray(MSREventBridgeModule.EventBridgeModuleEventReactTagsKey);
+        assertEquals(2, reactTags.size());
+        assertEquals(1, reactTags.getInt(0));
+        assertEquals(21, reactTags.getInt(1));
+    }
+
+    @Test
+    public void emitEventForActivityKeepsTheHierarchyChangeListenerOfTheApp() {
+        ViewGroup contentView = (ViewGroup) mEnvironment.activity.findViewById(android.R.id.content);
+        final ArrayList<View> addedViews = new ArrayList<>();
+        contentView.setOnHierarchyChangeListener(new ViewGroup.OnHierarchyChangeListener() {
+            @Override
+            public void onChildViewAdded(View parent, View child) {
+                addedViews.add(child);
+            }
+
+            @Override
+            public void onChildViewRemoved(View parent, View child) {
+            }
+        });
+        mEnvironment.module.emitEventForActivity(mEnvironment.activity, "Event", null);
+
+        // A plain root view added after the first lookup is indexed once a listener is registered in it
+        ReactRootView rootView = new ReactRootView(mEnvironment.activity);
+        rootView.setId(1);
+        mEnvironment.uiManager.getNativeViewHierarchyManager().addView(1, rootView);
+        contentView.addView(rootView);
+        mEnvironment.module.addListenerForTag(1, "Event");
+        mEnvironment.runUntilIdle();
+        mEnvironment.module.emitEventForActivity(mEnvironment.activity, "Event", null);
+
+        assertEquals(1, addedViews.size());
+        assertEquals(1, mEnvironment.emitter.bodies.size());
+    }
+
+    @Test
+    public void emitEventForActivityFindsPlainRootViewsAddedAfterTheFirstLookup() {
+        mEnvironment.module.setEventSticky("Event", 1);
+        mEnvironment.module.emitEventForActivity(mEnvironment.activity, "Event", JavaOnlyMap.of("value", 1));
+
+        // The root view has no listener yet, the event is kept for it
+        ReactRootView rootView = new ReactRootView(mEnvironment.activity);
+        rootView.setId(1);
+        mEnvironment.uiManager.getNativeViewHierarchyManager().addView(1, rootView);
+        mEnvironment.contentContainer.addView(rootView);
+        mEnvironment.module.emitEventForActivity(mEnvironment.activity, "Event", JavaOnlyMap.of("value", 2));
+        assertEquals(0, mEnvironment.emitter.bodies.size());
+
+        mEnvironment.module.addListenerForTag(1, "Event");
+        mEnvironment.module.replayEventsForListener(1, "Event", 7);
+        mEnvironment.runUntilIdle();
+
+        assertEquals(1, mEnvironment.emitter.bodies.size());
+        assertEquals(2, mEnvironment.emitter.bodies.get(0).getMap(MSREventBridgeModule.EventBridgeModuleEventInfoKey).getInt("value"));
+    }
+
+    @Test
+    public void stickyEventsAreReplayedToTheAddedListenerOnly() {
+        mEnvironment.addRootView(1);
+        mEnvironment.module.setEventSticky("Event", 1);
+        mEnvironment.module.emitEventForActivity(mEnvironment.activity, "Event", JavaOnlyMap.of("value", 1));
+        assertEquals(0, mEnvironment.emitter.bodies.size());
+
+        mEnvironment.module.addListenerForTag(1, "Event");
+        mEnvironment.module.replayEventsForListener(1, "Event", 7);
+        mEnvironment.runUntilIdle();
+
+        assertEquals(1, mEnvironment.emitter.bodies.size());
+        ReadableMap body = mEnvironment.emitter.bodies.get(0);
+        assertEquals(7, body.getInt(MSREventBridgeModule.EventBridgeModuleEventListenerIdKey));
+        assertEquals(1, body.getMap(MSREventBridgeModule.EventBridgeModuleEventInfoKey).getInt("value"));
+    }
+
+    @Test
+    public void bufferedStickyEventsAreDeliveredOnce() {
+        ReactInstanceManager instanceManager = new ReactInstanceManager();
+        MSREventBridgeModule.emitEventForActivity(mEnvironment.activity, getInstanceManagerProvider(instanceManager), "Event", JavaOnlyMap.of("value", 1));
+        mEnvironment.module.setEventSticky("Event", 1);
+        instanceManager.setCurrentReactContext(mEnvironment.reactContext);
+
+        mEnvironment.addRootView(1);
+        mEnvironment.module.addListenerForTag(1, "Event");
+        mEnvironment.module.replayEventsForListener(1, "Event", 1);
+        mEnvironment.runUntilIdle();
+
+        assertEquals(1, mEnvironment.emitter.bodies.size());
+        assertFalse(mEnvironment.emitter.bodies.get(0).hasKey(MSREventBridgeModule.EventBridgeModuleEventListenerIdKey));
+    }
+
+    @Test
+    public void stickyEventsOfRootViewsAreDroppedOnceTheirActivityIsDestroyed() {
+        mEnvironment.addRootView(1);
+        mEnvironment.module.setEventSticky("Event", 1);
+        mEnvironment.module.addListenerForTag(1, "Event");
+        mEnvironment.runUntilIdle();
+        mEnvironment.module.emitEventForActivity(mEnvironment.activity, "Event", null);
+        assertEquals(1, mEnvironment.emitter.bodies.size());
+
+        mEnvironment.activity.performDestroy();
+        mEnvironment.module.replayEventsForListener(1, "Event", 7);
+        mEnvironment.runUntilIdle();
+
+        assertEquals(1, mEnvironment.emitter.bodies.size());
+    }
+
+    @Test
+    public void stickyEventsOfCollectedRootViewsAreDropped() throws InterruptedException {
+        mEnvironment.module.setEventSticky("Event", 1);
+        WeakReference<View> rootView = addRootViewWithStickyEvent(1);
+        MSREventBridgeTestEnvironment.assertCollected(rootView);
+
+        // Collected root views are dropped on the next sticky emit
+        mEnvironment.module.emitEvent(MSREventBridgeEventTarget.rootTags(11), "Event", null);
+        mEnvironment.module.replayEventsForListener(1, "Event", 7);
+        mEnvironment.runUntilIdle();
+
+        assertEquals(0, mEnvironment.emitter.bodies.size());
+    }
+
+    @Test
+    public void stickyEventsAreNotKeptForRootViewsOfOtherReactInstances() {
+        MSREventBridgeTestEnvironment otherEnvironment = new MSREventBridgeTestEnvironment();
+        try {
+            otherEnvironment.addRootView(mEnvironment.contentContainer, 1);
+            otherEnvironment.module.addListenerForTag(1, "Event");
+            otherEnvironment.runUntilIdle();
+            mEnvironment.module.setEventSticky("Event", 1);
+            mEnvironment.module.emitEventForActivity(mEnvironment.activity, "Event", null);
+
+            // A root view of this instance with the same root tag doesn't get the event of the other one
+            mEnvironment.addRootView(1);
+            mEnvironment.module.addListenerForTag(1, "Event");
+            mEnvironment.module.replayEventsForListener(1, "Event", 7);
+            mEnvironment.runUntilIdle();
+
+            assertEquals(0, mEnvironment.emitter.bodies.size());
+        } finally {
+            otherEnvironment.destroy();
+        }
+    }
+
+    @Test
+    public void eventsWithASchemaAreMarkedInTheBody() {
+        MSREventBridgeEventSchema schema = new MSREventBridgeEventSchema("Location", "latitude", "longitude");
+        mEnvironment.addRootView(1);
+        mEnvironment.module.setEventSticky("Location", 1);
+        mEnvironment.module.addListenerForTag(1, "Location");
+
+        mEnvironment.module.emitEventValues(schema, new double[] { 1, 2 });
+        mEnvironment.module.replayEventsForListener(1, "Location", 7);
+        mEnvironment.runUntilIdle();
+
+        assertEquals(2, mEnvironment.emitter.bodies.size());
+        for (ReadableMap body : mEnvironment.emitter.bodies) {
+            assertTrue(body.getBoolean(MSREventBridgeModule.EventBridgeModuleEventHasValuesKey));
+            ReadableArray values = body.getMap(MSREventBridgeModule.EventBridgeModuleEventInfoKey)
+                    .getArray(MSREventBridgeModule.EventBridgeModuleEventValuesKey);
+            assertEquals(2, values.getDouble(1), 0);
+        }
+    }
+
+    @Test
+    public void eventsWithoutASchemaAreNotMarkedInTheBody() {
+        mEnvironment.addRootView(1);
+        mEnvironment.module.addListenerForTag(1, "Event");
+
+        mEnvironment.module.emitEvent("Event", JavaOnlyMap.of(MSREventBridgeModule.EventBridgeModuleEventValuesKey, 1));
+
+        assertEquals(1, mEnvironment.emitter.bodies.size());
+        assertFalse(mEnvironment.emitter.bodies.get(0).hasKey(MSREventBridgeModule.EventBridgeModuleEventHasValuesKey));
+    }
+
+    @Test
+    public void hubKeepsStickyEventsForRootViewsWithoutListener() {
+        mEnvironment.addRootView(1);
+        mEnvironment.addRootView(11);
+        mEnvironment.module.setEventSticky("Event", 1);
+        mEnvironment.module.addListenerForTag(1, "Event");
+        mEnvironment.runUntilIdle();
+
+        MSREventBridgeEventHub.getInstance().emitEventForActivity(mEnvironment.activity, "Event", JavaOnlyMap.of("value", 1));
+        assertEquals(1, mEnvironment.emitter.bodies.size());
+
+        mEnvironment.module.addListenerForTag(11, "Event");
+        mEnvironment.module.replayEventsForListener(11, "Event", 1);
+        mEnvironment.runUntilIdle();
+
+        assertEquals(2, mEnvironment.emitter.bodies.size());
+        ReadableMap body = mEnvironment.emitter.bodies.get(1);
+        assertEquals(11, body.getArray(MSREventBridgeModule.EventBridgeModuleEventReactTagsKey).getInt(0));
+        assertEquals(1, body.getMap(MSREventBridgeModule.EventBridgeModuleEventInfoKey).getInt("value"));
+    }
+
+    @Test
+    public void onEventIsDeliveredToTheReceiverOfTheRootView() {
+        MSREventBridgeAwareReactRootView rootView = mEnvironment.addRootView(1);
+        final ArrayList<String> names = new ArrayList<>();
+        rootView.setEventBridgeEventReceiver(new MSREventBridgeEventReceiver() {
+            @Override
+            public void onEvent(String name, ReadableMap info) {
+                names.add(name);
+            }
+
+            @Override
+            public void onEventCallback(String name, ReadableMap info, MSREventBridgeReceiverCallback callback) {
+            }
+        });
+        mEnvironment.uiManager.setRootTag(5, 1);
+
+        mEnvironment.module.onEvent(5, "Event", null);
+        mEnvironment.runUntilIdle();
+
+        assertEquals(1, names.size());
+        assertEquals("Event", names.get(0));
+    }
+
+    @Test(timeout = 10000)
+    public void serialReceiverThreadDeliversTheEventsOfARootViewInOrder() throws InterruptedException {
+        CountDownLatch received = new CountDownLatch(100);
+        ThreadedEventReceiver first = new ThreadedEventReceiver(MSREventBridgeReceiverThread.SERIAL, received);
+        ThreadedEventReceiver second = new ThreadedEventReceiver(MSREventBridgeReceiverThread.SERIAL, received);
+        mEnvironment.addRootView(1).setEventBridgeEventReceiver(first);
+        mEnvironment.addRootView(2).setEventBridgeEventReceiver(second);
+        mEnvironment.module.addListenerForTag(1, "Event");
+        mEnvironment.module.addListenerForTag(2, "Event");
+        mEnvironment.runUntilIdle();
+
+        for (int i = 0; i < 50; i++) {
+            mEnvironment.module.onEvent(1, "Event", JavaOnlyMap.of("value", i));
+            mEnvironment.module.onEvent(2, "Event", JavaOnlyMap.of("value", i));
+        }
+        received.await();
+
+        for (ThreadedEventReceiver receiver : Arrays.asList(first, second)) {
+            synchronized (receiver) {
+                for (int i = 0; i < 50; i++) {
+                    assertEquals(i, (int) receiver.values.get(i));
+                }
+                assertFalse(receiver.threads.contains(Looper.getMainLooper().getThread()));
+            }
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void backgroundReceiverThreadDeliversAllEventsOffTheMainThread() throws InterruptedException {
+        CountDownLatch received = new CountDownLatch(20);
+        ThreadedEventReceiver receiver = new ThreadedEventReceiver(MSREventBridgeReceiverThread.BACKGROUND, received);
+        mEnvironment.addRootView(1).setEventBridgeEventReceiver(receiver);
+
+        for (int i = 0; i < 20; i++) {
+            mEnvironment.module.onEvent(1, "Event", JavaOnlyMap.of("value", i));
+        }
+        mEnvironment.runUntilIdle();
+        received.await();
+
+        synchronized (receiver) {
+            ArrayList<Integer> values = new ArrayList<>(receiver.values);
+            Collections.sort(values);
+            for (int i = 0; i < 20; i++) {
+                assertEquals(i, (int) values.get(i));
+            }
+            assertFalse(receiver.threads.contains(Looper.getMainLooper().getThread()));
+        }
+    }
+
+    @Test
+    public void onEventIsDeliveredWithinTheReactInstanceOfTheRootTag() {
+        MSREventBridgeTestEnvironment otherEnvironment = new MSREventBridgeTestEnvironment();
+        try {
+            final ArrayList<String> names = new ArrayList<>();
+            mEnvironment.addRootView(1).setEventBridgeEventReceiver(new RecordingEventReceiver("first", names));
+            otherEnvironment.addRootView(1).setEventBridgeEventReceiver(new RecordingEventReceiver("second", names));
+            otherEnvironment.module.addListenerForTag(1, "Event");
+            otherEnvironment.runUntilIdle();
+
+            otherEnvironment.module.onEvent(1, "Event", null);
+            otherEnvironment.runUntilIdle();
+
+            assertEquals(1, names.size());
+            assertEquals("second", names.get(0));
+        } finally {
+            otherEnvironment.destroy();
+        }
+    }
+
+    @Test
+    public void emitEventForActivitySkipsRootViewsOfOtherReactInstances() {
+        MSREventBridgeTestEnvironment otherEnvironment = new MSREventBridgeTestEnvironment();
+        try {
+            mEnvironment.addRootView(1);
+            otherEnvironment.addRootView(1);
+            otherEnvironment.module.addListenerForTag(1, "Event");
+            otherEnvironment.runUntilIdle();
+
+            otherEnvironment.module.emitEventForActivity(mEnvironment.activity, "Event", null);
+            assertEquals(0, otherEnvironment.emitter.bodies.size());
+
+            otherEnvironment.module.emitEventForActivity(otherEnvironment.activity, "Event", null);
+            assertEquals(1, otherEnvironment.emitter.bodies.size());
+        } finally {
+            otherEnvironment.destroy();
+        }
+    }
+
+    @Test
+    public void onEventCallbackPassesTheResponseBack() {
+        MSREventBridgeAwareReactRootView rootView = mEnvironment.addRootView(1);
+        rootView.setEventBridgeEventReceiver(new MSREventBridgeEventReceiver() {
+            @Override
+            public void onEvent(String name, ReadableMap info) {
+            }
+
+            @Override
+            public void onEventCallback(String name, ReadableMap info, MSREventBridgeReceiverCallback callback) {
+                callback.onSuccess(info.getInt("value") + 1);
+            }
+        });
+
+        final Object[][] result = new Object[1][];
+        mEnvironment.module.onEventCallback(1, "Event", JavaOnlyMap.of("value", 1), new Callback() {
+            @Override
+            public void invoke(Object... args) {
+                result[0] = args;
+            }
+        });
+        mEnvironment.runUntilIdle();
+
+        assertNull(result[0][0]);
+        assertEquals(2, result[0][1]);
+        assertEquals(0, mEnvironment.module.getPendingCallbackCount());
+    }
+
+    @Test
+    public void callbackFailsWithATimeoutIfTheReceiverDoesntCallIt() {
+        ArrayList<MSREventBridgeReceiverCallback> callbacks = addRootViewKeepingCallbacks(1);
+        mEnvironment.module.setCallbackTimeout(100);
+
+        final ArrayList<Object[]> results = new ArrayList<>();
+        mEnvironment.module.onEventCallback(1, "Event", null, new Callback() {
+            @Override
+            public void invoke(Object... args) {
+                results.add(args);
+            }
+        });
+        mEnvironment.runUntilIdle();
+        assertEquals(1, mEnvironment.module.getPendingCallbackCount());
+
+        SystemClock.sleep(100);
+        mEnvironment.runUntilIdle();
+        assertEquals(1, results.size());
+        assertEquals("Callback for event 'Event' timed out", results.get(0)[0]);
+        assertEquals(1, mEnvironment.module.getTimedOutCallbackCount());
+        assertEquals(0, mEnvironment.module.getPendingCallbackCount());
+
+        // The receiver answering late is ignored
+        callbacks.get(0).onSuccess(1);
+        assertEquals(1, results.size());
+        assertEquals(0, mEnvironment.module.getCompletedCallbackCount());
+    }
+
+    @Test
+    public void pendingRequestsAreRejectedOnceTheReactInstanceIsDestroyed() {
+        MSREventBridgeTestEnvironment otherEnvironment = new MSREventBridgeTestEnvironment();
+        otherEnvironment.addRootView(1).setEventBridgeEventReceiver(new KeepingEventReceiver());
+
+        RecordingPromise promise = new RecordingPromise();
+        otherEnvironment.module.onEventPromise(1, 1, "Event", null, promise);
+        otherEnvironment.runUntilIdle();
+        assertEquals(0, promise.settledCount);
+
+        otherEnvironment.destroy();
+        assertEquals(1, promise.settledCount);
+        assertEquals(MSREventBridgeCallbackTracker.ErrorCodeDestroyed, promise.code);
+        assertEquals(0, otherEnvironment.module.getPendingCallbackCount());
+    }
+
+    @Test
+    public void requestsBeyondTheLimitPerRootViewAreRejected() {
+        ArrayList<MSREventBridgeReceiverCallback> callbacks = addRootViewKeepingCallbacks(1);
+        addRootViewKeepingCallbacks(2);
+        mEnvironment.module.setMaxPendingRequestsPerRoot(2);
+
+        RecordingPromise[] promises = new RecordingPromise[5];
+        for (int i = 0; i < promises.length; i++) {
+            promises[i] = new RecordingPromise();
+        }
+        mEnvironment.module.onEventPromise(1, 1, "Event", null, promises[0]);
+        mEnvironment.module.onEventPromise(1, 2, "Event", null, promises[1]);
+        mEnvironment.module.onEventPromise(1, 3, "Event", null, promises[2]);
+        mEnvironment.module.onEventPromise(2, 4, "Event", null, promises[3]);
+        mEnvironment.runUntilIdle();
+
+        assertEquals("E_EVENT_TOO_MANY_REQUESTS", promises[2].code);
+        assertEquals(0, promises[3].settledCount);
+        assertEquals(3, mEnvironment.module.getPendingCallbackCount());
+
+        // A finished request makes room for the next one
+        callbacks.get(0).onSuccess(1);
+        mEnvironment.module.onEventPromise(1, 5, "Event", null, promises[4]);
+        mEnvironment.runUntilIdle();
+        assertEquals(1, promises[0].value);
+        assertEquals(0, promises[4].settledCount);
+        assertEquals(3, callbacks.size());
+    }
+
+    @Test
+    public void cancelledRequestsAreRejectedAndTheReceiverIsNotified() {
+        ArrayList<MSREventBridgeReceiverCallback> callbacks = addRootViewKeepingCallbacks(1);
+        RecordingPromise promise = new RecordingPromise();
+        mEnvironment.module.onEventPromise(1, 1, "Event", null, promise);
+        mEnvironment.runUntilIdle();
+
+        MSREventBridgeCancellableCallback callback = (MSREventBridgeCancellableCallback) callbacks.get(0);
+        final boolean[] cancelled = new boolean[1];
+        callback.setOnCancelListener(new Runnable() {
+            @Override
+            public void run() {
+                cancelled[0] = true;
+            }
+        });
+        mEnvironment.module.cancelRequest(1);
+
+        assertTrue(cancelled[0]);
+        assertTrue(callback.isCancelled());
+        assertEquals(MSREventBridgeCallbackTracker.ErrorCodeCancelled, promise.code);
+        assertEquals(0, mEnvironment.module.getPendingCallbackCount());
+
+        // The receiver answering anyway is ignored
+        callback.onSuccess(1);
+        assertEquals(1, promise.settledCount);
+    }
+
+    @Test
+    public void requestsCancelledBeforeDeliveryDontReachTheReceiver() {
+        ArrayList<MSREventBridgeReceiverCallback> callbacks = addRootViewKeepingCallbacks(1);
+        RecordingPromise promise = new RecordingPromise();
+
+        // The root view is resolved in an UIBlock, the request is cancelled before it runs
+        mEnvironment.module.onEventPromise(1, 1, "Event", null, promise);
+        mEnvironment.module.cancelRequest(1);
+        mEnvironment.runUntilIdle();
+
+        assertEquals(0, callbacks.size());
+        assertEquals(1, promise.settledCount);
+        assertEquals(MSREventBridgeCallbackTracker.ErrorCodeCancelled, promise.code);
+    }
+
+    @Test
+    public void streamChunksAreSentUntilTheStreamCompletes() {
+        ArrayList<MSREventBridgeReceiverCallback> callbacks = addRootViewKeepingCallbacks(1);
+        mEnvironment.module.onEventStream(1, 7, "Event", null);
+        mEnvironment.runUntilIdle();
+
+        MSREventBridgeStreamingCallback stream = (MSREventBridgeStreamingCallback) callbacks.get(0);
+        stream.onNext("First");
+        stream.onNext("Second");
+        stream.onComplete();
+        stream.onNext("Ignored");
+
+        assertEquals(3, mEnvironment.emitter.bodies.size());
+        for (ReadableMap body : mEnvironment.emitter.bodies) {
+            assertEquals(7, body.getInt(MSREventBridgeModule.EventBridgeModuleStreamEventRequestIdKey));
+        }
+        assertEquals("First", mEnvironment.emitter.bodies.get(0).getString(MSREventBridgeModule.EventBridgeModuleStreamEventChunkKey));
+        assertEquals("Second", mEnvironment.emitter.bodies.get(1).getString(MSREventBridgeModule.EventBridgeModuleStreamEventChunkKey));
+        assertFalse(mEnvironment.emitter.bodies.get(1).hasKey(MSREventBridgeModule.EventBridgeModuleStreamEventDoneKey));
+        assertTrue(mEnvironment.emitter.bodies.get(2).getBoolean(MSREventBridgeModule.EventBridgeModuleStreamEventDoneKey));
+        assertFalse(mEnvironment.emitter.bodies.get(2).hasKey(MSREventBridgeModule.EventBridgeModuleStreamEventChunkKey));
+        assertEquals(0, mEnvironment.module.getPendingCallbackCount());
+    }
+
+    @Test
+    public void streamFailureEndsTheStreamWithAnError() {
+        ArrayList<MSREventBridgeReceiverCallback> callbacks = addRootViewKeepingCallbacks(1);
+        mEnvironment.module.onEventStream(1, 7, "Event", null);
+        mEnvironment.runUntilIdle();
+
+        MSREventBridgeStreamingCallback stream = (MSREventBridgeStreamingCallback) callbacks.get(0);
+        stream.onNext("First");
+        stream.onFailure("Broken");
+        stream.onNext("Ignored");
+
+        assertEquals(2, mEnvironment.emitter.bodies.size());
+        ReadableMap body = mEnvironment.emitter.bodies.get(1);
+        assertEquals("Broken", body.getString(MSREventBridgeModule.EventBridgeModuleStreamEventErrorKey));
+        assertEquals(MSREventBridgeCallbackTracker.ErrorCodeFailed, body.getString(MSREventBridgeModule.EventBridgeModuleStreamEventErrorCodeKey));
+        assertEquals(0, mEnvironment.module.getPendingCallbackCount());
+    }
+
+    @Test
+    public void streamChunksRestartTheTimeout() {
+        ArrayList<MSREventBridgeReceiverCallback> callbacks = addRootViewKeepingCallbacks(1);
+        mEnvironment.module.setCallbackTimeout(100);
+        mEnvironment.module.onEventStream(1, 7, "Event", null);
+        mEnvironment.runUntilIdle();
+
+        SystemClock.sleep(60);
+        ((MSREventBridgeStreamingCallback) callbacks.get(0)).onNext("First");
+        SystemClock.sleep(60);
+        mEnvironment.runUntilIdle();
+        assertEquals(1, mEnvironment.emitter.bodies.size());
+
+        SystemClock.sleep(40);
+        mEnvironment.runUntilIdle();
+        assertEquals(2, mEnvironment.emitter.bodies.size());
+        assertEquals(MSREventBridgeCallbackTracker.ErrorCodeTimeout, mEnvironment.emitter.bodies.get(1).getString(MSREventBridgeModule.EventBridgeModuleStreamEventErrorCodeKey));
+    }
+
+    @Test
+    public void eventsForARemovedRootViewFailWithoutCrashingTheUIQueue() {
+        // The listener was added right before the root view was removed
+        mEnvironment.module.addListenerForTag(1, "Event");
+
+        final Object[][] result = new Object[1][];
+        mEnvironment.module.onEventCallback(1, "Event", JavaOnlyMap.of("value", 1), new Callback() {
+            @Override
+            public void invoke(Object... args) {
+                result[0] = args;
+            }
+        });
+        mEnvironment.module.onEventBatch(
+                JavaOnlyArray.of(1), JavaOnlyArray.of("Event"), JavaOnlyArray.of(JavaOnlyMap.of("value", 1)));
+        mEnvironment.runUntilIdle();
+
+        assertEquals("No receiver found for event: Event", result[0][0]);
+        assertEquals(0, mEnvironment.module.getPendingCallbackCount());
+    }
+
+    @Test
+    public void identicalCacheableRequestsDontWaitForATimedOutRequest() {
+        final ArrayList<MSREventBridgeReceiverCallback> callbacks = new ArrayList<>();
+        mEnvironment.addRootView(1).setEventBridgeEventReceiver(new MSREventBridgeEventReceiver() {
+            @Override
+            public void onEvent(String name, ReadableMap info) {
+            }
+
+            @Override
+            public void onEventCallback(String name, ReadableMap info, MSREventBridgeReceiverCallback callback) {
+                callbacks.add(callback);
+            }
+        });
+        mEnvironment.module.setEventCacheable("Event", 60000, 8);
+        mEnvironment.module.setCallbackTimeout(100);
+
+        final ArrayList<Object[]> results = new ArrayList<>();
+        Callback callback = new Callback() {
+            @Override
+            public void invoke(Object... args) {
+                results.add(args);
+            }
+        };
+        mEnvironment.module.onEventCallback(1, "Event", JavaOnlyMap.of("value", 1), callback);
+        mEnvironment.module.onEventCallback(1, "Event", JavaOnlyMap.of("value", 1), callback);
+        mEnvironment.runUntilIdle();
+        assertEquals(1, callbacks.size());
+
+        // Both requests time out, the receiver never answered
+        SystemClock.sleep(200);
+        mEnvironment.runUntilIdle();
+        assertEquals(2, results.size());
+
+        // An identical request is delivered to the receiver again
+        mEnvironment.module.onEventCallback(1, "Event", JavaOnlyMap.of("value", 1), callback);
+        mEnvironment.runUntilIdle();
+        assertEquals(2, callbacks.size());
+        callbacks.get(1).onSuccess(2);
+        assertEquals(3, results.size());
+        assertEquals(2, results.get(2)[1]);
+    }
+
+    @Test
+    public void queryFailsFastWhileAnAbandonedQueryWithTheSameNameIsRunning() throws InterruptedException {
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch finished = new CountDownLatch(1);
+        mEnvironment.module.registerQueryHandler("Slow", new MSREventBridgeQueryHandler() {
+            @Override
+            public Object onQuery(String name, ReadableMap info) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    // The abandoned handler keeps running until it's released
+                    try {
+                        release.await();
+                    } catch (InterruptedException ignored) {
+                    }
+                } finally {
+                    finished.countDown();
+                }
+                return "value";
+            }
+        });
+        mEnvironment.module.setQueryTimeout(10);
+
+        assertTrue(mEnvironment.module.query("Slow", null).getString("error").contains("time budget"));
+        assertTrue(mEnvironment.module.query("Slow", null).getString("error").contains("still running"));
+
+        // The name is released right after the abandoned handler returns
+        release.countDown();
+        finished.await();
+        mEnvironment.module.setQueryTimeout(1000);
+        String error = "still running";
+        for (int i = 0; i < 100 && error != null && error.contains("still running"); i++) {
+            Thread.sleep(10);
+            error = mEnvironment.module.query("Slow", null).getString("error");
+        }
+        assertNull(error);
+    }
+
+    /**
+     * Records the events it receives prefixed with its name
+     */
+    private static final class RecordingEventReceiver implements MSREventBridgeEventReceiver {
+        private final String mName;
+        private final ArrayList<String> mNames;
+
+        RecordingEventReceiver(String name, ArrayList<String> names) {
+            mName = name;
+            mNames = names;
+        }
+
+        @Override
+        public void onEvent(String name, ReadableMap info) {
+            mNames.add(mName);
+        }
+
+        @Override
+        public void onEventCallback(String name, ReadableMap info, MSREventBridgeReceiverCallback callback) {
+        }
+    }
+
+    /**
+     * Keeps the callbacks it receives without calling them
+     */
+    private static final class KeepingEventReceiver implements MSREventBridgeEventReceiver {
+        final ArrayList<MSREventBridgeReceiverCallback> callbacks = new ArrayList<>();
+
+        @Override
+        public void onEvent(String name, ReadableMap info) {
+        }
+
+        @Override
+        public void onEventCallback(String name, ReadableMap info, MSREventBridgeReceiverCallback callback) {
+            callbacks.add(callback);
+        }
+    }
+
+    /**
+     * Records how the promise was settled
+     */
+    private static final class RecordingPromise implements Promise {
+        int settledCount = 0;
+        Object value;
+        String code;
+        String message;
+
+        @Override
+        public void resolve(Object value) {
+            settledCount++;
+            this.value = value;
+        }
+
+        @Override
+        public void reject(String code, String message) {
+            settledCount++;
+            this.code = code;
+            this.message = message;
+        }
+
+        @Override
+        public void reject(String code, Throwable e) {
+            reject(code, e.getMessage());
+        }
+
+        @Override
+        public void reject(String code, String message, Throwable e) {
+            reject(code, message);
+        }
+    }
+
+    /**
+     * Records the values of the events it receives and the threads they were received on
+     */
+    private static final class ThreadedEventReceiver implements MSREventBridgeEventReceiver, MSREventBridgeReceiverThreadProvider {
+        final ArrayList<Integer> values = new ArrayList<>();
+        final ArrayList<Thread> threads = new ArrayList<>();
+        private final MSREventBridgeReceiverThread mThread;
+        private final CountDownLatch mReceived;
+
+        ThreadedEventReceiver(MSREventBridgeReceiverThread thread, CountDownLatch received) {
+            mThread = thread;
+            mReceived = received;
+        }
+
+        @Override
+        public MSREventBridgeReceiverThread getReceiverThread(String name) {
+            return mThread;
+        }
+
+        @Override
+        public void onEvent(String name, ReadableMap info) {
+            synchronized (this) {
+                values.add(info.getInt("value"));
+                threads.add(Thread.currentThread());
+            }
+            mReceived.countDown();
+        }
+
+        @Override
+        public void onEventCallback(String name, ReadableMap info, MSREventBridgeReceiverCallback callback) {
+        }
+    }
+
+    // Helper
+
+    private static MSREventBridgeInstanceManagerProvider getInstanceManagerProvider(final ReactInstanceManager instanceManager) {
+        return new MSREventBridgeInstanceManagerProvider() {
+            @Override
+            public ReactInstanceManager getEventBridgeReactInstanceManager() {
+                return instanceManager;
+            }
+        };
+    }
+
+    /**
+     * Adds a root view with a receiver that keeps the callbacks it receives and returns them
+     */
+    private ArrayList<MSREventBridgeReceiverCallback> addRootViewKeepingCallbacks(int rootTag) {
+        KeepingEventReceiver receiver = new KeepingEventReceiver();
+        mEnvironment.addRootView(rootTag).setEventBridgeEventReceiver(receiver);
+        return receiver.callbacks;
+    }
+
+    /**
+     * Emits an event for an activity nothing else references and returns a weak reference to it
+     */
+    private WeakReference<Activity> emitEventForNewActivity(ReactInstanceManager instanceManager) {
+        Activity activity = new Activity(mEnvironment.application);
+        MSREventBridgeModule.emitEventForActivity(activity, getInstanceManagerProvider(instanceManager), "Event", null);
+        return new WeakReference<>(activity);
+    }
+
+    /**
+     * Adds a root view with a listener that receives a sticky event, removes it again and returns a weak
+     * reference to it
+     */
+    private WeakReference<View> addRootViewWithStickyEvent(int rootTag) {
+        View rootView = mEnvironment.addRootView(rootTag);
+        mEnvironment.module.addListenerForTag(rootTag, "Event");
+        mEnvironment.runUntilIdle();
+        mEnvironment.module.emitEvent(MSREventBridgeEventTarget.rootTags(rootTag), "Event", null);
+        mEnvironment.module.removeListenerForTag(rootTag, "Event");
+
+        mEnvironment.contentContainer.removeView(rootView);
+        mEnvironment.uiManager.getNativeViewHierarchyManager().removeView(rootTag);
+        mEnvironment.emitter.clear();
+        return new WeakReference<>(rootView);
+    }
+}
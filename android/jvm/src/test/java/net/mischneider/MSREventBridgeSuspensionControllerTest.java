@@ -0,0 +1,251 @@
+package net.mischneider;
+
+import android.app.Activity;
+import android.app.Application;
+import android.os.Looper;
+import android.view.View;
+import android.view.ViewGroup;
+
+import com.facebook.react.bridge.JavaOnlyMap;
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.modules.core.DeviceEventManagerModule;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.ref.WeakReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MSREventBridgeSuspensionControllerTest {
+
+    private final MSREventBridgeTestEnvironment.RecordingEventEmitter mEmitter =
+            new MSREventBridgeTestEnvironment.RecordingEventEmitter();
+    private final Application mApplication = new Application();
+    private final Activity mActivity = new Activity(mApplication);
+    private final ViewGroup mContentContainer = new ViewGroup(mActivity);
+    private MSREventBridgeEventDispatcher mDispatcher;
+    private MSREventBridgeSuspensionController mController;
+
+    @Before
+    public void setUp() {
+        Looper.prepareMainLooper();
+        ReactApplicationContext reactContext = new ReactApplicationContext(mApplication);
+        reactContext.setJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class, mEmitter);
+        mDispatcher = new MSREventBridgeEventDispatcher(reactContext, new MSREventBridgeMetrics());
+        mController = new MSREventBridgeSuspensionController(mDispatcher, new MSREventBridgeSuspensionController.OnRootViewRemovedListener() {
+            @Override
+            public void onRootViewRemoved(int rootTag) {
+            }
+        });
+        mApplication.registerActivityLifecycleCallbacks(mController);
+
+        mActivity.setContentView(mContentContainer);
+        mActivity.attachToWindow();
+        mActivity.performStart();
+    }
+
+    @After
+    public void tearDown() {
+        mApplication.unregisterActivityLifecycleCallbacks(mController);
+        mController.clear();
+        mDispatcher.clear();
+        Looper.getMainLooper().getQueue().runUntilIdle();
+    }
+
+    @Test
+    public void eventsAreHeldWhileTheActivityIsStopped() {
+        mController.setPolicy(MSREventBridgeSuspensionPolicy.QUEUE, 8);
+        addRootView(1);
+
+        mActivity.performStop();
+        emit("Event", 1, 1);
+        emit("Event", 2, 1);
+        assertEquals(0, mEmitter.bodies.size());
+
+        mActivity.performStart();
+        assertEquals(2, mEmitter.bodies.size());
+        assertEvent(0, "Event", 1);
+        assertEvent(1, "Event", 2);
+        assertFalse(mController.isHoldingEvents());
+    }
+
+    @Test
+    public void eventsAreHeldWhileTheRootViewIsDetached() {
+        mController.setPolicy(MSREventBridgeSuspensionPolicy.QUEUE, 8);
+        View rootView = addRootView(1);
+        addRootView(2);
+
+        mContentContainer.removeView(rootView);
+        emit("Event", 1, 1, 2);
+        assertEquals(1, mEmitter.bodies.size());
+        assertEquals(2, getRootTag(0));
+
+        mContentContainer.addView(rootView);
+        assertEquals(2, mEmitter.bodies.size());
+        assertEquals(1, getRootTag(1));
+        assertEvent(1, "Event", 1);
+    }
+
+    @Test
+    public void rootViewsOfAStoppedActivityStaySuspendedWhenAttached() {
+        mController.setPolicy(MSREventBridgeSuspensionPolicy.QUEUE, 8);
+        View rootView = addRootView(1);
+
+        mActivity.performStop();
+        mContentContainer.removeView(rootView);
+        mContentContainer.addView(rootView);
+        emit("Event", 1, 1);
+        assertEquals(0, mEmitter.bodies.size());
+
+        mActivity.performStart();
+        assertEquals(1, mEmitter.bodies.size());
+    }
+
+    @Test
+    public void noneDeliversEventsToSuspendedRootViews() {
+        addRootView(1);
+
+        mActivity.performStop();
+        emit("Event", 1, 1);
+
+        assertEquals(1, mEmitter.bodies.size());
+        assertFalse(mController.isHoldingEvents());
+    }
+
+    @Test
+    public void dropDropsEventsForSuspendedRootViews() {
+        mController.setPolicy(MSREventBridgeSuspensionPolicy.DROP, 8);
+        addRootView(1);
+
+        mActivity.performStop();
+        emit("Event", 1, 1);
+        mActivity.performStart();
+
+        assertEquals(0, mEmitter.bodies.size());
+    }
+
+    @Test
+    public void keepLatestHoldsTheLatestEventPerName() {
+        mController.setPolicy(MSREventBridgeSuspensionPolicy.KEEP_LATEST, 8);
+        addRootView(1);
+
+        mActivity.performStop();
+        emit("First", 1, 1);
+        emit("Second", 2, 1);
+        emit("First", 3, 1);
+        mActivity.performStart();
+
+        assertEquals(2, mEmitter.bodies.size());
+        assertEvent(0, "Second", 2);
+        assertEvent(1, "First", 3);
+    }
+
+    @Test
+    public void queueHoldsTheLatestEventsUpToTheCapacity() {
+        mController.setPolicy(MSREventBridgeSuspensionPolicy.QUEUE, 2);
+        addRootView(1);
+
+        mActivity.performStop();
+        for (int i = 0; i < 5; i++) {
+            emit("Event", i, 1);
+        }
+        mActivity.performStart();
+
+        assertEquals(2, mEmitter.bodies.size());
+        assertEvent(0, "Event", 3);
+        assertEvent(1, "Event", 4);
+    }
+
+    @Test
+    public void eventsOfRootViewsOfADestroyedActivityAreDropped() {
+        mController.setPolicy(MSREventBridgeSuspensionPolicy.QUEUE, 8);
+        addRootView(1);
+
+        mActivity.performStop();
+        emit("Event", 1, 1);
+        mActivity.performDestroy();
+
+        assertFalse(mController.isHoldingEvents());
+    }
+
+    @Test
+    public void eventsOfCollectedRootViewsAreDropped() throws InterruptedException {
+        mController.setPolicy(MSREventBridgeSuspensionPolicy.QUEUE, 8);
+        addRootView(2);
+        WeakReference<View> rootView = addDetachedRootViewWithHeldEvent(1);
+        assertTrue(mController.isHoldingEvents());
+
+        MSREventBridgeTestEnvironment.assertCollected(rootView);
+        emit("Event", 2, 2);
+
+        assertFalse(mController.isHoldingEvents());
+        assertEquals(1, mEmitter.bodies.size());
+    }
+
+    @Test
+    public void clearDoesntLeaveTheControllerReferencedByRootViews() throws InterruptedException {
+        View rootView = addRootView(1);
+        WeakReference<MSREventBridgeSuspensionController> controller = clearNewController(rootView);
+
+        MSREventBridgeTestEnvironment.assertCollected(controller);
+        assertTrue(rootView.isAttachedToWindow());
+    }
+
+    // Helper
+
+    private View addRootView(int rootTag) {
+        View rootView = new View(mActivity);
+        rootView.setId(rootTag);
+        mContentContainer.addView(rootView);
+        mController.addRootView(rootTag, rootView);
+        return rootView;
+    }
+
+    /**
+     * Emits the event to the root tags like the module does, the root tags that are not suspended receive
+     * the event right away
+     */
+    private void emit(String name, int value, int... rootTags) {
+        int count = mController.holdEvent(name, JavaOnlyMap.of("value", value), true, rootTags, rootTags.length, MSREventBridgeEventPriority.NORMAL);
+        if (count > 0) {
+            mDispatcher.dispatch(name, JavaOnlyMap.of("value", value), true, rootTags, count, MSREventBridgeEventPriority.NORMAL);
+        }
+    }
+
+    private void assertEvent(int index, String name, int value) {
+        ReadableMap body = mEmitter.bodies.get(index);
+        assertEquals(name, body.getString(MSREventBridgeModule.EventBridgeModuleEventNameKey));
+        assertEquals(value, body.getMap(MSREventBridgeModule.EventBridgeModuleEventInfoKey).getInt("value"));
+    }
+
+    private int getRootTag(int index) {
+        ReadableMap body = mEmitter.bodies.get(index);
+        assertEquals(1, body.getArray(MSREventBridgeModule.EventBridgeModuleEventReactTagsKey).size());
+        return body.getArray(MSREventBridgeModule.EventBridgeModuleEventReactTagsKey).getInt(0);
+    }
+
+    /**
+     * Adds a root view, detaches it and holds an event for it. Returns a weak reference to the root view
+     */
+    private WeakReference<View> addDetachedRootViewWithHeldEvent(int rootTag) {
+        View rootView = addRootView(rootTag);
+        mContentContainer.removeView(rootView);
+        emit("Event", 1, rootTag);
+        return new WeakReference<>(rootView);
+    }
+
+    /**
+     * Adds the root view to a new controller, clears it and returns a weak reference to it
+     */
+    private WeakReference<MSREventBridgeSuspensionController> clearNewController(View rootView) {
+        MSREventBridgeSuspensionController controller = new MSREventBridgeSuspensionController(mDispatcher, null);
+        controller.addRootView(1, rootView);
+        controller.clear();
+        return new WeakReference<>(controller);
+    }
+}
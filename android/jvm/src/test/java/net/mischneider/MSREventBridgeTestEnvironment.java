@@ -0,0 +1,109 @@
+package net.mischneider;
+
+import android.app.Activity;
+import android.app.Application;
+import android.os.Looper;
+import android.view.ViewGroup;
+
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.modules.core.DeviceEventManagerModule;
+import com.facebook.react.uimanager.UIManagerModule;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+
+import static org.junit.Assert.assertNull;
+
+/**
+ * A React instance with an event bridge module, running within an activity. The calling thread acts as
+ * main thread, messages posted to it are run with runUntilIdle.
+ */
+final class MSREventBridgeTestEnvironment {
+
+    /**
+     * Records the events the module emitted to React Native
+     */
+    static final class RecordingEventEmitter implements DeviceEventManagerModule.RCTDeviceEventEmitter {
+        final ArrayList<ReadableMap> bodies = new ArrayList<>();
+        boolean recordBodies = true;
+        long count = 0;
+
+        @Override
+        public synchronized void emit(String eventName, Object data) {
+            count++;
+            if (recordBodies) {
+                bodies.add((ReadableMap) data);
+            }
+        }
+
+        synchronized void clear() {
+            bodies.clear();
+            count = 0;
+        }
+    }
+
+    final Application application = new Application();
+    final Activity activity = new Activity(application);
+    final ViewGroup contentContainer = new ViewGroup(activity);
+    final ReactApplicationContext reactContext;
+    final UIManagerModule uiManager = new UIManagerModule();
+    final RecordingEventEmitter emitter = new RecordingEventEmitter();
+    final MSREventBridgeModule module;
+
+    MSREventBridgeTestEnvironment() {
+        Looper.prepareMainLooper();
+
+        reactContext = new ReactApplicationContext(application);
+        reactContext.setJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class, emitter);
+        reactContext.addNativeModule(UIManagerModule.class, uiManager);
+        reactContext.setCurrentActivity(activity);
+
+        module = new MSREventBridgeModule(reactContext);
+        reactContext.addNativeModule(MSREventBridgeModule.class, module);
+
+        activity.setContentView(contentContainer);
+        activity.attachToWindow();
+        activity.performStart();
+    }
+
+    /**
+     * Adds a root view with the given tag to the activity
+     */
+    MSREventBridgeAwareReactRootView addRootView(int rootTag) {
+        return addRootView(contentContainer, rootTag);
+    }
+
+    MSREventBridgeAwareReactRootView addRootView(ViewGroup parent, int rootTag) {
+        MSREventBridgeAwareReactRootView rootView = new MSREventBridgeAwareReactRootView(activity);
+        rootView.setId(rootTag);
+        uiManager.getNativeViewHierarchyManager().addView(rootTag, rootView);
+        parent.addView(rootView);
+        return rootView;
+    }
+
+    /**
+     * Runs all messages that were posted to the main thread
+     */
+    void runUntilIdle() {
+        Looper.getMainLooper().getQueue().runUntilIdle();
+    }
+
+    /**
+     * Fails if the object is not garbage collected within half a second
+     */
+    static void assertCollected(WeakReference<?> reference) throws InterruptedException {
+        for (int i = 0; i < 50 && reference.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertNull(reference.get());
+    }
+
+    void destroy() {
+        module.onCatalystInstanceDestroy();
+        activity.performStop();
+        activity.detachFromWindow();
+        runUntilIdle();
+    }
+}
@@ -15,7 +15,8 @@ import net.mischneider.MSREventBridgeReceiverCallback;
 /**
  * A ReactRootView that implements the {@link MSREventBridgeEventReceiver}.
  */
-public class MSREventBridgeAwareReactRootView extends ReactRootView implements MSREventBridgeEventReceiver {
+public class MSREventBridgeAwareReactRootView extends ReactRootView
+        implements MSREventBridgeEventReceiver, MSREventBridgeReceiverThreadProvider {
 
     private MSREventBridgeEventReceiver _eventBridgeEventReceiver;
 
@@ -34,10 +35,29 @@ public class MSREventBridgeAwareReactRootView extends ReactRootView implements M
         super(context, attrs, defStyleAttr);
     }
 
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        MSREventBridgeRootViewIndex.getInstance().addRootView(this);
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        MSREventBridgeRootViewIndex.getInstance().removeRootView(this);
+    }
+
+    /**
+     * Sets the receiver events are forwarded to, e.g. a {@link MSREventBridgeEventReceiverRegistry}
+     */
     public void setEventBridgeEventReceiver(MSREventBridgeEventReceiver eventBridgeEventReceiver) {
         _eventBridgeEventReceiver = eventBridgeEventReceiver;
     }
 
+    public MSREventBridgeEventReceiver getEventBridgeEventReceiver() {
+        return _eventBridgeEventReceiver;
+    }
+
     @Override
     public void onEvent(String name, ReadableMap info) {
         if (_eventBridgeEventReceiver == null) {
@@ -49,8 +69,14 @@ public class MSREventBridgeAwareReactRootView extends ReactRootView implements M
     @Override
     public void onEventCallback(String name, ReadableMap info, MSREventBridgeReceiverCallback callback) {
         if (_eventBridgeEventReceiver == null) {
+            callback.onFailure("No receiver found for event: " + name);
             return;
         }
         _eventBridgeEventReceiver.onEventCallback(name, info, callback);
     }
+
+    @Override
+    public MSREventBridgeReceiverThread getReceiverThread(String name) {
+        return MSREventBridgeReceiverExecutor.getReceiverThread(_eventBridgeEventReceiver, name);
+    }
 }
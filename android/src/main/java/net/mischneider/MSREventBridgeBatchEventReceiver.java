@@ -0,0 +1,19 @@
+package net.mischneider;
+
+import com.facebook.react.bridge.ReadableMap;
+
+import java.util.List;
+
+/**
+ * Implemented by a {@link MSREventBridgeEventReceiver} that would like to receive events that React
+ * Native emitted batched within a frame as one call. Receivers that don't implement it get every event
+ * of a batch via onEvent.
+ */
+public interface MSREventBridgeBatchEventReceiver extends MSREventBridgeEventReceiver {
+    /**
+     * Events received from React Native in the order they were emitted. The info at an index belongs to
+     * the name at the same index. The batch is delivered on the thread the receiver asked for the first
+     * event of the batch.
+     */
+    void onEventBatch(List<String> names, List<ReadableMap> infos);
+}
@@ -0,0 +1,395 @@
+package net.mischneider;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.Nullable;
+import android.util.SparseIntArray;
+
+import com.facebook.react.bridge.Callback;
+import com.facebook.react.bridge.Promise;
+
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps track of callbacks, promises and streams from React Native that are in flight. Callbacks that are not
+ * called within the timeout fail with a timeout error, so the JavaScript callback and its closure are
+ * released.
+ */
+final class MSREventBridgeCallbackTracker {
+
+    // Error codes promises are rejected with
+    static final String ErrorCodeFailed = "E_EVENT_FAILED";
+    static final String ErrorCodeTimeout = "E_EVENT_TIMEOUT";
+    static final String ErrorCodeCancelled = "E_EVENT_CANCELLED";
+    static final String ErrorCodeDestroyed = "E_EVENT_DESTROYED";
+
+    private final Handler mTimeoutHandler = new Handler(Looper.getMainLooper());
+    private final MSREventBridgeMetrics mMetrics;
+    private final AtomicInteger mNextCallbackId = new AtomicInteger(1);
+    private final HashMap<Integer, PendingCallback> mPendingCallbacks = new HashMap<>();
+
+    // Requests by the request id that was passed in from React Native and the number of
+    // requests in flight per root tag
+    private final HashMap<Integer, PendingCallback> mPendingRequests = new HashMap<>();
+    private final SparseIntArray mPendingRequestCounts = new SparseIntArray();
+
+    // Counters
+    private final AtomicLong mCompletedCount = new AtomicLong();
+    private final AtomicLong mTimedOutCount = new AtomicLong();
+
+    MSREventBridgeCallbackTracker(MSREventBridgeMetrics metrics) {
+        mMetrics = metrics;
+    }
+
+    /**
+     * Forwards the result of a callback to React Native
+     */
+    interface Completion {
+        void resolve(@Nullable Object data);
+        void reject(String code, Object error);
+    }
+
+    /**
+     * Completion for a stream that also forwards partial results to React Native
+     */
+    interface StreamCompletion extends Completion {
+        void next(Object chunk);
+    }
+
+    /**
+     * Returns a completion that invokes the callback with an error and a data parameter
+     */
+    static Completion forCallback(final Callback callback) {
+        return new Completion() {
+            @Override
+            public void resolve(@Nullable Object data) {
+                callback.invoke(null, data);
+            }
+
+            @Override
+            public void reject(String code, Object error) {
+                callback.invoke(error, null);
+            }
+        };
+    }
+
+    /**
+     * Returns a completion that resolves or rejects the promise
+     */
+    static Completion forPromise(final Promise promise) {
+        return new Completion() {
+            @Override
+            public void resolve(@Nullable Object data) {
+                promise.resolve(data);
+            }
+
+            @Override
+            public void reject(String code, Object error) {
+                promise.reject(code, String.valueOf(error));
+            }
+        };
+    }
+
+    /**
+     * Callback that is passed to the receiver. It forwards the first result to React Native, any
+     * further call is ignored.
+     */
+    class PendingCallback implements MSREventBridgeCancellableCallback, Runnable {
+        final int id;
+        final String name;
+        final Completion completion;
+        final long timeoutMs;
+        final int requestId;
+        final long startTime = mMetrics.startTime();
+
+        // Set for requests that can be cancelled via their request id only
+        private final boolean mIsRequest;
+        private final int mRootTag;
+
+        private final AtomicBoolean mDone = new AtomicBoolean(false);
+        private volatile boolean mCancelled = false;
+        @Nullable private Runnable mOnCancelListener;
+        @Nullable private Runnable mOnAbandonListener;
+        private boolean mAbandoned = false;
+
+        PendingCallback(int id, String name, Completion completion, long timeoutMs, boolean isRequest, int requestId, int rootTag) {
+            this.id = id;
+            this.name = name;
+            this.completion = completion;
+            this.timeoutMs = timeoutMs;
+            this.mIsRequest = isRequest;
+            this.requestId = requestId;
+            this.mRootTag = rootTag;
+        }
+
+        @Override
+        public void onSuccess(Object data) {
+            if (complete()) {
+                mCompletedCount.incrementAndGet();
+                mMetrics.recordCallbackCompleted(name, startTime, false);
+                completion.resolve(data);
+            }
+        }
+
+        @Override
+        public void onFailure(Object error) {
+            if (complete()) {
+                mCompletedCount.incrementAndGet();
+                mMetrics.recordCallbackCompleted(name, startTime, false);
+                completion.reject(ErrorCodeFailed, error);
+            }
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return mCancelled;
+        }
+
+        @Override
+        public void setOnCancelListener(Runnable listener) {
+            synchronized (this) {
+                if (!mCancelled) {
+                    mOnCancelListener = listener;
+                    return;
+                }
+            }
+            listener.run();
+        }
+
+        /**
+         * Sets a listener that is run if the callback times out, is rejected or cancelled before the
+         * receiver called it
+         */
+        void setOnAbandonListener(Runnable listener) {
+            synchronized (this) {
+                if (!mAbandoned) {
+                    mOnAbandonListener = listener;
+                    return;
+                }
+            }
+            listener.run();
+        }
+
+        /**
+         * Called if the callback timed out
+         */
+        @Override
+        public void run() {
+            if (complete()) {
+                mTimedOutCount.incrementAndGet();
+                mMetrics.recordCallbackCompleted(name, startTime, true);
+                completion.reject(ErrorCodeTimeout, "Callback for event '" + name + "' timed out");
+                abandon();
+            }
+        }
+
+        boolean isDone() {
+            return mDone.get();
+        }
+
+        /**
+         * Fails the callback without counting it as completed, e.g. if the instance is destroyed
+         */
+        void reject(String code, String error) {
+            if (complete()) {
+                completion.reject(code, error);
+                abandon();
+            }
+        }
+
+        /**
+         * Called if React Native cancelled the request
+         */
+        void cancel() {
+            if (!complete()) {
+                return;
+            }
+
+            Runnable listener;
+            synchronized (this) {
+                mCancelled = true;
+                listener = mOnCancelListener;
+                mOnCancelListener = null;
+            }
+            completion.reject(ErrorCodeCancelled, "Request for event '" + name + "' was cancelled");
+            if (listener != null) {
+                listener.run();
+            }
+            abandon();
+        }
+
+        private void abandon() {
+            Runnable listener;
+            synchronized (this) {
+                mAbandoned = true;
+                listener = mOnAbandonListener;
+                mOnAbandonListener = null;
+            }
+            if (listener != null) {
+                listener.run();
+            }
+        }
+
+        private boolean complete() {
+            if (!mDone.compareAndSet(false, true)) {
+                return false;
+            }
+            remove(this);
+            return true;
+        }
+    }
+
+    /**
+     * Callback for a stream of partial results. Every chunk restarts the timeout.
+     */
+    final class PendingStream extends PendingCallback implements MSREventBridgeStreamingCallback {
+
+        PendingStream(int id, String name, StreamCompletion completion, long timeoutMs, int requestId, int rootTag) {
+            super(id, name, completion, timeoutMs, true, requestId, rootTag);
+        }
+
+        @Override
+        public void onNext(Object chunk) {
+            if (isDone()) {
+                return;
+            }
+
+            mTimeoutHandler.removeCallbacks(this);
+            scheduleTimeout(this);
+            ((StreamCompletion) completion).next(chunk);
+        }
+
+        @Override
+        public void onComplete() {
+            onSuccess(null);
+        }
+    }
+
+    /**
+     * Returns a new tracked callback. If timeoutMs is greater than 0, the callback fails after that time.
+     */
+    PendingCallback track(String name, Completion completion, long timeoutMs) {
+        PendingCallback pendingCallback =
+                new PendingCallback(mNextCallbackId.getAndIncrement(), name, completion, timeoutMs, false, 0, 0);
+        synchronized (this) {
+            mPendingCallbacks.put(pendingCallback.id, pendingCallback);
+        }
+        scheduleTimeout(pendingCallback);
+        return pendingCallback;
+    }
+
+    /**
+     * Returns a new tracked request that can be cancelled via the request id. Returns null if the root
+     * tag has already maxPendingRequests requests in flight.
+     */
+    @Nullable
+    PendingCallback trackRequest(int rootTag, int requestId, String name, Completion completion, long timeoutMs, int maxPendingRequests) {
+        if (!reserveRequest(rootTag, maxPendingRequests)) {
+            return null;
+        }
+        return addRequest(new PendingCallback(
+                mNextCallbackId.getAndIncrement(), name, completion, timeoutMs, true, requestId, rootTag));
+    }
+
+    /**
+     * Returns a new tracked stream that can be cancelled via the request id. Returns null if the root
+     * tag has already maxPendingRequests requests in flight.
+     */
+    @Nullable
+    PendingStream trackStream(int rootTag, int requestId, String name, StreamCompletion completion, long timeoutMs, int maxPendingRequests) {
+        if (!reserveRequest(rootTag, maxPendingRequests)) {
+            return null;
+        }
+        return addRequest(new PendingStream(
+                mNextCallbackId.getAndIncrement(), name, completion, timeoutMs, requestId, rootTag));
+    }
+
+    /**
+     * Cancels the promise request with the given request id
+     */
+    void cancelRequest(int requestId) {
+        PendingCallback pendingCallback;
+        synchronized (this) {
+            pendingCallback = mPendingRequests.get(requestId);
+        }
+        if (pendingCallback != null) {
+            pendingCallback.cancel();
+        }
+    }
+
+    /**
+     * Fails all pending callbacks with the given error
+     */
+    void rejectAll(String error) {
+        ArrayList<PendingCallback> pendingCallbacks;
+        synchronized (this) {
+            pendingCallbacks = new ArrayList<>(mPendingCallbacks.values());
+        }
+        for (PendingCallback pendingCallback : pendingCallbacks) {
+            pendingCallback.reject(ErrorCodeDestroyed, error);
+        }
+    }
+
+    // Counters
+
+    synchronized int getPendingCount() {
+        return mPendingCallbacks.size();
+    }
+
+    long getCompletedCount() {
+        return mCompletedCount.get();
+    }
+
+    long getTimedOutCount() {
+        return mTimedOutCount.get();
+    }
+
+    // Helper
+
+    private synchronized boolean reserveRequest(int rootTag, int maxPendingRequests) {
+        int pendingRequestCount = mPendingRequestCounts.get(rootTag);
+        if (maxPendingRequests > 0 && pendingRequestCount >= maxPendingRequests) {
+            return false;
+        }
+        mPendingRequestCounts.put(rootTag, pendingRequestCount + 1);
+        return true;
+    }
+
+    private <T extends PendingCallback> T addRequest(T pendingCallback) {
+        synchronized (this) {
+            mPendingCallbacks.put(pendingCallback.id, pendingCallback);
+            mPendingRequests.put(pendingCallback.requestId, pendingCallback);
+        }
+        scheduleTimeout(pendingCallback);
+        return pendingCallback;
+    }
+
+    private void scheduleTimeout(PendingCallback pendingCallback) {
+        if (pendingCallback.timeoutMs > 0) {
+            mTimeoutHandler.postDelayed(pendingCallback, pendingCallback.timeoutMs);
+        }
+    }
+
+    private void remove(PendingCallback pendingCallback) {
+        mTimeoutHandler.removeCallbacks(pendingCallback);
+        synchronized (this) {
+            mPendingCallbacks.remove(pendingCallback.id);
+            if (!pendingCallback.mIsRequest) {
+                return;
+            }
+
+            mPendingRequests.remove(pendingCallback.requestId);
+            int pendingRequestCount = mPendingRequestCounts.get(pendingCallback.mRootTag) - 1;
+            if (pendingRequestCount > 0) {
+                mPendingRequestCounts.put(pendingCallback.mRootTag, pendingRequestCount);
+            } else {
+                mPendingRequestCounts.delete(pendingCallback.mRootTag);
+            }
+        }
+    }
+}
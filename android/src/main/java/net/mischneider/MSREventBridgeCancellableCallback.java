@@ -0,0 +1,18 @@
+package net.mischneider;
+
+/**
+ * Callback for a request from React Native that can be cancelled, e.g. because the requesting screen
+ * was unmounted. Receivers can use it to abort work that is no longer needed.
+ */
+public interface MSREventBridgeCancellableCallback extends MSREventBridgeReceiverCallback {
+    /**
+     * Returns true if React Native cancelled the request
+     */
+    boolean isCancelled();
+
+    /**
+     * Sets a listener that is called if React Native cancels the request. If the request is already
+     * cancelled, the listener is called right away.
+     */
+    void setOnCancelListener(Runnable listener);
+}
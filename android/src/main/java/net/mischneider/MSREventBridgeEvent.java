@@ -0,0 +1,117 @@
+package net.mischneider;
+
+import android.support.annotation.Nullable;
+import android.support.v4.util.Pools;
+
+import com.facebook.react.bridge.WritableMap;
+
+/**
+ * An event that is queued to be sent to React Native. Events are pooled, obtain them via
+ * {@link #obtain(String, WritableMap, int[], int, MSREventBridgeEventPriority)} and recycle them once they
+ * are sent or dropped.
+ */
+final class MSREventBridgeEvent {
+
+    private static final Pools.SynchronizedPool<MSREventBridgeEvent> sPool = new Pools.SynchronizedPool<>(64);
+
+    private static final int[] EmptyReactTags = new int[0];
+
+    String name;
+    @Nullable WritableMap info;
+
+    // Root tags the event is directed to or null if it's directed to all subscribers. Only the first
+    // reactTagsCount entries are used
+    @Nullable int[] reactTags;
+    int reactTagsCount;
+
+    // Kept when the event is recycled, so the root tags of a pooled event don't need a new array
+    private int[] mReactTagsBuffer = EmptyReactTags;
+
+    MSREventBridgeEventPriority priority;
+
+    // Listener within the root tag the event is directed to or NoListenerId for all listeners
+    int listenerId = MSREventBridgeEventDispatcher.NoListenerId;
+
+    // Set for events with a schema, their info only holds the values
+    boolean hasValues;
+
+    // Set if metrics are enabled
+    long startTime;
+    int payloadSize;
+
+    private MSREventBridgeEvent() {
+    }
+
+    /**
+     * Returns an event for the given root tags. The root tags are copied, so the array can be reused by
+     * the caller
+     */
+    static MSREventBridgeEvent obtain(String name, @Nullable WritableMap info, @Nullable int[] reactTags, int reactTagsCount, MSREventBridgeEventPriority priority) {
+        MSREventBridgeEvent event = sPool.acquire();
+        if (event == null) {
+            event = new MSREventBridgeEvent();
+        }
+        event.name = name;
+        event.info = info;
+        event.priority = priority;
+        if (reactTags != null) {
+            if (event.mReactTagsBuffer.length < reactTagsCount) {
+                event.mReactTagsBuffer = new int[reactTagsCount];
+            }
+            System.arraycopy(reactTags, 0, event.mReactTagsBuffer, 0, reactTagsCount);
+            event.reactTags = event.mReactTagsBuffer;
+            event.reactTagsCount = reactTagsCount;
+        }
+        return event;
+    }
+
+    void recycle() {
+        name = null;
+        info = null;
+        reactTags = null;
+        reactTagsCount = 0;
+        priority = null;
+        listenerId = MSREventBridgeEventDispatcher.NoListenerId;
+        hasValues = false;
+        startTime = 0;
+        payloadSize = 0;
+        sPool.release(this);
+    }
+
+    /**
+     * Returns true if the event is directed to the root tag. Events for all subscribers are directed to
+     * every root tag
+     */
+    boolean isDirectedTo(int rootTag) {
+        if (reactTags == null) {
+            return true;
+        }
+        for (int i = 0; i < reactTagsCount; i++) {
+            if (reactTags[i] == rootTag) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns true if both events are directed to the same root tags and listener
+     */
+    boolean hasSameTarget(MSREventBridgeEvent event) {
+        if (listenerId != event.listenerId) {
+            return false;
+        }
+        if (reactTags == null || event.reactTags == null) {
+            return reactTags == event.reactTags;
+        }
+        if (reactTagsCount != event.reactTagsCount) {
+            return false;
+        }
+        for (int i = 0; i < reactTagsCount; i++) {
+            if (reactTags[i] != event.reactTags[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
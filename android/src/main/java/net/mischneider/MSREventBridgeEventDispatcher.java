@@ -0,0 +1,635 @@
+package net.mischneider;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.support.annotation.Nullable;
+import android.util.SparseIntArray;
+import android.view.Choreographer;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.ReactContext;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+import com.facebook.react.modules.core.DeviceEventManagerModule;
+import com.facebook.systrace.Systrace;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * Sends events to React Native. Events are either dispatched right away or, if batching is enabled,
+ * queued and flushed as a single message once per frame or after a configurable interval.
+ *
+ * If a maximum number of events in flight is set, React Native acknowledges the events it processed.
+ * Events are held back in the queue while React Native is too far behind. The queue can be bounded per
+ * root view with an overflow policy. An event for several root views counts for each of them, an event
+ * for all subscribers counts for every root view.
+ *
+ * Queued events are ordered by priority. High priority events skip the batching interval and low
+ * priority events are only sent once the main thread is idle.
+ */
+final class MSREventBridgeEventDispatcher {
+
+    // Maximum time a thread is blocked with the BLOCK overflow policy
+    private static final long BlockTimeoutMs = 1000;
+
+    // Listener id of events that are directed to all listeners of their root tags
+    static final int NoListenerId = 0;
+
+    // Stands for a root view that has no queued events but the ones for all subscribers
+    private static final int AllRootTags = -1;
+
+    private final ReactContext mReactContext;
+    private final MSREventBridgeMetrics mMetrics;
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+
+    // Held while a body is created and emitted, so bodies are emitted in the order they were created.
+    // Always taken before the lock of the dispatcher
+    private final Object mEmitLock = new Object();
+
+    // Batching
+    private boolean mBatchingEnabled = false;
+    private long mBatchingInterval = 0;
+    private boolean mFlushScheduled = false;
+    private boolean mIdleFlushScheduled = false;
+    private final ArrayList<MSREventBridgeEvent> mQueue = new ArrayList<>();
+
+    // Coalescing
+    private final HashSet<String> mCoalescedEventNames = new HashSet<>();
+
+    // Bounded queue per root view
+    private int mQueueCapacity = 0;
+    private MSREventBridgeOverflowPolicy mOverflowPolicy = MSREventBridgeOverflowPolicy.DROP_OLDEST;
+    private long mDroppedCount = 0;
+
+    // Queued events per root tag, reused while looking for the fullest queue
+    private final SparseIntArray mQueuedCounts = new SparseIntArray();
+
+    // Acknowledgement
+    private int mMaxEventsInFlight = 0;
+    private long mSequenceNumber = 0;
+    private long mAcknowledgedSequenceNumber = 0;
+
+    private final Runnable mFlushRunnable = new Runnable() {
+        @Override
+        public void run() {
+            flush(false);
+        }
+    };
+
+    private final Choreographer.FrameCallback mFlushFrameCallback = new Choreographer.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            flush(false);
+        }
+    };
+
+    // Flushes low priority events once the main thread is idle
+    private final MessageQueue.IdleHandler mIdleHandler = new MessageQueue.IdleHandler() {
+        @Override
+        public boolean queueIdle() {
+            synchronized (MSREventBridgeEventDispatcher.this) {
+                mIdleFlushScheduled = false;
+            }
+            flush(true);
+            return false;
+        }
+    };
+
+    private final Runnable mAddIdleHandlerRunnable = new Runnable() {
+        @Override
+        public void run() {
+            Looper.myQueue().addIdleHandler(mIdleHandler);
+        }
+    };
+
+    private final Runnable mPostFrameCallbackRunnable = new Runnable() {
+        @Override
+        public void run() {
+            Choreographer.getInstance().postFrameCallback(mFlushFrameCallback);
+        }
+    };
+
+    MSREventBridgeEventDispatcher(ReactContext reactContext, MSREventBridgeMetrics metrics) {
+        mReactContext = reactContext;
+        mMetrics = metrics;
+    }
+
+    // Configuration
+
+    synchronized void setBatchingEnabled(boolean enabled) {
+        mBatchingEnabled = enabled;
+        if (!enabled) {
+            // Queued events don't wait for a flush that was scheduled with the batching interval
+            mMainHandler.removeCallbacks(mFlushRunnable);
+            mMainHandler.removeCallbacks(mPostFrameCallbackRunnable);
+            mFlushScheduled = false;
+            scheduleFlush();
+        }
+    }
+
+    synchronized void setBatchingInterval(long intervalMs) {
+        mBatchingInterval = intervalMs;
+    }
+
+    synchronized void setCoalescingEnabled(String name, boolean enabled) {
+        if (enabled) {
+            mCoalescedEventNames.add(name);
+        } else {
+            mCoalescedEventNames.remove(name);
+        }
+    }
+
+    synchronized void setQueueCapacity(int capacity, MSREventBridgeOverflowPolicy overflowPolicy) {
+        mQueueCapacity = capacity;
+        mOverflowPolicy = overflowPolicy;
+    }
+
+    synchronized void setMaxEventsInFlight(int maxEventsInFlight) {
+        // Events sent while there was no limit didn't carry a sequence number and are never acknowledged
+        if (mMaxEventsInFlight <= 0 || maxEventsInFlight <= 0) {
+            mAcknowledgedSequenceNumber = mSequenceNumber;
+        }
+        mMaxEventsInFlight = maxEventsInFlight;
+        scheduleFlush();
+    }
+
+    // Dispatch
+
+    /**
+     * Dispatches the event to React Native with the given priority. Can be called from any thread.
+     */
+    void dispatch(String name, @Nullable WritableMap info, @Nullable int[] reactTags, MSREventBridgeEventPriority priority) {
+        dispatch(name, info, reactTags, reactTags != null ? reactTags.length : 0, priority);
+    }
+
+    /**
+     * Dispatches the event to the first reactTagsCount root tags. The root tags are not kept, so the
+     * array can be reused by the caller once this returns
+     */
+    void dispatch(String name, @Nullable WritableMap info, @Nullable int[] reactTags, int reactTagsCount, MSREventBridgeEventPriority priority) {
+        dispatch(name, info, false, reactTags, reactTagsCount, NoListenerId, priority);
+    }
+
+    /**
+     * Dispatches the event like {@link #dispatch(String, WritableMap, int[], int, MSREventBridgeEventPriority)}.
+     * If hasValues is set, the info holds the values of an event with a schema and the body is marked
+     * accordingly
+     */
+    void dispatch(String name, @Nullable WritableMap info, boolean hasValues, @Nullable int[] reactTags, int reactTagsCount, MSREventBridgeEventPriority priority) {
+        dispatch(name, info, hasValues, reactTags, reactTagsCount, NoListenerId, priority);
+    }
+
+    /**
+     * Dispatches the event to a single listener within the root tag, e.g. to replay an event to a
+     * listener that was just added
+     */
+    void dispatchToListener(String name, @Nullable WritableMap info, boolean hasValues, int rootTag, int listenerId) {
+        dispatch(name, info, hasValues, new int[] { rootTag }, 1, listenerId, MSREventBridgeEventPriority.NORMAL);
+    }
+
+    private void dispatch(String name, @Nullable WritableMap info, boolean hasValues, @Nullable int[] reactTags, int reactTagsCount, int listenerId, MSREventBridgeEventPriority priority) {
+        // The payload size is estimated before the info is consumed by the bridge
+        long startTime = mMetrics.startTime();
+        int payloadSize = mMetrics.payloadSize(info);
+
+        synchronized (mEmitLock) {
+            WritableMap body = null;
+            synchronized (this) {
+                // Events that are still queued are sent first to keep the order intact. High priority events
+                // jump ahead of them, low priority events always wait for the main thread to be idle
+                boolean sendNow = priority == MSREventBridgeEventPriority.HIGH
+                        || (priority == MSREventBridgeEventPriority.NORMAL && !mBatchingEnabled && mQueue.isEmpty());
+                if (sendNow && !isWindowFull()) {
+                    body = createBody(name, info, hasValues, reactTags, reactTagsCount, listenerId);
+                    putSequenceNumber(body, 1);
+                }
+            }
+
+            if (body != null) {
+                emit(body);
+                mMetrics.recordEmitted(name, payloadSize, startTime);
+                return;
+            }
+        }
+
+        // The event is queued without holding the emit lock, as the BLOCK overflow policy waits for a
+        // flush to make space
+        synchronized (this) {
+            MSREventBridgeEvent event = MSREventBridgeEvent.obtain(name, info, reactTags, reactTagsCount, priority);
+            event.listenerId = listenerId;
+            event.hasValues = hasValues;
+            event.startTime = startTime;
+            event.payloadSize = payloadSize;
+            enqueue(event);
+        }
+    }
+
+    /**
+     * React Native processed all events up to the given sequence number
+     */
+    synchronized void acknowledge(long sequenceNumber) {
+        mAcknowledgedSequenceNumber = Math.max(mAcknowledgedSequenceNumber, sequenceNumber);
+        scheduleFlush();
+    }
+
+    /**
+     * React Native stopped listening for events, so events in flight are not acknowledged anymore. Drops
+     * all queued events and empties the window
+     */
+    synchronized void reset() {
+        clear();
+        mAcknowledgedSequenceNumber = mSequenceNumber;
+    }
+
+    /**
+     * Drops all queued events
+     */
+    synchronized void clear() {
+        for (MSREventBridgeEvent event : mQueue) {
+            event.recycle();
+        }
+        mQueue.clear();
+        mFlushScheduled = false;
+        mMainHandler.removeCallbacks(mFlushRunnable);
+        mMainHandler.removeCallbacks(mPostFrameCallbackRunnable);
+        mMainHandler.removeCallbacks(mAddIdleHandlerRunnable);
+        mIdleFlushScheduled = false;
+        notifyAll();
+    }
+
+    // State
+
+    synchronized int getQueuedEventCount() {
+        return mQueue.size();
+    }
+
+    synchronized long getEventsInFlightCount() {
+        return mSequenceNumber - mAcknowledgedSequenceNumber;
+    }
+
+    synchronized long getDroppedEventCount() {
+        return mDroppedCount;
+    }
+
+    // Helper
+
+    private boolean isWindowFull() {
+        return mMaxEventsInFlight > 0 && mSequenceNumber - mAcknowledgedSequenceNumber >= mMaxEventsInFlight;
+    }
+
+    private void enqueue(MSREventBridgeEvent event) {
+        // Only the latest value of a coalesced event is delivered, it takes the place of an already
+        // queued event with the same name and root tags
+        boolean coalesced = mCoalescedEventNames.contains(event.name);
+        if (coalesced && coalesce(event)) {
+            event.recycle();
+            return;
+        }
+
+        if (mQueueCapacity > 0 && !makeSpace(event)) {
+            mDroppedCount++;
+            event.recycle();
+            return;
+        }
+
+        // Insert the event behind all queued events with the same or a higher priority
+        int index = mQueue.size();
+        while (index > 0 && mQueue.get(index - 1).priority.ordinal() > event.priority.ordinal()) {
+            index--;
+        }
+        mQueue.add(index, event);
+        mMetrics.recordQueueDepth(mQueue.size());
+        scheduleFlush();
+    }
+
+    /**
+     * Replaces the info of a queued coalesced event with the same name and root tags. Returns false if
+     * there is no such event
+     */
+    private boolean coalesce(MSREventBridgeEvent event) {
+        int index = indexOfNewest(event);
+        if (index < 0) {
+            return false;
+        }
+
+        // The queued event can't take a different priority in place, it's replaced instead
+        MSREventBridgeEvent queuedEvent = mQueue.get(index);
+        if (queuedEvent.priority != event.priority) {
+            mQueue.remove(index);
+            queuedEvent.recycle();
+            return false;
+        }
+        queuedEvent.info = event.info;
+        queuedEvent.payloadSize = event.payloadSize;
+        return true;
+    }
+
+    /**
+     * Makes space in the queues of the root views of the event according to the overflow policy. Returns
+     * false if the event should be dropped
+     */
+    private boolean makeSpace(MSREventBridgeEvent event) {
+        if (getQueuedCount(getFullestRootTag(event)) < mQueueCapacity) {
+            return true;
+        }
+
+        switch (mOverflowPolicy) {
+            case DROP_NEWEST:
+                return false;
+            case COALESCE_BY_NAME:
+                if (coalesceByName(event)) {
+                    return false;
+                }
+                removeOldest(event);
+                return true;
+            case BLOCK:
+                // Blocking the main thread would freeze the UI and the flush that makes space is run on
+                // the main thread as well, so the event is dropped instead
+                if (Looper.myLooper() == Looper.getMainLooper()) {
+                    return false;
+                }
+
+                long deadline = System.currentTimeMillis() + BlockTimeoutMs;
+                long remaining = BlockTimeoutMs;
+                while (getQueuedCount(getFullestRootTag(event)) >= mQueueCapacity && remaining > 0) {
+                    try {
+                        wait(remaining);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return false;
+                    }
+                    remaining = deadline - System.currentTimeMillis();
+                }
+                return getQueuedCount(getFullestRootTag(event)) < mQueueCapacity;
+            case DROP_OLDEST:
+            default:
+                removeOldest(event);
+                return true;
+        }
+    }
+
+    /**
+     * Replaces the info of the newest queued event with the same name and root tags. Returns false if
+     * there is no such event
+     */
+    private boolean coalesceByName(MSREventBridgeEvent event) {
+        int index = indexOfNewest(event);
+        if (index < 0) {
+            return false;
+        }
+
+        MSREventBridgeEvent queuedEvent = mQueue.get(index);
+        queuedEvent.info = event.info;
+        queuedEvent.payloadSize = event.payloadSize;
+        return true;
+    }
+
+    /**
+     * Returns the index of the newest queued event with the same name and root tags or -1
+     */
+    private int indexOfNewest(MSREventBridgeEvent event) {
+        for (int i = mQueue.size() - 1; i >= 0; i--) {
+            MSREventBridgeEvent queuedEvent = mQueue.get(i);
+            if (queuedEvent.name.equals(event.name) && queuedEvent.hasSameTarget(event)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Drops the oldest queued events of the fullest root view of the event until every root view of the
+     * event has space for it
+     */
+    private void removeOldest(MSREventBridgeEvent event) {
+        int rootTag = getFullestRootTag(event);
+        while (getQueuedCount(rootTag) >= mQueueCapacity) {
+            for (int i = 0; i < mQueue.size(); i++) {
+                if (mQueue.get(i).isDirectedTo(rootTag)) {
+                    mQueue.remove(i).recycle();
+                    mDroppedCount++;
+                    break;
+                }
+            }
+            rootTag = getFullestRootTag(event);
+        }
+    }
+
+    /**
+     * Returns the root tag of the event with the most queued events. An event for all subscribers is
+     * directed to every root view with queued events, or to AllRootTags if there is none
+     */
+    private int getFullestRootTag(MSREventBridgeEvent event) {
+        mQueuedCounts.clear();
+        for (int i = 0; i < mQueue.size(); i++) {
+            MSREventBridgeEvent queuedEvent = mQueue.get(i);
+            for (int j = 0; queuedEvent.reactTags != null && j < queuedEvent.reactTagsCount; j++) {
+                int rootTag = queuedEvent.reactTags[j];
+                mQueuedCounts.put(rootTag, mQueuedCounts.get(rootTag) + 1);
+            }
+        }
+
+        int fullestRootTag = AllRootTags;
+        int fullestCount = 0;
+        if (event.reactTags == null) {
+            for (int i = 0; i < mQueuedCounts.size(); i++) {
+                if (mQueuedCounts.valueAt(i) > fullestCount) {
+                    fullestRootTag = mQueuedCounts.keyAt(i);
+                    fullestCount = mQueuedCounts.valueAt(i);
+                }
+            }
+        } else {
+            fullestRootTag = event.reactTagsCount > 0 ? event.reactTags[0] : AllRootTags;
+            for (int i = 0; i < event.reactTagsCount; i++) {
+                if (mQueuedCounts.get(event.reactTags[i]) > fullestCount) {
+                    fullestRootTag = event.reactTags[i];
+                    fullestCount = mQueuedCounts.get(event.reactTags[i]);
+                }
+            }
+        }
+        return fullestRootTag;
+    }
+
+    /**
+     * Returns the number of queued events that are directed to the root tag, including the events for all
+     * subscribers
+     */
+    private int getQueuedCount(int rootTag) {
+        int queuedCount = 0;
+        for (int i = 0; i < mQueue.size(); i++) {
+            if (mQueue.get(i).isDirectedTo(rootTag)) {
+                queuedCount++;
+            }
+        }
+        return queuedCount;
+    }
+
+    private void scheduleFlush() {
+        if (mQueue.isEmpty() || isWindowFull()) {
+            return;
+        }
+
+        // Only low priority events are left, as the queue is ordered by priority
+        if (mQueue.get(0).priority == MSREventBridgeEventPriority.LOW) {
+            if (!mIdleFlushScheduled) {
+                mIdleFlushScheduled = true;
+                mMainHandler.post(mAddIdleHandlerRunnable);
+            }
+            return;
+        }
+
+        // High priority events don't wait for a flush that is already scheduled with the batching interval
+        if (mQueue.get(0).priority == MSREventBridgeEventPriority.HIGH) {
+            mMainHandler.removeCallbacks(mFlushRunnable);
+            mMainHandler.removeCallbacks(mPostFrameCallbackRunnable);
+            mFlushScheduled = true;
+            mMainHandler.postAtFrontOfQueue(mFlushRunnable);
+            return;
+        }
+
+        if (mFlushScheduled) {
+            return;
+        }
+        mFlushScheduled = true;
+
+        if (!mBatchingEnabled) {
+            mMainHandler.post(mFlushRunnable);
+        } else if (mBatchingInterval > 0) {
+            mMainHandler.postDelayed(mFlushRunnable, mBatchingInterval);
+        } else {
+            mMainHandler.post(mPostFrameCallbackRunnable);
+        }
+    }
+
+    /**
+     * Sends queued events to React Native as a single message. If a maximum number of events in flight
+     * is set, only as many events are sent as fit into the window. Low priority events are only sent if
+     * the main thread is idle
+     */
+    private void flush(boolean idle) {
+        Systrace.beginSection(Systrace.TRACE_TAG_REACT_JAVA_BRIDGE, "MSREventBridgeEventDispatcher.flush");
+        try {
+            synchronized (mEmitLock) {
+                WritableMap body;
+                List<MSREventBridgeEvent> flushedEvents = null;
+                synchronized (this) {
+                    if (!idle) {
+                        mFlushScheduled = false;
+                    }
+
+                    int count = mQueue.size();
+                    if (!idle) {
+                        while (count > 0 && mQueue.get(count - 1).priority == MSREventBridgeEventPriority.LOW) {
+                            count--;
+                        }
+                    }
+                    if (mMaxEventsInFlight > 0) {
+                        count = (int) Math.min(count, mMaxEventsInFlight - (mSequenceNumber - mAcknowledgedSequenceNumber));
+                    }
+                    if (count <= 0) {
+                        return;
+                    }
+
+                    if (count == 1) {
+                        MSREventBridgeEvent event = mQueue.get(0);
+                        body = createBody(event.name, event.info, event.hasValues, event.reactTags, event.reactTagsCount, event.listenerId);
+                    } else {
+                        WritableArray batch = Arguments.createArray();
+                        for (int i = 0; i < count; i++) {
+                            MSREventBridgeEvent event = mQueue.get(i);
+                            batch.pushMap(createBody(event.name, event.info, event.hasValues, event.reactTags, event.reactTagsCount, event.listenerId));
+                        }
+                        body = Arguments.createMap();
+                        body.putArray(MSREventBridgeModule.EventBridgeModuleEventBatchKey, batch);
+                    }
+                    putSequenceNumber(body, count);
+
+                    // Keep the events around to record their metrics once they are emitted, otherwise they
+                    // can be recycled right away as their info is part of the body now
+                    if (mMetrics.isEnabled()) {
+                        flushedEvents = new ArrayList<>(mQueue.subList(0, count));
+                    }
+
+                    if (flushedEvents == null) {
+                        for (int i = 0; i < count; i++) {
+                            mQueue.get(i).recycle();
+                        }
+                    }
+                    mQueue.subList(0, count).clear();
+
+                    // Wake up threads that are blocked by a full queue
+                    notifyAll();
+
+                    // Events that didn't fit into the window are sent once React Native caught up
+                    scheduleFlush();
+                }
+
+                emit(body);
+
+                if (flushedEvents != null) {
+                    for (MSREventBridgeEvent event : flushedEvents) {
+                        mMetrics.recordEmitted(event.name, event.payloadSize, event.startTime);
+                        event.recycle();
+                    }
+                }
+            }
+        } finally {
+            Systrace.endSection(Systrace.TRACE_TAG_REACT_JAVA_BRIDGE);
+        }
+    }
+
+    /**
+     * If React Native needs to acknowledge events, advances the sequence number by the number of events
+     * in the body and sends it along
+     */
+    private void putSequenceNumber(WritableMap body, int eventCount) {
+        if (mMaxEventsInFlight <= 0) {
+            return;
+        }
+        mSequenceNumber += eventCount;
+        body.putDouble(MSREventBridgeModule.EventBridgeModuleEventSequenceNumberKey, mSequenceNumber);
+    }
+
+    private static WritableMap createBody(String name, @Nullable WritableMap info, boolean hasValues, @Nullable int[] reactTags, int reactTagsCount, int listenerId) {
+        WritableMap body = Arguments.createMap();
+        if (reactTags != null) {
+            WritableArray reactTagsArray = Arguments.createArray();
+            for (int i = 0; i < reactTagsCount; i++) {
+                reactTagsArray.pushInt(reactTags[i]);
+            }
+            body.putArray(MSREventBridgeModule.EventBridgeModuleEventReactTagsKey, reactTagsArray);
+        }
+        if (listenerId != NoListenerId) {
+            body.putInt(MSREventBridgeModule.EventBridgeModuleEventListenerIdKey, listenerId);
+        }
+        body.putString(MSREventBridgeModule.EventBridgeModuleEventNameKey, name);
+        if (info != null) {
+            body.putMap(MSREventBridgeModule.EventBridgeModuleEventInfoKey, info);
+        }
+        if (hasValues) {
+            body.putBoolean(MSREventBridgeModule.EventBridgeModuleEventHasValuesKey, true);
+        }
+        return body;
+    }
+
+    /**
+     * Emits the body straight to the RCTDeviceEventEmitter JS module. The JS module call is queued on the
+     * JS thread, so this is safe to be called from any thread. Called with the emit lock held.
+     */
+    private void emit(WritableMap body) {
+        if (!mReactContext.hasActiveCatalystInstance()) {
+            return;
+        }
+
+        Systrace.beginSection(Systrace.TRACE_TAG_REACT_JAVA_BRIDGE, "MSREventBridgeEventDispatcher.emit");
+        try {
+            mReactContext.getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class)
+                    .emit(MSREventBridgeModule.EventBridgeModuleEventName, body);
+        } finally {
+            Systrace.endSection(Systrace.TRACE_TAG_REACT_JAVA_BRIDGE);
+        }
+    }
+}
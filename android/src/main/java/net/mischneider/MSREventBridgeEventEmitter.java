@@ -19,4 +19,60 @@ public interface MSREventBridgeEventEmitter {
      * managed by the passed activity
      */
     void emitEventForActivity(Activity activity, final String name, @Nullable WritableMap info);
+
+    /**
+     * Post an event with the given priority to an event subscriber. High priority events are delivered
+     * ahead of queued events, low priority events once the main thread is idle
+     */
+    void emitEvent(final String name, @Nullable WritableMap info, MSREventBridgeEventPriority priority);
+
+    /**
+     * Emits an event with the given priority to an event subscriber within the components tree managed
+     * by the passed activity
+     */
+    void emitEventForActivity(Activity activity, final String name, @Nullable WritableMap info, MSREventBridgeEventPriority priority);
+
+    /**
+     * Emits an event to the subscribers addressed by the target, e.g. a single root view or a channel
+     */
+    void emitEvent(MSREventBridgeEventTarget target, final String name, @Nullable WritableMap info);
+
+    /**
+     * Emits an event with the given priority to the subscribers addressed by the target
+     */
+    void emitEvent(MSREventBridgeEventTarget target, final String name, @Nullable WritableMap info, MSREventBridgeEventPriority priority);
+
+    /**
+     * Post an event with a schema to an event subscriber. Only the values are passed over the bridge
+     */
+    void emitEventValues(MSREventBridgeEventSchema schema, double[] values);
+
+    /**
+     * Emits an event with a schema to an event subscriber within the components tree managed by the
+     * passed activity. Only the values are passed over the bridge
+     */
+    void emitEventValuesForActivity(Activity activity, MSREventBridgeEventSchema schema, double[] values);
+
+    /**
+     * Enables or disables batching. Batched events are queued and flushed as a single message once per
+     * frame or after the batching interval
+     */
+    void setEventBatchingEnabled(boolean enabled);
+
+    /**
+     * Sets the interval in milliseconds batched events are flushed. 0 flushes once per frame
+     */
+    void setEventBatchingInterval(long intervalMs);
+
+    /**
+     * Enables or disables coalescing for the event name. Only the latest batched value per root view is
+     * delivered for coalesced events
+     */
+    void setEventCoalescingEnabled(String name, boolean enabled);
+
+    /**
+     * Makes events with the name sticky. The last replayCount events per root view are replayed once a
+     * listener for the name registers within the root view. 0 makes events with the name non sticky
+     */
+    void setEventSticky(String name, int replayCount);
 }
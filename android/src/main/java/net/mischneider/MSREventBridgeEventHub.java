@@ -0,0 +1,220 @@
+package net.mischneider;
+
+import android.app.Activity;
+import android.os.Bundle;
+import android.support.annotation.Nullable;
+import android.view.View;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableMap;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Process wide hub that knows which React instance owns which root view. Events are routed to the
+ * instances that own the addressed root views only, so the bridge traffic grows with the number of
+ * targets and not with the number of React instances. Events for all subscribers are fanned out to the
+ * instances that have a listener for the event.
+ *
+ * A root view is owned by a React instance once React Native registered a listener within it. Root
+ * views of an activity without a listener yet belong to the instance the activity is the current
+ * activity of, or to the only instance that owns other root views of the activity.
+ *
+ * Example:
+ * MSREventBridgeEventHub.getInstance().emitEventForActivity(this, "eventName", data);
+ */
+public final class MSREventBridgeEventHub {
+
+    private static final MSREventBridgeEventHub sInstance = new MSREventBridgeEventHub();
+
+    // Modules of all React instances that are alive
+    private final ArrayList<WeakReference<MSREventBridgeModule>> mModules = new ArrayList<>();
+
+    // Module that owns the root view
+    private final WeakHashMap<View, WeakReference<MSREventBridgeModule>> mRootViewOwners = new WeakHashMap<>();
+
+    public static MSREventBridgeEventHub getInstance() {
+        return sInstance;
+    }
+
+    private MSREventBridgeEventHub() {
+    }
+
+    // Registration
+
+    synchronized void addModule(MSREventBridgeModule module) {
+        mModules.add(new WeakReference<>(module));
+    }
+
+    synchronized void removeModule(MSREventBridgeModule module) {
+        Iterator<WeakReference<MSREventBridgeModule>> modules = mModules.iterator();
+        while (modules.hasNext()) {
+            MSREventBridgeModule registeredModule = modules.next().get();
+            if (registeredModule == null || registeredModule == module) {
+                modules.remove();
+            }
+        }
+
+        Iterator<WeakReference<MSREventBridgeModule>> owners = mRootViewOwners.values().iterator();
+        while (owners.hasNext()) {
+            MSREventBridgeModule owner = owners.next().get();
+            if (owner == null || owner == module) {
+                owners.remove();
+            }
+        }
+    }
+
+    /**
+     * The root view is owned by the React instance of the module
+     */
+    synchronized void addRootView(View rootView, MSREventBridgeModule module) {
+        mRootViewOwners.put(rootView, new WeakReference<>(module));
+    }
+
+    // Emit Events
+
+    /**
+     * Emits an event to all subscribers of all React instances
+     */
+    public void emitEvent(String name, @Nullable WritableMap info) {
+        emitEvent(name, info, MSREventBridgeEventPriority.NORMAL);
+    }
+
+    /**
+     * Emits an event with the given priority to all subscribers of all React instances. Only instances
+     * with a listener for the event receive it, or that keep the event for replay
+     */
+    public void emitEvent(String name, @Nullable WritableMap info, MSREventBridgeEventPriority priority) {
+        ArrayList<MSREventBridgeModule> modules = new ArrayList<>();
+        synchronized (this) {
+            for (WeakReference<MSREventBridgeModule> moduleReference : mModules) {
+                MSREventBridgeModule module = moduleReference.get();
+                if (module != null && module.isEventObserved(name)) {
+                    modules.add(module);
+                }
+            }
+        }
+
+        InfoCopier infoCopier = new InfoCopier(info, modules.size());
+        for (MSREventBridgeModule module : modules) {
+            module.emitEvent(name, infoCopier.next(), priority);
+        }
+    }
+
+    /**
+     * Emits an event to the subscribers within the root views of the activity. Only the React instances
+     * that own a root view of the activity receive the event. All root views of the activity are
+     * addressed, also the ones without a listener yet, so sticky events are kept for them
+     */
+    public void emitEventForActivity(Activity activity, String name, @Nullable WritableMap info) {
+        emitEventForActivity(activity, name, info, MSREventBridgeEventPriority.NORMAL);
+    }
+
+    public void emitEventForActivity(Activity activity, String name, @Nullable WritableMap info, MSREventBridgeEventPriority priority) {
+        ArrayList<View> rootViews = new ArrayList<>();
+        MSREventBridgeRootViewIndex.getInstance().getRootViews(activity, rootViews);
+
+        ArrayList<MSREventBridgeModule> modules = new ArrayList<>();
+        ArrayList<ArrayList<View>> rootViewsByModule = new ArrayList<>();
+        synchronized (this) {
+            MSREventBridgeModule activityOwner = getActivityOwner(activity);
+            for (View rootView : rootViews) {
+                WeakReference<MSREventBridgeModule> owner = mRootViewOwners.get(rootView);
+                MSREventBridgeModule module = owner != null ? owner.get() : activityOwner;
+                if (module == null) {
+                    continue;
+                }
+
+                int index = modules.indexOf(module);
+                if (index == -1) {
+                    modules.add(module);
+                    rootViewsByModule.add(new ArrayList<View>());
+                    index = modules.size() - 1;
+                }
+                rootViewsByModule.get(index).add(rootView);
+            }
+        }
+
+        InfoCopier infoCopier = new InfoCopier(info, modules.size());
+        for (int i = 0; i < modules.size(); i++) {
+            modules.get(i).emitEventForRootViews(rootViewsByModule.get(i), name, infoCopier.next(), priority);
+        }
+    }
+
+    /**
+     * Emits an event to the subscribers within the root view. Only the React instance that owns the root
+     * view receives the event
+     */
+    public void emitEventForRootView(View rootView, String name, @Nullable WritableMap info) {
+        emitEventForRootView(rootView, name, info, MSREventBridgeEventPriority.NORMAL);
+    }
+
+    public void emitEventForRootView(View rootView, String name, @Nullable WritableMap info, MSREventBridgeEventPriority priority) {
+        MSREventBridgeModule module;
+        synchronized (this) {
+            WeakReference<MSREventBridgeModule> owner = mRootViewOwners.get(rootView);
+            module = owner != null ? owner.get() : null;
+        }
+        if (module != null) {
+            module.emitEvent(MSREventBridgeEventTarget.rootTags(rootView.getId()), name, info, priority);
+        }
+    }
+
+    // Helper
+
+    /**
+     * Returns the module of the React instance the activity is the current activity of or, if there is
+     * none, the only module that owns root views of the activity
+     */
+    @Nullable
+    private MSREventBridgeModule getActivityOwner(Activity activity) {
+        for (WeakReference<MSREventBridgeModule> moduleReference : mModules) {
+            MSREventBridgeModule module = moduleReference.get();
+            if (module != null && module.isCurrentActivity(activity)) {
+                return module;
+            }
+        }
+
+        MSREventBridgeModule activityOwner = null;
+        for (Map.Entry<View, WeakReference<MSREventBridgeModule>> entry : mRootViewOwners.entrySet()) {
+            MSREventBridgeModule module = entry.getValue().get();
+            if (module == null || MSREventBridgeRootViewIndex.getActivity(entry.getKey().getContext()) != activity) {
+                continue;
+            }
+            if (activityOwner != null && activityOwner != module) {
+                return null;
+            }
+            activityOwner = module;
+        }
+        return activityOwner;
+    }
+
+
+    /**
+     * Hands out the info for every React instance an event is emitted to. A WritableMap can only be
+     * passed over the bridge once, so every instance but the first gets a copy.
+     */
+    private static final class InfoCopier {
+        @Nullable private final WritableMap mInfo;
+        @Nullable private final Bundle mBundle;
+        private boolean mInfoTaken = false;
+
+        InfoCopier(@Nullable WritableMap info, int count) {
+            mInfo = info;
+            mBundle = info != null && count > 1 ? Arguments.toBundle(info) : null;
+        }
+
+        @Nullable
+        WritableMap next() {
+            if (!mInfoTaken) {
+                mInfoTaken = true;
+                return mInfo;
+            }
+            return mBundle != null ? Arguments.fromBundle(mBundle) : null;
+        }
+    }
+}
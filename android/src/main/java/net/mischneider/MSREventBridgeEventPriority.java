@@ -0,0 +1,41 @@
+package net.mischneider;
+
+import android.support.annotation.Nullable;
+
+import java.util.Locale;
+
+/**
+ * Priority of an event. Events with a higher priority are delivered ahead of queued events with a
+ * lower priority.
+ */
+public enum MSREventBridgeEventPriority {
+    /**
+     * The event skips the batching interval and is delivered ahead of all queued events, e.g. for
+     * navigation events
+     */
+    HIGH,
+
+    /**
+     * The event is delivered in order with other events. This is the default
+     */
+    NORMAL,
+
+    /**
+     * The event is deferred until the main thread is idle, e.g. for analytics events
+     */
+    LOW;
+
+    /**
+     * Returns the priority for the name passed in from React Native or NORMAL if the name is unknown
+     */
+    static MSREventBridgeEventPriority fromName(@Nullable String name) {
+        if (name != null) {
+            for (MSREventBridgeEventPriority priority : values()) {
+                if (priority.name().equals(name.toUpperCase(Locale.US))) {
+                    return priority;
+                }
+            }
+        }
+        return NORMAL;
+    }
+}
@@ -0,0 +1,149 @@
+package net.mischneider;
+
+import com.facebook.react.bridge.ReadableMap;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * A {@link MSREventBridgeEventReceiver} that dispatches events to handlers registered for the event
+ * name. Handlers can be registered and unregistered at runtime by multiple components and more than one
+ * handler can be registered for the same name.
+ *
+ * Example:
+ * MSREventBridgeEventReceiverRegistry registry = new MSREventBridgeEventReceiverRegistry();
+ * registry.registerHandler("DismissScreen", new MSREventBridgeEventReceiverRegistry.EventHandler() { ... });
+ * reactRootView.setEventBridgeEventReceiver(registry);
+ */
+public class MSREventBridgeEventReceiverRegistry
+        implements MSREventBridgeEventReceiver, MSREventBridgeReceiverThreadProvider {
+
+    /**
+     * Handles events with a specific name
+     */
+    public interface EventHandler {
+        void onEvent(String name, ReadableMap info);
+    }
+
+    /**
+     * Handles events with a specific name that expect a callback. The callback must be called.
+     */
+    public interface EventCallbackHandler {
+        void onEventCallback(String name, ReadableMap info, MSREventBridgeReceiverCallback callback);
+    }
+
+    private final HashMap<String, List<EventHandler>> mEventHandlers = new HashMap<>();
+    private final HashMap<String, List<EventCallbackHandler>> mEventCallbackHandlers = new HashMap<>();
+    private final HashMap<String, MSREventBridgeReceiverThread> mReceiverThreads = new HashMap<>();
+
+    // Registration
+
+    /**
+     * Registers a handler for events with the given name
+     */
+    public void registerHandler(String name, EventHandler handler) {
+        synchronized (mEventHandlers) {
+            getOrCreateHandlers(mEventHandlers, name).add(handler);
+        }
+    }
+
+    public void unregisterHandler(String name, EventHandler handler) {
+        synchronized (mEventHandlers) {
+            removeHandler(mEventHandlers, name, handler);
+        }
+    }
+
+    /**
+     * Registers a handler for events with the given name that expect a callback. If more than one
+     * handler is registered for a name, the first one registered receives the event.
+     */
+    public void registerCallbackHandler(String name, EventCallbackHandler handler) {
+        synchronized (mEventCallbackHandlers) {
+            getOrCreateHandlers(mEventCallbackHandlers, name).add(handler);
+        }
+    }
+
+    public void unregisterCallbackHandler(String name, EventCallbackHandler handler) {
+        synchronized (mEventCallbackHandlers) {
+            removeHandler(mEventCallbackHandlers, name, handler);
+        }
+    }
+
+    // Threading
+
+    /**
+     * Sets the thread events with the given name are delivered on. Events are delivered on the main
+     * thread by default.
+     */
+    public void setReceiverThread(String name, MSREventBridgeReceiverThread thread) {
+        synchronized (mReceiverThreads) {
+            mReceiverThreads.put(name, thread);
+        }
+    }
+
+    @Override
+    public MSREventBridgeReceiverThread getReceiverThread(String name) {
+        synchronized (mReceiverThreads) {
+            MSREventBridgeReceiverThread thread = mReceiverThreads.get(name);
+            return thread != null ? thread : MSREventBridgeReceiverThread.MAIN;
+        }
+    }
+
+    // MSREventBridgeEventReceiver
+
+    @Override
+    public void onEvent(String name, ReadableMap info) {
+        List<EventHandler> handlers;
+        synchronized (mEventHandlers) {
+            handlers = mEventHandlers.get(name);
+        }
+        if (handlers == null) {
+            return;
+        }
+
+        for (EventHandler handler : handlers) {
+            handler.onEvent(name, info);
+        }
+    }
+
+    @Override
+    public void onEventCallback(String name, ReadableMap info, MSREventBridgeReceiverCallback callback) {
+        List<EventCallbackHandler> handlers;
+        synchronized (mEventCallbackHandlers) {
+            handlers = mEventCallbackHandlers.get(name);
+        }
+
+        // Take the handler from an iterator as handlers could be unregistered in between
+        Iterator<EventCallbackHandler> iterator = handlers != null ? handlers.iterator() : null;
+        if (iterator == null || !iterator.hasNext()) {
+            callback.onFailure("No handler registered for event: " + name);
+            return;
+        }
+        iterator.next().onEventCallback(name, info, callback);
+    }
+
+    // Helper
+
+    private static <T> List<T> getOrCreateHandlers(HashMap<String, List<T>> handlersByName, String name) {
+        List<T> handlers = handlersByName.get(name);
+        if (handlers == null) {
+            handlers = new CopyOnWriteArrayList<>();
+            handlersByName.put(name, handlers);
+        }
+        return handlers;
+    }
+
+    private static <T> void removeHandler(HashMap<String, List<T>> handlersByName, String name, T handler) {
+        List<T> handlers = handlersByName.get(name);
+        if (handlers == null) {
+            return;
+        }
+
+        handlers.remove(handler);
+        if (handlers.isEmpty()) {
+            handlersByName.remove(name);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package net.mischneider;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+
+/**
+ * Schema for events with numeric fields, e.g. coordinates, timestamps or counters. Events with a schema
+ * only pass their values over the bridge in field order, without any keys. Register the same field
+ * names in React Native via EventBridge.registerEventSchema to receive the values as object, otherwise
+ * the listener receives the values as array.
+ *
+ * Example:
+ * MSREventBridgeEventSchema LocationSchema = new MSREventBridgeEventSchema("Location", "latitude", "longitude", "timestamp");
+ * module.emitEventValues(LocationSchema, new double[] { latitude, longitude, timestamp });
+ */
+public final class MSREventBridgeEventSchema {
+
+    private final String mName;
+    private final String[] mFieldNames;
+
+    public MSREventBridgeEventSchema(String name, String... fieldNames) {
+        mName = name;
+        mFieldNames = fieldNames.clone();
+    }
+
+    /**
+     * Returns the name of the events with this schema
+     */
+    public String getName() {
+        return mName;
+    }
+
+    public int getFieldCount() {
+        return mFieldNames.length;
+    }
+
+    /**
+     * Returns the index of the field in the values array or -1 if the schema has no such field
+     */
+    public int getFieldIndex(String fieldName) {
+        for (int i = 0; i < mFieldNames.length; i++) {
+            if (mFieldNames[i].equals(fieldName)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the info for the values that is passed over the bridge
+     */
+    WritableMap encode(double[] values) {
+        checkValues(values);
+        return encodeValues(values);
+    }
+
+    /**
+     * Throws an IllegalArgumentException if the number of values doesn't match the number of fields
+     */
+    void checkValues(double[] values) {
+        if (values.length != mFieldNames.length) {
+            throw new IllegalArgumentException("Event '" + mName + "' expects " + mFieldNames.length
+                    + " values but got " + values.length);
+        }
+    }
+
+    /**
+     * Returns the info for values that were already validated against a schema
+     */
+    static WritableMap encodeValues(double[] values) {
+        WritableArray array = Arguments.createArray();
+        for (double value : values) {
+            array.pushDouble(value);
+        }
+
+        WritableMap info = Arguments.createMap();
+        info.putArray(MSREventBridgeModule.EventBridgeModuleEventValuesKey, array);
+        return info;
+    }
+}
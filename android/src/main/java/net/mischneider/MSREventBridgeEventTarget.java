@@ -0,0 +1,124 @@
+package net.mischneider;
+
+import android.app.Activity;
+
+import com.facebook.react.ReactRootView;
+
+import java.util.Collection;
+
+/**
+ * Addresses the subscribers an event is emitted to. Events are routed on the native side, so only the
+ * root views that are addressed and listen for the event receive it.
+ *
+ * Example:
+ * module.emitEvent(MSREventBridgeEventTarget.rootView(reactRootView), "DismissScreen", null);
+ * module.emitEvent(MSREventBridgeEventTarget.channel("Player"), "Progress", info);
+ */
+public final class MSREventBridgeEventTarget {
+
+    // Event names of channel subscribers start with the reserved prefix, followed by the channel and the
+    // event name separated by the separator. This needs to be in sync with the JavaScript side!
+    static final String ChannelEventNamePrefix = "__channel:";
+    static final String ChannelSeparator = "#";
+
+    private static final int TypeAll = 0;
+    private static final int TypeRootTags = 1;
+    private static final int TypeActivities = 2;
+    private static final int TypeChannel = 3;
+
+    private static final MSREventBridgeEventTarget sAll = new MSREventBridgeEventTarget(TypeAll, null, null, null);
+
+    private final int mType;
+    private final int[] mRootTags;
+    private final Activity[] mActivities;
+    private final String mChannel;
+
+    private MSREventBridgeEventTarget(int type, int[] rootTags, Activity[] activities, String channel) {
+        mType = type;
+        mRootTags = rootTags;
+        mActivities = activities;
+        mChannel = channel;
+    }
+
+    /**
+     * Addresses all subscribers
+     */
+    public static MSREventBridgeEventTarget all() {
+        return sAll;
+    }
+
+    /**
+     * Addresses the subscribers within the root views with the given root tags
+     */
+    public static MSREventBridgeEventTarget rootTags(int... rootTags) {
+        return new MSREventBridgeEventTarget(TypeRootTags, rootTags.clone(), null, null);
+    }
+
+    /**
+     * Addresses the subscribers within the given root view
+     */
+    public static MSREventBridgeEventTarget rootView(ReactRootView rootView) {
+        return new MSREventBridgeEventTarget(TypeRootTags, new int[] { rootView.getId() }, null, null);
+    }
+
+    /**
+     * Addresses the subscribers within all root views of the given activities. The activities are
+     * referenced strongly, so don't keep the target around.
+     */
+    public static MSREventBridgeEventTarget activities(Activity... activities) {
+        return new MSREventBridgeEventTarget(TypeActivities, null, activities.clone(), null);
+    }
+
+    public static MSREventBridgeEventTarget activities(Collection<Activity> activities) {
+        return new MSREventBridgeEventTarget(TypeActivities, null, activities.toArray(new Activity[activities.size()]), null);
+    }
+
+    /**
+     * Addresses the components that subscribed to the channel via EventBridge.addEventListenerForChannel,
+     * in any root view. Subscribers for all events don't receive channel events.
+     */
+    public static MSREventBridgeEventTarget channel(String channel) {
+        return new MSREventBridgeEventTarget(TypeChannel, null, null, channel);
+    }
+
+    /**
+     * Returns the event name channel subscribers registered for
+     */
+    static String getChannelEventName(String channel, String name) {
+        return ChannelEventNamePrefix + channel + ChannelSeparator + name;
+    }
+
+    /**
+     * Returns true if the event name belongs to a channel
+     */
+    static boolean isChannelEventName(String name) {
+        return name.startsWith(ChannelEventNamePrefix);
+    }
+
+    boolean isAll() {
+        return mType == TypeAll;
+    }
+
+    boolean isChannel() {
+        return mType == TypeChannel;
+    }
+
+    String getChannel() {
+        return mChannel;
+    }
+
+    boolean isActivities() {
+        return mType == TypeActivities;
+    }
+
+    Activity[] getActivities() {
+        return mActivities;
+    }
+
+    /**
+     * Returns the root tags that are addressed by a root tag target
+     */
+    int[] getRootTags() {
+        return mType == TypeRootTags ? mRootTags : new int[0];
+    }
+}
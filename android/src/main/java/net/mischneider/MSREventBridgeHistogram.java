@@ -0,0 +1,83 @@
+package net.mischneider;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock free histogram with power of two buckets. Recording a value is a few atomic increments, so it
+ * can be used on hot paths. Percentiles are approximated by the upper bound of their bucket.
+ */
+public final class MSREventBridgeHistogram {
+
+    // Bucket i holds values in [2^(i-1), 2^i), bucket 0 holds 0
+    private static final int BucketCount = 64;
+
+    private final AtomicLongArray mBuckets = new AtomicLongArray(BucketCount);
+    private final AtomicLong mCount = new AtomicLong();
+    private final AtomicLong mSum = new AtomicLong();
+    private final AtomicLong mMax = new AtomicLong();
+
+    void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+
+        mBuckets.incrementAndGet(BucketCount - Long.numberOfLeadingZeros(value));
+        mCount.incrementAndGet();
+        mSum.addAndGet(value);
+
+        long max = mMax.get();
+        while (value > max && !mMax.compareAndSet(max, value)) {
+            max = mMax.get();
+        }
+    }
+
+    public long getCount() {
+        return mCount.get();
+    }
+
+    public long getMax() {
+        return mMax.get();
+    }
+
+    public double getMean() {
+        long count = mCount.get();
+        return count > 0 ? (double) mSum.get() / count : 0;
+    }
+
+    /**
+     * Returns the approximate value below which the given percentage (0-100) of recorded values fall
+     */
+    public long getPercentile(double percentile) {
+        long count = mCount.get();
+        if (count == 0) {
+            return 0;
+        }
+
+        long threshold = Math.max(1, (long) Math.ceil(count * percentile / 100));
+        long cumulativeCount = 0;
+        for (int i = 0; i < BucketCount; i++) {
+            cumulativeCount += mBuckets.get(i);
+            if (cumulativeCount < threshold) {
+                continue;
+            }
+            if (i == 0) {
+                return 0;
+            }
+            if (i < BucketCount - 1) {
+                return Math.min((1L << i) - 1, mMax.get());
+            }
+            break;
+        }
+        return mMax.get();
+    }
+
+    void reset() {
+        for (int i = 0; i < BucketCount; i++) {
+            mBuckets.set(i, 0);
+        }
+        mCount.set(0);
+        mSum.set(0);
+        mMax.set(0);
+    }
+}
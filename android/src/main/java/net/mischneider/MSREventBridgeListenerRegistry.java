@@ -0,0 +1,99 @@
+package net.mischneider;
+
+import android.util.SparseArray;
+
+import java.util.HashSet;
+
+/**
+ * Keeps track of the root tags and event names React Native has registered listeners for. This is
+ * used to skip emitting events nobody is listening for.
+ */
+final class MSREventBridgeListenerRegistry {
+
+    // Event name used by listeners that would like to receive every event. This needs to be in sync
+    // with the JavaScript side!
+    static final String AllEventsName = "*";
+
+    private final SparseArray<HashSet<String>> mEventNamesByRootTag = new SparseArray<>();
+
+    /**
+     * Returns true if this is the first listener within the given root tag
+     */
+    synchronized boolean addListener(int rootTag, String name) {
+        HashSet<String> names = mEventNamesByRootTag.get(rootTag);
+        boolean firstListener = names == null;
+        if (firstListener) {
+            names = new HashSet<>();
+            mEventNamesByRootTag.put(rootTag, names);
+        }
+        names.add(name);
+        return firstListener;
+    }
+
+    synchronized void removeListener(int rootTag, String name) {
+        HashSet<String> names = mEventNamesByRootTag.get(rootTag);
+        if (names == null) {
+            return;
+        }
+
+        names.remove(name);
+        if (names.isEmpty()) {
+            mEventNamesByRootTag.remove(rootTag);
+        }
+    }
+
+    /**
+     * Returns true if a listener for the given event name within the given root tag exists
+     */
+    synchronized boolean hasListener(int rootTag, String name) {
+        HashSet<String> names = mEventNamesByRootTag.get(rootTag);
+        return names != null && containsName(names, name);
+    }
+
+    /**
+     * Returns true if a listener for the given event name exists within any root tag
+     */
+    synchronized boolean hasListener(String name) {
+        for (int i = 0; i < mEventNamesByRootTag.size(); i++) {
+            if (containsName(mEventNamesByRootTag.valueAt(i), name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Copies the root tags that have a listener for the given event name into the array and returns
+     * their count. If the array is too small, only the ones that fit are copied
+     */
+    synchronized int getRootTags(String name, int[] rootTags) {
+        int count = 0;
+        for (int i = 0; i < mEventNamesByRootTag.size(); i++) {
+            if (containsName(mEventNamesByRootTag.valueAt(i), name)) {
+                if (count < rootTags.length) {
+                    rootTags[count] = mEventNamesByRootTag.keyAt(i);
+                }
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns true if no listener is registered within any root tag
+     */
+    synchronized boolean isEmpty() {
+        return mEventNamesByRootTag.size() == 0;
+    }
+
+    synchronized void clear() {
+        mEventNamesByRootTag.clear();
+    }
+
+    private static boolean containsName(HashSet<String> names, String name) {
+        // Listeners for all events don't receive events of channels, they are directed to the channel
+        // subscribers only
+        return names.contains(name)
+                || (names.contains(AllEventsName) && !MSREventBridgeEventTarget.isChannelEventName(name));
+    }
+}
@@ -0,0 +1,364 @@
+package net.mischneider;
+
+import android.support.annotation.Nullable;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.ReadableMapKeySetIterator;
+import com.facebook.react.bridge.WritableMap;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In memory metrics of the event bridge. Metrics are disabled by default, if disabled recording costs a
+ * single volatile read. Latencies are recorded in microseconds, payload sizes in estimated bytes.
+ */
+public final class MSREventBridgeMetrics {
+
+    private volatile boolean mEnabled = false;
+    @Nullable private volatile MSREventBridgeMetricsListener mListener;
+
+    // Native to React Native
+    private final MSREventBridgeHistogram mEmitLatency = new MSREventBridgeHistogram();
+    private final MSREventBridgeHistogram mPayloadSize = new MSREventBridgeHistogram();
+    private final MSREventBridgeHistogram mQueueDepth = new MSREventBridgeHistogram();
+    private final MSREventBridgeHistogram mConversionTime = new MSREventBridgeHistogram();
+    private final MSREventBridgeHistogram mBroadcastLatency = new MSREventBridgeHistogram();
+    private final ConcurrentHashMap<String, AtomicLong> mEmittedCounts = new ConcurrentHashMap<>();
+
+    // React Native to native
+    private final MSREventBridgeHistogram mReceiveLatency = new MSREventBridgeHistogram();
+    private final MSREventBridgeHistogram mCallbackRoundTrip = new MSREventBridgeHistogram();
+    private final ConcurrentHashMap<String, AtomicLong> mReceivedCounts = new ConcurrentHashMap<>();
+
+    public boolean isEnabled() {
+        return mEnabled;
+    }
+
+    void setEnabled(boolean enabled) {
+        mEnabled = enabled;
+    }
+
+    void setListener(@Nullable MSREventBridgeMetricsListener listener) {
+        mListener = listener;
+    }
+
+    // Histograms
+
+    /**
+     * Time from the emit call until the event was handed to the JS thread
+     */
+    public MSREventBridgeHistogram getEmitLatency() {
+        return mEmitLatency;
+    }
+
+    /**
+     * Estimated size of the info of emitted events
+     */
+    public MSREventBridgeHistogram getPayloadSize() {
+        return mPayloadSize;
+    }
+
+    /**
+     * Number of queued events at the time an event was queued
+     */
+    public MSREventBridgeHistogram getQueueDepth() {
+        return mQueueDepth;
+    }
+
+    /**
+     * Time spent converting the info of events emitted via the LocalBroadcastManager to and from a Bundle
+     */
+    public MSREventBridgeHistogram getConversionTime() {
+        return mConversionTime;
+    }
+
+    /**
+     * Time from sending a broadcast until the module received it
+     */
+    public MSREventBridgeHistogram getBroadcastLatency() {
+        return mBroadcastLatency;
+    }
+
+    /**
+     * Time from the call of the native module until an event from React Native was passed to the receiver
+     */
+    public MSREventBridgeHistogram getReceiveLatency() {
+        return mReceiveLatency;
+    }
+
+    /**
+     * Time from the call of the native module until a callback, promise or stream from React Native was
+     * completed
+     */
+    public MSREventBridgeHistogram getCallbackRoundTrip() {
+        return mCallbackRoundTrip;
+    }
+
+    // Counters
+
+    /**
+     * Returns the number of events emitted to React Native per event name
+     */
+    public Map<String, Long> getEmittedEventCounts() {
+        return toCounts(mEmittedCounts);
+    }
+
+    /**
+     * Returns the number of events received from React Native per event name
+     */
+    public Map<String, Long> getReceivedEventCounts() {
+        return toCounts(mReceivedCounts);
+    }
+
+    public void reset() {
+        mEmitLatency.reset();
+        mPayloadSize.reset();
+        mQueueDepth.reset();
+        mConversionTime.reset();
+        mBroadcastLatency.reset();
+        mReceiveLatency.reset();
+        mCallbackRoundTrip.reset();
+        mEmittedCounts.clear();
+        mReceivedCounts.clear();
+    }
+
+    // Recording
+
+    /**
+     * Returns the current time if metrics are enabled, otherwise 0. Pass the result to the record
+     * methods, they skip recording for a start time of 0.
+     */
+    long startTime() {
+        return mEnabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Returns the estimated size of the info if metrics are enabled, otherwise 0
+     */
+    int payloadSize(@Nullable ReadableMap info) {
+        return mEnabled && info != null ? estimateSize(info) : 0;
+    }
+
+    void recordEmitted(String name, int payloadSize, long startTime) {
+        if (startTime == 0) {
+            return;
+        }
+
+        long latencyNanos = System.nanoTime() - startTime;
+        mEmitLatency.record(latencyNanos / 1000);
+        mPayloadSize.record(payloadSize);
+        increment(mEmittedCounts, name);
+
+        MSREventBridgeMetricsListener listener = mListener;
+        if (listener != null) {
+            listener.onEventEmitted(name, payloadSize, latencyNanos);
+        }
+    }
+
+    void recordQueueDepth(int queueDepth) {
+        if (mEnabled) {
+            mQueueDepth.record(queueDepth);
+        }
+    }
+
+    void recordBroadcast(String name, long conversionNanos, long broadcastNanos) {
+        if (!mEnabled) {
+            return;
+        }
+
+        mConversionTime.record(conversionNanos / 1000);
+        mBroadcastLatency.record(broadcastNanos / 1000);
+
+        MSREventBridgeMetricsListener listener = mListener;
+        if (listener != null) {
+            listener.onEventBroadcast(name, conversionNanos, broadcastNanos);
+        }
+    }
+
+    void recordReceived(String name, long startTime) {
+        if (startTime == 0) {
+            return;
+        }
+
+        long latencyNanos = System.nanoTime() - startTime;
+        mReceiveLatency.record(latencyNanos / 1000);
+        increment(mReceivedCounts, name);
+
+        MSREventBridgeMetricsListener listener = mListener;
+        if (listener != null) {
+            listener.onEventReceived(name, latencyNanos);
+        }
+    }
+
+    void recordCallbackCompleted(String name, long startTime, boolean timedOut) {
+        if (startTime == 0) {
+            return;
+        }
+
+        long roundTripNanos = System.nanoTime() - startTime;
+        mCallbackRoundTrip.record(roundTripNanos / 1000);
+
+        MSREventBridgeMetricsListener listener = mListener;
+        if (listener != null) {
+            listener.onCallbackCompleted(name, roundTripNanos, timedOut);
+        }
+    }
+
+    // Export
+
+    /**
+     * Returns the metrics as map that can be passed to React Native
+     */
+    WritableMap toWritableMap() {
+        WritableMap map = Arguments.createMap();
+        map.putBoolean("enabled", mEnabled);
+        map.putMap("emitLatency", toWritableMap(mEmitLatency));
+        map.putMap("payloadSize", toWritableMap(mPayloadSize));
+        map.putMap("queueDepth", toWritableMap(mQueueDepth));
+        map.putMap("conversionTime", toWritableMap(mConversionTime));
+        map.putMap("broadcastLatency", toWritableMap(mBroadcastLatency));
+        map.putMap("receiveLatency", toWritableMap(mReceiveLatency));
+        map.putMap("callbackRoundTrip", toWritableMap(mCallbackRoundTrip));
+        map.putMap("emittedEventCounts", toWritableMap(mEmittedCounts));
+        map.putMap("receivedEventCounts", toWritableMap(mReceivedCounts));
+        return map;
+    }
+
+    /**
+     * Returns the metrics as JSON object, e.g. to write them to a log or file and track them over time
+     */
+    public JSONObject toJSON() {
+        JSONObject json = new JSONObject();
+        try {
+            json.put("enabled", mEnabled);
+            json.put("emitLatency", toJSON(mEmitLatency));
+            json.put("payloadSize", toJSON(mPayloadSize));
+            json.put("queueDepth", toJSON(mQueueDepth));
+            json.put("conversionTime", toJSON(mConversionTime));
+            json.put("broadcastLatency", toJSON(mBroadcastLatency));
+            json.put("receiveLatency", toJSON(mReceiveLatency));
+            json.put("callbackRoundTrip", toJSON(mCallbackRoundTrip));
+            json.put("emittedEventCounts", new JSONObject(getEmittedEventCounts()));
+            json.put("receivedEventCounts", new JSONObject(getReceivedEventCounts()));
+        } catch (JSONException e) {
+            // Only thrown for non finite numbers, which are never recorded
+            throw new IllegalStateException(e);
+        }
+        return json;
+    }
+
+    // Helper
+
+    private static void increment(ConcurrentHashMap<String, AtomicLong> counts, String name) {
+        AtomicLong count = counts.get(name);
+        if (count == null) {
+            AtomicLong newCount = new AtomicLong();
+            count = counts.putIfAbsent(name, newCount);
+            if (count == null) {
+                count = newCount;
+            }
+        }
+        count.incrementAndGet();
+    }
+
+    private static Map<String, Long> toCounts(ConcurrentHashMap<String, AtomicLong> counts) {
+        HashMap<String, Long> result = new HashMap<>();
+        for (Map.Entry<String, AtomicLong> entry : counts.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().get());
+        }
+        return result;
+    }
+
+    private static WritableMap toWritableMap(MSREventBridgeHistogram histogram) {
+        WritableMap map = Arguments.createMap();
+        map.putDouble("count", histogram.getCount());
+        map.putDouble("mean", histogram.getMean());
+        map.putDouble("p50", histogram.getPercentile(50));
+        map.putDouble("p90", histogram.getPercentile(90));
+        map.putDouble("p99", histogram.getPercentile(99));
+        map.putDouble("max", histogram.getMax());
+        return map;
+    }
+
+    private static JSONObject toJSON(MSREventBridgeHistogram histogram) throws JSONException {
+        JSONObject json = new JSONObject();
+        json.put("count", histogram.getCount());
+        json.put("mean", histogram.getMean());
+        json.put("p50", histogram.getPercentile(50));
+        json.put("p90", histogram.getPercentile(90));
+        json.put("p99", histogram.getPercentile(99));
+        json.put("max", histogram.getMax());
+        return json;
+    }
+
+    private static WritableMap toWritableMap(ConcurrentHashMap<String, AtomicLong> counts) {
+        WritableMap map = Arguments.createMap();
+        for (Map.Entry<String, AtomicLong> entry : counts.entrySet()) {
+            map.putDouble(entry.getKey(), entry.getValue().get());
+        }
+        return map;
+    }
+
+    /**
+     * Estimates the size of the map if it was serialized. Strings count with their length, numbers with
+     * 8 bytes and everything else with 1 byte.
+     */
+    private static int estimateSize(ReadableMap map) {
+        int size = 0;
+        ReadableMapKeySetIterator iterator = map.keySetIterator();
+        while (iterator.hasNextKey()) {
+            String key = iterator.nextKey();
+            size += key.length();
+            switch (map.getType(key)) {
+                case String:
+                    size += map.getString(key).length();
+                    break;
+                case Number:
+                    size += 8;
+                    break;
+                case Map:
+                    size += estimateSize(map.getMap(key));
+                    break;
+                case Array:
+                    size += estimateSize(map.getArray(key));
+                    break;
+                default:
+                    size += 1;
+                    break;
+            }
+        }
+        return size;
+    }
+
+    private static int estimateSize(ReadableArray array) {
+        int size = 0;
+        for (int i = 0; i < array.size(); i++) {
+            switch (array.getType(i)) {
+                case String:
+                    size += array.getString(i).length();
+                    break;
+                case Number:
+                    size += 8;
+                    break;
+                case Map:
+                    size += estimateSize(array.getMap(i));
+                    break;
+                case Array:
+                    size += estimateSize(array.getArray(i));
+                    break;
+                default:
+                    size += 1;
+                    break;
+            }
+        }
+        return size;
+    }
+}
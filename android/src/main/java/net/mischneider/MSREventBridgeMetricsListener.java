@@ -0,0 +1,32 @@
+package net.mischneider;
+
+/**
+ * Listener for per event timings of the event bridge. Set it via
+ * {@link MSREventBridgeModule#setMetricsListener(MSREventBridgeMetricsListener)}. The listener is called
+ * on the thread the event passes through, so it should return quickly. All times are in nanoseconds.
+ */
+public interface MSREventBridgeMetricsListener {
+    /**
+     * An event was handed to the JS thread. The latency is measured from the emit call, including time
+     * spent in the queue.
+     */
+    void onEventEmitted(String name, int payloadSize, long latencyNanos);
+
+    /**
+     * An event emitted via the LocalBroadcastManager was received by the module. The conversion time
+     * covers converting the info from and to a Bundle, the broadcast time is measured from sending the
+     * broadcast until it was received.
+     */
+    void onEventBroadcast(String name, long conversionNanos, long broadcastNanos);
+
+    /**
+     * An event from React Native was passed to the receiver. The latency is measured from the call of
+     * the native module until the receiver is invoked.
+     */
+    void onEventReceived(String name, long latencyNanos);
+
+    /**
+     * A callback, promise or stream from React Native was completed, failed or timed out
+     */
+    void onCallbackCompleted(String name, long roundTripNanos, boolean timedOut);
+}
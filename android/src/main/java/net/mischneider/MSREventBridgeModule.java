@@ -1,30 +1,40 @@
 package net.mischneider;
 
 import android.app.Activity;
+import android.app.Application;
 import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
 import android.content.IntentFilter;
+import android.os.Build;
 import android.os.Bundle;
 import android.support.annotation.Nullable;
 import android.support.v4.content.LocalBroadcastManager;
+import android.support.v4.util.Pools;
+import android.util.SparseArray;
+import android.util.SparseIntArray;
 import android.view.View;
-import android.view.ViewGroup;
 
 import com.facebook.react.bridge.Arguments;
 import com.facebook.react.bridge.Callback;
+import com.facebook.react.bridge.Promise;
 import com.facebook.react.bridge.ReactApplicationContext;
 import com.facebook.react.bridge.ReactContext;
 import com.facebook.react.bridge.ReactContextBaseJavaModule;
 import com.facebook.react.bridge.ReactMethod;
+import com.facebook.react.bridge.ReadableArray;
 import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableArray;
 import com.facebook.react.bridge.WritableMap;
 import com.facebook.react.modules.core.DeviceEventManagerModule;
+import com.facebook.react.uimanager.IllegalViewOperationException;
 import com.facebook.react.uimanager.NativeViewHierarchyManager;
-import com.facebook.react.uimanager.RootView;
 import com.facebook.react.uimanager.UIBlock;
 import com.facebook.react.uimanager.UIManagerModule;
+import com.facebook.systrace.Systrace;
 
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -37,30 +47,170 @@ public class MSREventBridgeModule extends ReactContextBaseJavaModule implements
 
   // Static Identifier for events that are sent to React Native. These needs to be in sync with iOS!
   private static final String EventBridgeModuleName = "MSREventBridge";
-  private static final String EventBridgeModuleEventName = "MSREventBridgeModuleEvent";
-  private static final String EventBridgeModuleEventReactTagKey = "reactTag";
-  private static final String EventBridgeModuleEventNameKey = "eventName";
-  private static final String EventBridgeModuleEventInfoKey = "info";
+  static final String EventBridgeModuleEventName = "MSREventBridgeModuleEvent";
+  static final String EventBridgeModuleEventReactTagKey = "reactTag";
+  static final String EventBridgeModuleEventReactTagsKey = "reactTags";
+  static final String EventBridgeModuleEventNameKey = "eventName";
+  static final String EventBridgeModuleEventInfoKey = "info";
+  static final String EventBridgeModuleEventBatchKey = "batch";
+  static final String EventBridgeModuleEventSequenceNumberKey = "seq";
+  static final String EventBridgeModuleEventListenerIdKey = "listenerId";
+  // Events with a schema are marked in the body, their info only holds the values under the values key
+  static final String EventBridgeModuleEventHasValuesKey = "hasValues";
+  static final String EventBridgeModuleEventValuesKey = "values";
+
+  // Identifier for chunks of stream requests that are sent to React Native
+  static final String EventBridgeModuleStreamEventName = "MSREventBridgeModuleStreamEvent";
+  static final String EventBridgeModuleStreamEventRequestIdKey = "requestId";
+  static final String EventBridgeModuleStreamEventChunkKey = "chunk";
+  static final String EventBridgeModuleStreamEventDoneKey = "done";
+  static final String EventBridgeModuleStreamEventErrorKey = "error";
+  static final String EventBridgeModuleStreamEventErrorCodeKey = "errorCode";
+
+  // Keys of the result of synchronous queries
+  private static final String EventBridgeModuleQueryValueKey = "value";
+  private static final String EventBridgeModuleQueryErrorKey = "error";
 
   // Passed in react context
   private ReactContext mReactContext;
 
+  // Cached UIManagerModule used to resolve root tags
+  private UIManagerModule mUIManager;
+
+  // Delivers events from React Native on the thread the receiver asked for
+  private final MSREventBridgeReceiverExecutor mReceiverExecutor = new MSREventBridgeReceiverExecutor();
+
+  // Timings, sizes and counts of events, disabled by default
+  private final MSREventBridgeMetrics mMetrics = new MSREventBridgeMetrics();
+
+  // Callbacks from React Native that are in flight
+  private static final long DefaultCallbackTimeout = 30000;
+  private final MSREventBridgeCallbackTracker mCallbackTracker = new MSREventBridgeCallbackTracker(mMetrics);
+  private volatile long mCallbackTimeout = DefaultCallbackTimeout;
+
+  // Maximum number of promise requests in flight per root view
+  private static final int DefaultMaxPendingRequestsPerRoot = 32;
+  private static final String ErrorCodeTooManyRequests = "E_EVENT_TOO_MANY_REQUESTS";
+  private volatile int mMaxPendingRequestsPerRoot = DefaultMaxPendingRequestsPerRoot;
+
+  // Handlers for synchronous queries and the time budget of a query
+  private static final long DefaultQueryTimeout = 16;
+  private final MSREventBridgeQueryRegistry mQueryRegistry = new MSREventBridgeQueryRegistry();
+  private volatile long mQueryTimeout = DefaultQueryTimeout;
+
+  // Sends events to React Native, either right away or batched
+  private final MSREventBridgeEventDispatcher mEventDispatcher;
+
+  // Pooled tasks that deliver events from React Native to receivers
+  private final Pools.SynchronizedPool<DeliveryTask> mDeliveryTaskPool = new Pools.SynchronizedPool<>(16);
+
+  // Root tags and event names React Native is listening for
+  private final MSREventBridgeListenerRegistry mListenerRegistry = new MSREventBridgeListenerRegistry();
+
+  // Responses of receivers for cacheable callback requests
+  private final MSREventBridgeResponseCache mResponseCache = new MSREventBridgeResponseCache();
+
+  // Latest sticky events that are replayed to late listeners
+  private final MSREventBridgeStickyEventCache mStickyEventCache = new MSREventBridgeStickyEventCache();
+
+  // Holds events for root views of stopped activities and detached root views
+  private final MSREventBridgeSuspensionController mSuspensionController;
+
+  // Root views of this React instance by root tag, known once React Native registered a listener within
+  // them. Root tags are only unique within a React instance, so root views are not looked up by tag in
+  // the process wide root view index. Collected root views are enqueued, so their state can be dropped
+  private final SparseArray<RootViewReference> mRootViews = new SparseArray<>();
+  private final ReferenceQueue<View> mCollectedRootViews = new ReferenceQueue<>();
+
+  private static final class RootViewReference extends WeakReference<View> {
+    final int rootTag;
+
+    RootViewReference(View rootView, int rootTag, ReferenceQueue<View> queue) {
+      super(rootView, queue);
+      this.rootTag = rootTag;
+    }
+  }
+
+  // Events of static emit helpers that were buffered before the React context was created. Held until
+  // React Native registers a listener for them, the oldest action is dropped first
+  private static final int MaxPendingActions = 64;
+  private final ArrayList<MSREventBridgeModuleLocator.BufferedAction> mPendingActions = new ArrayList<>();
+
+  // Root views and root tags an event is addressed to. Reused per thread, so emitting an event only
+  // allocates the message that is passed over the bridge
+  private static final ThreadLocal<EmitBuffer> sEmitBuffer = new ThreadLocal<EmitBuffer>() {
+    @Override
+    protected EmitBuffer initialValue() {
+      return new EmitBuffer();
+    }
+  };
+
+  private static final class EmitBuffer {
+    final ArrayList<View> rootViews = new ArrayList<>();
+    int[] rootTags = new int[16];
+
+    int[] ensureCapacity(int capacity) {
+      if (rootTags.length < capacity) {
+        rootTags = new int[Math.max(capacity, rootTags.length * 2)];
+      }
+      return rootTags;
+    }
+  }
+
   // LocalBroadcastReceiver
 
   // Used for internal communication between the module and the LocalBroadcastReceiver
   private static final String EventBridgeModuleIntentEventName = "EventBridgeModuleIntentEventName";
   private static final String EventBridgeModuleIntentEventDataKey = "EventBridgeModuleIntentEventDataKey";
+  private static final String EventBridgeModuleIntentEventPriorityKey = "EventBridgeModuleIntentEventPriorityKey";
+  private static final String EventBridgeModuleIntentEventTimeKey = "EventBridgeModuleIntentEventTimeKey";
+  private static final String EventBridgeModuleIntentEventConversionTimeKey = "EventBridgeModuleIntentEventConversionTimeKey";
 
   /**
-   * Private class used to dispatch events to React Native
+   * Private class used to dispatch events to React Native that were posted via the static
+   * emitEventContext entry point. Events emitted via a module instance don't go through the
+   * LocalBroadcastManager but are dispatched directly, see MSREventBridgeEventDispatcher.
    */
   private LocalBroadcastReceiver mLocalBroadcastReceiver;
   private class LocalBroadcastReceiver extends BroadcastReceiver {
     @Override
     public void onReceive(Context context, Intent intent) {
       Bundle data = intent.getBundleExtra(EventBridgeModuleIntentEventDataKey);
-      mReactContext.getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class)
-              .emit(EventBridgeModuleEventName, Arguments.fromBundle(data));
+      String name = data.getString(EventBridgeModuleEventNameKey);
+      if (mStickyEventCache.isSticky(name)) {
+        double[] values = data.getDoubleArray(EventBridgeModuleEventValuesKey);
+        mStickyEventCache.put(
+                name,
+                MSREventBridgeStickyEventCache.AllRootTags,
+                values != null
+                        ? Arguments.toBundle(MSREventBridgeEventSchema.encodeValues(values))
+                        : data.getBundle(EventBridgeModuleEventInfoKey),
+                values != null);
+      }
+      if (!mListenerRegistry.hasListener(name)) {
+        return;
+      }
+
+      Systrace.beginSection(Systrace.TRACE_TAG_REACT_JAVA_BRIDGE, "MSREventBridgeModule.onReceive");
+      try {
+        long receiveTime = mMetrics.startTime();
+        // Values of events with a schema are passed as primitive array, so they don't need to be boxed
+        Bundle info = data.getBundle(EventBridgeModuleEventInfoKey);
+        double[] values = data.getDoubleArray(EventBridgeModuleEventValuesKey);
+        WritableMap infoMap = values != null
+                ? MSREventBridgeEventSchema.encodeValues(values)
+                : info != null ? Arguments.fromBundle(info) : null;
+        if (receiveTime != 0) {
+          long conversionTime = data.getLong(EventBridgeModuleIntentEventConversionTimeKey) + System.nanoTime() - receiveTime;
+          mMetrics.recordBroadcast(name, conversionTime, receiveTime - data.getLong(EventBridgeModuleIntentEventTimeKey));
+        }
+
+        MSREventBridgeEventPriority priority =
+                MSREventBridgeEventPriority.fromName(data.getString(EventBridgeModuleIntentEventPriorityKey));
+        dispatchToAll(name, infoMap, values != null, priority);
+      } finally {
+        Systrace.endSection(Systrace.TRACE_TAG_REACT_JAVA_BRIDGE);
+      }
     }
   }
 
@@ -69,9 +219,22 @@ public class MSREventBridgeModule extends ReactContextBaseJavaModule implements
     super(reactContext);
 
     this.mReactContext = reactContext;
+    this.mEventDispatcher = new MSREventBridgeEventDispatcher(reactContext, mMetrics);
+    this.mSuspensionController = new MSREventBridgeSuspensionController(
+            mEventDispatcher,
+            new MSREventBridgeSuspensionController.OnRootViewRemovedListener() {
+              @Override
+              public void onRootViewRemoved(int rootTag) {
+                removeRootView(rootTag);
+              }
+            });
+    if (reactContext.getApplicationContext() instanceof Application) {
+      ((Application) reactContext.getApplicationContext()).registerActivityLifecycleCallbacks(mSuspensionController);
+    }
     this.mLocalBroadcastReceiver = new LocalBroadcastReceiver();
     LocalBroadcastManager localBroadcastManager = LocalBroadcastManager.getInstance(reactContext);
     localBroadcastManager.registerReceiver(mLocalBroadcastReceiver, new IntentFilter(EventBridgeModuleIntentEventName));
+    MSREventBridgeEventHub.getInstance().addModule(this);
   }
 
   // Name of the native module
@@ -86,8 +249,22 @@ public class MSREventBridgeModule extends ReactContextBaseJavaModule implements
     final Map<String, Object> constants = new HashMap<>();
     constants.put("EventName", EventBridgeModuleEventName);
     constants.put("EventReactTagKey", EventBridgeModuleEventReactTagKey);
+    constants.put("EventReactTagsKey", EventBridgeModuleEventReactTagsKey);
     constants.put("EventNameKey", EventBridgeModuleEventNameKey);
     constants.put("EventInfoKey", EventBridgeModuleEventInfoKey);
+    constants.put("EventBatchKey", EventBridgeModuleEventBatchKey);
+    constants.put("EventSequenceNumberKey", EventBridgeModuleEventSequenceNumberKey);
+    constants.put("EventListenerIdKey", EventBridgeModuleEventListenerIdKey);
+    constants.put("EventHasValuesKey", EventBridgeModuleEventHasValuesKey);
+    constants.put("EventValuesKey", EventBridgeModuleEventValuesKey);
+    constants.put("StreamEventName", EventBridgeModuleStreamEventName);
+    constants.put("StreamEventRequestIdKey", EventBridgeModuleStreamEventRequestIdKey);
+    constants.put("StreamEventChunkKey", EventBridgeModuleStreamEventChunkKey);
+    constants.put("StreamEventDoneKey", EventBridgeModuleStreamEventDoneKey);
+    constants.put("StreamEventErrorKey", EventBridgeModuleStreamEventErrorKey);
+    constants.put("StreamEventErrorCodeKey", EventBridgeModuleStreamEventErrorCodeKey);
+    constants.put("QueryValueKey", EventBridgeModuleQueryValueKey);
+    constants.put("QueryErrorKey", EventBridgeModuleQueryErrorKey);
     return constants;
   }
 
@@ -97,196 +274,1343 @@ public class MSREventBridgeModule extends ReactContextBaseJavaModule implements
       super.onCatalystInstanceDestroy();
       LocalBroadcastManager localBroadcastManager = LocalBroadcastManager.getInstance(mReactContext);
       localBroadcastManager.unregisterReceiver(mLocalBroadcastReceiver);
+      mListenerRegistry.clear();
+      synchronized (mRootViews) {
+        mRootViews.clear();
+      }
+      synchronized (mPendingActions) {
+        mPendingActions.clear();
+      }
+      mStickyEventCache.clear();
+      mResponseCache.clear();
+      mQueryRegistry.clear();
+      mSuspensionController.clear();
+      if (mReactContext.getApplicationContext() instanceof Application) {
+        ((Application) mReactContext.getApplicationContext()).unregisterActivityLifecycleCallbacks(mSuspensionController);
+      }
+      mEventDispatcher.clear();
+      mReceiverExecutor.clear();
+      mCallbackTracker.rejectAll("React instance was destroyed");
+      MSREventBridgeModuleLocator.getInstance().removeModule(this);
+      MSREventBridgeEventHub.getInstance().removeModule(this);
+  }
+
+  // Listener Registration
+
+  /**
+   * React Native registered the first listener for the event name within the root tag
+   */
+  @ReactMethod
+  public void addListenerForTag(final int rootTag, final String name) {
+    if (mListenerRegistry.addListener(rootTag, name)) {
+      registerRootView(rootTag);
+    }
   }
 
   /**
-   * Event received from React Native
+   * React Native added a listener for the event name within the root tag, called right after
+   * addListenerForTag. Sticky events that were emitted before are replayed to this listener only, the
+   * other listeners received them already. Buffered events for the event name are emitted afterwards,
+   * so the listener receives them once
    */
   @ReactMethod
-  public void onEvent(final int reactTag, final String name, final ReadableMap info) {
-    final UIManagerModule uiManager = getReactApplicationContext().getNativeModule(UIManagerModule.class);
-    final int rootTag = uiManager.resolveRootTagFromReactTag(reactTag);
-    uiManager.addUIBlock(new UIBlock() {
+  public void replayEventsForListener(final int rootTag, final String name, final int listenerId) {
+    if (getRootView(rootTag) != null) {
+      replayEvents(rootTag, name, listenerId);
+      return;
+    }
+
+    // Sticky events for a root view that is not known yet are taken over once it's registered, which
+    // happens in the UIBlock that addListenerForTag added before
+    getUIManager().addUIBlock(new UIBlock() {
       @Override
       public void execute(NativeViewHierarchyManager nativeViewHierarchyManager) {
-        View view = nativeViewHierarchyManager.resolveView(rootTag);
-        if (view instanceof MSREventBridgeEventReceiver) {
-          MSREventBridgeEventReceiver receiver = (MSREventBridgeEventReceiver) view;
-          receiver.onEvent(name, info);
-          return;
+        replayEvents(rootTag, name, listenerId);
+      }
+    });
+  }
+
+  private void replayEvents(int rootTag, String name, int listenerId) {
+    List<MSREventBridgeStickyEventCache.Entry> entries = mStickyEventCache.get(rootTag, name);
+    for (MSREventBridgeStickyEventCache.Entry entry : entries) {
+      WritableMap info = entry.info != null ? Arguments.fromBundle(entry.info) : null;
+      mEventDispatcher.dispatchToListener(entry.name, info, entry.hasValues, rootTag, listenerId);
+    }
+
+    runPendingActions();
+  }
+
+  /**
+   * Runs the buffered action right away if React Native listens for its event name, otherwise once it
+   * registers a listener for it
+   */
+  void runWhenListening(MSREventBridgeModuleLocator.BufferedAction action) {
+    synchronized (mPendingActions) {
+      if (!mListenerRegistry.hasListener(action.name)) {
+        if (mPendingActions.size() >= MaxPendingActions) {
+          mPendingActions.remove(0);
         }
+        mPendingActions.add(action);
+        return;
+      }
+    }
+    action.action.run(this);
+  }
 
-        Context context = view.getContext();
-        if (context instanceof MSREventBridgeEventReceiver) {
-          MSREventBridgeEventReceiver receiver = (MSREventBridgeEventReceiver)context;
-          receiver.onEvent(name, info);
+  private void runPendingActions() {
+    ArrayList<MSREventBridgeModuleLocator.BufferedAction> actions = null;
+    synchronized (mPendingActions) {
+      for (int i = 0; i < mPendingActions.size(); i++) {
+        if (mListenerRegistry.hasListener(mPendingActions.get(i).name)) {
+          if (actions == null) {
+            actions = new ArrayList<>();
+          }
+          actions.add(mPendingActions.remove(i--));
         }
       }
-    });
+    }
+
+    if (actions != null) {
+      for (MSREventBridgeModuleLocator.BufferedAction action : actions) {
+        action.action.run(this);
+      }
+    }
   }
 
   /**
-   * Event received from React Native. The callback must be called.
+   * Let the event hub know that this React instance owns the root view, so events for the root view or
+   * its activity are routed to this instance only. The root view is suspended while it's detached or
+   * its activity is stopped
    */
-  @ReactMethod
-  public void onEventCallback(final int reactTag, final String name, final ReadableMap info, final Callback callback) {
-    final UIManagerModule uiManager = getReactApplicationContext().getNativeModule(UIManagerModule.class);
-    final int rootTag = uiManager.resolveRootTagFromReactTag(reactTag);
-    uiManager.addUIBlock(new UIBlock() {
+  private void registerRootView(final int rootTag) {
+    getUIManager().addUIBlock(new UIBlock() {
       @Override
       public void execute(NativeViewHierarchyManager nativeViewHierarchyManager) {
-        View view = nativeViewHierarchyManager.resolveView(rootTag);
-
-        MSREventBridgeEventReceiver receiver = null;
-        if (view instanceof MSREventBridgeEventReceiver) {
-          receiver = (MSREventBridgeEventReceiver) view;
-        } else if (view.getContext() instanceof MSREventBridgeEventReceiver) {
-          receiver = (MSREventBridgeEventReceiver) view.getContext();
-        } else {
+        // The root view can be gone already, e.g. if it was unmounted right after the listener was added
+        View rootView = resolveView(nativeViewHierarchyManager, rootTag);
+        if (rootView == null) {
           return;
         }
 
-        receiver.onEventCallback(name, info, new MSREventBridgeReceiverCallback() {
-          @Override
-          public void onSuccess(Object data) {
-            callback.invoke(null, data);
-          }
-
-          @Override
-          public void onFailure(Object data) {
-            callback.invoke(data, null);
-          }
-        });
+        removeCollectedRootViews();
+        synchronized (mRootViews) {
+          mRootViews.put(rootTag, new RootViewReference(rootView, rootTag, mCollectedRootViews));
+        }
+        mStickyEventCache.addRootView(rootView, rootTag);
+        MSREventBridgeRootViewIndex.getInstance().addRootView(rootView);
+        MSREventBridgeEventHub.getInstance().addRootView(rootView, MSREventBridgeModule.this);
+        mSuspensionController.addRootView(rootTag, rootView);
       }
     });
   }
 
-  // Emit Events
+  /**
+   * The root view with the root tag is gone, drops the state that is kept for it
+   */
+  private void removeRootView(int rootTag) {
+    synchronized (mRootViews) {
+      mRootViews.remove(rootTag);
+    }
+    mStickyEventCache.removeRootTag(rootTag);
+    mSuspensionController.removeRootTag(rootTag);
+  }
 
   /**
-   * Post an event to all event subscriber for the given name
-   * Example: MSREventBridgeModule.emitEventContext(getApplicationContext(), "eventName", data);
+   * Drops the state of root views that were garbage collected
    */
-  static public void emitEventContext(Context context, final String name, @Nullable WritableMap info) {
-    Bundle bundle = new Bundle();
-    bundle.putString(EventBridgeModuleEventNameKey, name);
-    if (info != null) {
-      bundle.putBundle(EventBridgeModuleEventInfoKey, Arguments.toBundle(info));
+  private void removeCollectedRootViews() {
+    RootViewReference reference;
+    while ((reference = (RootViewReference) mCollectedRootViews.poll()) != null) {
+      synchronized (mRootViews) {
+        if (mRootViews.get(reference.rootTag) != reference) {
+          continue;
+        }
+        mRootViews.remove(reference.rootTag);
+      }
+      mStickyEventCache.removeRootTag(reference.rootTag);
     }
+  }
 
-    LocalBroadcastManager localBroadcastManager = LocalBroadcastManager.getInstance(context);
-    Intent customEvent= new Intent(EventBridgeModuleIntentEventName);
-    customEvent.putExtra(EventBridgeModuleIntentEventDataKey, bundle);
-    localBroadcastManager.sendBroadcast(customEvent);
+  /**
+   * React Native removed the last listener for the event name within the root tag
+   */
+  @ReactMethod
+  public void removeListenerForTag(final int rootTag, final String name) {
+    mListenerRegistry.removeListener(rootTag, name);
+
+    // React Native drops its subscription with the last listener, so events in flight are not
+    // acknowledged anymore
+    if (mListenerRegistry.isEmpty()) {
+      mEventDispatcher.reset();
+    }
   }
 
   /**
-   * Post an event to all event subscriber for the given name
-   * Uses emitEventContext and passes in the result of getReactApplicationContext()
+   * Event received from React Native
    */
-  public void emitEvent(final String name, @Nullable WritableMap info) {
-    emitEventContext(getReactApplicationContext(), name, info);
+  @ReactMethod
+  public void onEvent(final int reactTag, final String name, final ReadableMap info) {
+    onEventWithPriority(reactTag, name, info, MSREventBridgeEventPriority.NORMAL);
   }
 
   /**
-   * Emits and event to a an event subscriber within a component that lifes within the components tree
-   * managed by the passed activity
-   * Example: EventBridgeModule.emitEventForActivity(this, (MSREventBridgeInstanceManagerProvider)this.getContext(), "eventName", data);
+   * Event received from React Native with a priority of "high", "normal" or "low". High priority
+   * events are delivered ahead of queued events, low priority events once the main thread is idle
    */
-  static public void emitEventForActivity(Activity activity, MSREventBridgeInstanceManagerProvider instanceManagerProvider, final String name, @Nullable WritableMap info) {
-    final MSREventBridgeModule module = MSREventBridgeModule.getEventBridgeModule(instanceManagerProvider);
-    module.emitEventForActivity(activity, name, info);
+  @ReactMethod
+  public void onEventWithPriority(final int reactTag, final String name, final ReadableMap info, final String priority) {
+    onEventWithPriority(reactTag, name, info, MSREventBridgeEventPriority.fromName(priority));
+  }
+
+  private void onEventWithPriority(int reactTag, String name, ReadableMap info, MSREventBridgeEventPriority priority) {
+    deliverEvent(reactTag, name, OnEventDelivery.obtain(name, info, priority));
   }
 
   /**
-   * Emits and event to a an event subscriber within a component that lifes within the components tree
-   * managed by the passed activity
-   * Example: EventBridgeModule.emitEventForActivity(this, "eventName", data);
+   * Events React Native emitted within a frame. The events are grouped by root view, every root view is
+   * resolved once and all root views that are not known yet are resolved in one UIBlock.
+   * Receivers that implement {@link MSREventBridgeBatchEventReceiver} get the events of their root view
+   * as one batch.
    */
-  public void emitEventForActivity(Activity activity, final String name, @Nullable WritableMap info)  {
+  @ReactMethod
+  public void onEventBatch(final ReadableArray reactTags, final ReadableArray names, final ReadableArray infos) {
+    // Group the events by root tag, keeping their order
+    final ArrayList<EventBatchDelivery> batches = new ArrayList<>();
+    SparseArray<EventBatchDelivery> batchesByRootTag = new SparseArray<>();
+    SparseIntArray rootTagsByReactTag = new SparseIntArray();
+    for (int i = 0; i < reactTags.size(); i++) {
+      int reactTag = reactTags.getInt(i);
+      int rootTag = rootTagsByReactTag.get(reactTag, -1);
+      if (rootTag == -1) {
+        rootTag = getUIManager().resolveRootTagFromReactTag(reactTag);
+        rootTagsByReactTag.put(reactTag, rootTag);
+      }
+
+      EventBatchDelivery batch = batchesByRootTag.get(rootTag);
+      if (batch == null) {
+        batch = new EventBatchDelivery(rootTag);
+        batchesByRootTag.put(rootTag, batch);
+        batches.add(batch);
+      }
+      batch.add(names.getString(i), infos.isNull(i) ? null : infos.getMap(i));
+    }
+
+    final ArrayList<EventBatchDelivery> unresolvedBatches = new ArrayList<>();
+    for (EventBatchDelivery batch : batches) {
+      View rootView = getRootView(batch.mRootTag);
+      if (rootView != null) {
+        deliverEventBatch(rootView, batch);
+      } else {
+        unresolvedBatches.add(batch);
+      }
+    }
+    if (unresolvedBatches.isEmpty()) {
+      return;
+    }
+
+    getUIManager().addUIBlock(new UIBlock() {
+      @Override
+      public void execute(NativeViewHierarchyManager nativeViewHierarchyManager) {
+        for (EventBatchDelivery batch : unresolvedBatches) {
+          deliverEventBatch(resolveView(nativeViewHierarchyManager, batch.mRootTag), batch);
+        }
+      }
+    });
+  }
+
+  private void deliverEventBatch(@Nullable View rootView, EventBatchDelivery batch) {
+    MSREventBridgeEventReceiver receiver = getEventReceiver(rootView);
+    if (receiver == null) {
+      return;
+    }
+
+    if (receiver instanceof MSREventBridgeBatchEventReceiver) {
+      obtainDeliveryTask(batch.mRootTag, batch.mNames.get(0), batch).executeDelivery(receiver);
+      return;
+    }
 
-    List<View> rootViews = new ArrayList<>();
-    findAllReactRootView(activity.findViewById(android.R.id.content),rootViews);
+    for (int i = 0; i < batch.mNames.size(); i++) {
+      String name = batch.mNames.get(i);
+      OnEventDelivery delivery = OnEventDelivery.obtain(name, batch.mInfos.get(i), MSREventBridgeEventPriority.NORMAL);
+      obtainDeliveryTask(batch.mRootTag, name, delivery).executeDelivery(receiver);
+    }
+  }
+
+  /**
+   * Event received from React Native. The callback must be called.
+   */
+  @ReactMethod
+  public void onEventCallback(final int reactTag, final String name, final ReadableMap info, final Callback callback) {
+    // The callback is tracked so it's released even if the receiver never calls it
+    final MSREventBridgeCallbackTracker.PendingCallback pendingCallback =
+            mCallbackTracker.track(name, MSREventBridgeCallbackTracker.forCallback(callback), mCallbackTimeout);
+    final int rootTag = getUIManager().resolveRootTagFromReactTag(reactTag);
+    if (!mResponseCache.isCacheable(name)) {
+      deliverEventCallback(rootTag, name, info, pendingCallback);
+      return;
+    }
 
-    //View reactRootView = findReactRootView(activity.findViewById(android.R.id.content));
-    if (rootViews.size() == 0) {
+    // Serve the request from the cache or wait for an identical request in flight
+    final MSREventBridgeReceiverCallback receiverCallback = mResponseCache.request(rootTag, name, info, pendingCallback);
+    if (receiverCallback == null) {
       return;
     }
 
-    // React tag is the identifier to be able to detect in ReactNativewhich component should receive
-    // the event
+    // Identical requests stop waiting for this one once it timed out or was rejected
+    pendingCallback.setOnAbandonListener(new Runnable() {
+      @Override
+      public void run() {
+        mResponseCache.abandon(receiverCallback);
+      }
+    });
+    deliverEventCallback(rootTag, name, info, receiverCallback);
+  }
+
+  private void deliverEventCallback(int rootTag, final String name, final ReadableMap info, final MSREventBridgeReceiverCallback callback) {
+    deliverEventToRoot(rootTag, name, new EventDelivery() {
+      @Override
+      public void deliver(MSREventBridgeEventReceiver receiver) {
+        receiver.onEventCallback(name, info, callback);
+      }
+
+      @Override
+      public void onReceiverNotFound() {
+        callback.onFailure("No receiver found for event: " + name);
+      }
+    });
+  }
+
+  /**
+   * Request received from React Native. The receiver gets the request via onEventCallback with a
+   * {@link MSREventBridgeCancellableCallback}, that is cancelled if React Native cancels the request
+   * with the given request id. The callback must be called.
+   */
+  @ReactMethod
+  public void onEventPromise(final int reactTag, final int requestId, final String name, final ReadableMap info, final Promise promise) {
+    final int rootTag = getUIManager().resolveRootTagFromReactTag(reactTag);
+    final MSREventBridgeCallbackTracker.PendingCallback pendingCallback =
+            mCallbackTracker.trackRequest(
+                    rootTag,
+                    requestId,
+                    name,
+                    MSREventBridgeCallbackTracker.forPromise(promise),
+                    mCallbackTimeout,
+                    mMaxPendingRequestsPerRoot);
+    if (pendingCallback == null) {
+      promise.reject(ErrorCodeTooManyRequests, "Too many requests in flight for event: " + name);
+      return;
+    }
 
-    for (View rootView : rootViews){
-      final int reactTag = rootView.getId();
+    deliverEventToRoot(rootTag, name, new EventDelivery() {
+      @Override
+      public void deliver(MSREventBridgeEventReceiver receiver) {
+        // Skip the receiver if the request was cancelled while waiting for delivery
+        if (!pendingCallback.isCancelled()) {
+          receiver.onEventCallback(name, info, pendingCallback);
+        }
+      }
 
-      Bundle bundle = new Bundle();
-      bundle.putInt(EventBridgeModuleEventReactTagKey, reactTag);
-      bundle.putString(EventBridgeModuleEventNameKey, name);
-      if (info != null) {
-        bundle.putBundle(EventBridgeModuleEventInfoKey, Arguments.toBundle(info));
+      @Override
+      public void onReceiverNotFound() {
+        pendingCallback.onFailure("No receiver found for event: " + name);
       }
+    });
+  }
 
-      LocalBroadcastManager localBroadcastManager = LocalBroadcastManager.getInstance(activity);
-      Intent customEvent= new Intent(EventBridgeModuleIntentEventName);
-      customEvent.putExtra(EventBridgeModuleIntentEventDataKey, bundle);
-      localBroadcastManager.sendBroadcast(customEvent);
+  /**
+   * Stream request received from React Native. The receiver gets the request via onEventCallback with a
+   * {@link MSREventBridgeStreamingCallback}. Every chunk passed to onNext is sent to React Native right
+   * away as stream event. The stream must be finished with onComplete, onSuccess or onFailure.
+   */
+  @ReactMethod
+  public void onEventStream(final int reactTag, final int requestId, final String name, final ReadableMap info) {
+    final int rootTag = getUIManager().resolveRootTagFromReactTag(reactTag);
+    final StreamEventCompletion completion = new StreamEventCompletion(requestId);
+    final MSREventBridgeCallbackTracker.PendingStream pendingStream =
+            mCallbackTracker.trackStream(
+                    rootTag,
+                    requestId,
+                    name,
+                    completion,
+                    mCallbackTimeout,
+                    mMaxPendingRequestsPerRoot);
+    if (pendingStream == null) {
+      completion.reject(ErrorCodeTooManyRequests, "Too many requests in flight for event: " + name);
+      return;
     }
 
+    deliverEventToRoot(rootTag, name, new EventDelivery() {
+      @Override
+      public void deliver(MSREventBridgeEventReceiver receiver) {
+        // Skip the receiver if the request was cancelled while waiting for delivery
+        if (!pendingStream.isCancelled()) {
+          receiver.onEventCallback(name, info, pendingStream);
+        }
+      }
 
+      @Override
+      public void onReceiverNotFound() {
+        pendingStream.onFailure("No receiver found for event: " + name);
+      }
+    });
   }
 
-  private View findReactRootView(View view) {
-    if (view instanceof RootView) {
-      return view;
+  /**
+   * Sends the chunks and the result of a stream request to React Native as stream events
+   */
+  private class StreamEventCompletion implements MSREventBridgeCallbackTracker.StreamCompletion {
+    private final int mRequestId;
+
+    StreamEventCompletion(int requestId) {
+      mRequestId = requestId;
     }
 
-    if (!(view instanceof ViewGroup)) {
-      return null;
+    @Override
+    public void next(Object chunk) {
+      WritableMap body = createStreamEventBody();
+      putValue(body, EventBridgeModuleStreamEventChunkKey, chunk);
+      emitStreamEvent(body);
     }
 
-    View reactRootView = null;
-    ViewGroup viewGroup = (ViewGroup) view;
-    for (int i = 0; i < viewGroup.getChildCount(); i++) {
-      reactRootView = findReactRootView(viewGroup.getChildAt(i));
-      if (reactRootView != null) {
-        break;
+    @Override
+    public void resolve(@Nullable Object data) {
+      WritableMap body = createStreamEventBody();
+      if (data != null) {
+        putValue(body, EventBridgeModuleStreamEventChunkKey, data);
       }
+      body.putBoolean(EventBridgeModuleStreamEventDoneKey, true);
+      emitStreamEvent(body);
+    }
+
+    @Override
+    public void reject(String code, Object error) {
+      WritableMap body = createStreamEventBody();
+      body.putString(EventBridgeModuleStreamEventErrorCodeKey, code);
+      body.putString(EventBridgeModuleStreamEventErrorKey, String.valueOf(error));
+      emitStreamEvent(body);
+    }
+
+    private WritableMap createStreamEventBody() {
+      WritableMap body = Arguments.createMap();
+      body.putInt(EventBridgeModuleStreamEventRequestIdKey, mRequestId);
+      return body;
     }
 
-    return reactRootView;
+    private void emitStreamEvent(WritableMap body) {
+      if (!mReactContext.hasActiveCatalystInstance()) {
+        return;
+      }
+
+      mReactContext.getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class)
+              .emit(EventBridgeModuleStreamEventName, body);
+    }
   }
 
+  /**
+   * React Native cancelled the request with the given request id
+   */
+  @ReactMethod
+  public void cancelRequest(final int requestId) {
+    mCallbackTracker.cancelRequest(requestId);
+  }
 
-  private void findAllReactRootView(View view,List<View> rootViews) {
-    if (view instanceof RootView) {
-      rootViews.add(view);
-      return ;
+  /**
+   * Synchronous query from React Native. The JavaScript thread is blocked until the handler registered
+   * for the name returns or the time budget is exceeded. The handler is called without a hop to the
+   * main thread. Returns the value or the error of the query
+   */
+  @ReactMethod(isBlockingSynchronousMethod = true)
+  public WritableMap query(final String name, @Nullable final ReadableMap info) {
+    WritableMap result = Arguments.createMap();
+    try {
+      putValue(result, EventBridgeModuleQueryValueKey, mQueryRegistry.query(name, info, mQueryTimeout));
+    } catch (MSREventBridgeQueryRegistry.QueryException | IllegalArgumentException e) {
+      result.putString(EventBridgeModuleQueryErrorKey, e.getMessage());
     }
+    return result;
+  }
+
+  /**
+   * React Native processed all events up to the given sequence number
+   */
+  @ReactMethod
+  public void acknowledgeEvents(final double sequenceNumber) {
+    mEventDispatcher.acknowledge((long) sequenceNumber);
+  }
+
+  /**
+   * Delivers an event from React Native to the receiver of the root view
+   */
+  private static abstract class EventDelivery {
+    abstract void deliver(MSREventBridgeEventReceiver receiver);
 
-    if (!(view instanceof ViewGroup)) {
-      return ;
+    /**
+     * Called if the root view has no receiver
+     */
+    void onReceiverNotFound() {}
+
+    MSREventBridgeEventPriority getPriority() {
+      return MSREventBridgeEventPriority.NORMAL;
     }
 
-    View reactRootView = null;
-    ViewGroup viewGroup = (ViewGroup) view;
-    for (int i = 0; i < viewGroup.getChildCount(); i++) {
-      findAllReactRootView(viewGroup.getChildAt(i),rootViews);
-      if (reactRootView != null) {
-        break;
+    /**
+     * Called once the event was delivered or no receiver was found
+     */
+    void recycle() {}
+  }
+
+  /**
+   * Delivers an event without callback. Deliveries are pooled, as these events can be sent at a high rate
+   */
+  private static final class OnEventDelivery extends EventDelivery {
+    private static final Pools.SynchronizedPool<OnEventDelivery> sPool = new Pools.SynchronizedPool<>(16);
+
+    private String mName;
+    private ReadableMap mInfo;
+    private MSREventBridgeEventPriority mPriority;
+
+    static OnEventDelivery obtain(String name, ReadableMap info, MSREventBridgeEventPriority priority) {
+      OnEventDelivery delivery = sPool.acquire();
+      if (delivery == null) {
+        delivery = new OnEventDelivery();
       }
+      delivery.mName = name;
+      delivery.mInfo = info;
+      delivery.mPriority = priority;
+      return delivery;
+    }
+
+    @Override
+    void deliver(MSREventBridgeEventReceiver receiver) {
+      receiver.onEvent(mName, mInfo);
+    }
+
+    @Override
+    MSREventBridgeEventPriority getPriority() {
+      return mPriority;
+    }
+
+    @Override
+    void recycle() {
+      mName = null;
+      mInfo = null;
+      mPriority = null;
+      sPool.release(this);
     }
   }
 
-  // Helper methods
+  /**
+   * Delivers the events of a batch for one root view to a {@link MSREventBridgeBatchEventReceiver}
+   */
+  private static final class EventBatchDelivery extends EventDelivery {
+    private final int mRootTag;
+    private final ArrayList<String> mNames = new ArrayList<>();
+    private final ArrayList<ReadableMap> mInfos = new ArrayList<>();
+
+    EventBatchDelivery(int rootTag) {
+      mRootTag = rootTag;
+    }
+
+    void add(String name, @Nullable ReadableMap info) {
+      mNames.add(name);
+      mInfos.add(info);
+    }
+
+    @Override
+    void deliver(MSREventBridgeEventReceiver receiver) {
+      ((MSREventBridgeBatchEventReceiver) receiver).onEventBatch(mNames, mInfos);
+    }
+  }
+
+  /**
+   * Resolves the receiver of the root view in an UIBlock, if needed, and runs the delivery on the thread
+   * the receiver asked for. Tasks are pooled, so delivering an event doesn't allocate a block and a
+   * runnable every time
+   */
+  private final class DeliveryTask implements UIBlock, Runnable {
+    private int mRootTag;
+    private String mName;
+    private EventDelivery mDelivery;
+    private long mStartTime;
+    private MSREventBridgeEventReceiver mReceiver;
+
+    @Override
+    public void execute(NativeViewHierarchyManager nativeViewHierarchyManager) {
+      View view = resolveView(nativeViewHierarchyManager, mRootTag);
+      MSREventBridgeEventReceiver receiver = getEventReceiver(view);
+      if (receiver != null) {
+        executeDelivery(receiver);
+      } else {
+        onReceiverNotFound();
+      }
+    }
+
+    void executeDelivery(MSREventBridgeEventReceiver receiver) {
+      mReceiver = receiver;
+      MSREventBridgeReceiverThread thread = MSREventBridgeReceiverExecutor.getReceiverThread(receiver, mName);
+      mReceiverExecutor.execute(mRootTag, thread, mDelivery.getPriority(), this);
+    }
+
+    void onReceiverNotFound() {
+      EventDelivery delivery = mDelivery;
+      recycle();
+      delivery.onReceiverNotFound();
+      delivery.recycle();
+    }
+
+    @Override
+    public void run() {
+      // Take the state out before recycling, as the task can be reused while the receiver is called
+      String name = mName;
+      EventDelivery delivery = mDelivery;
+      MSREventBridgeEventReceiver receiver = mReceiver;
+      long startTime = mStartTime;
+      recycle();
+
+      mMetrics.recordReceived(name, startTime);
+      Systrace.beginSection(Systrace.TRACE_TAG_REACT_JAVA_BRIDGE, "MSREventBridgeModule.deliver");
+      try {
+        delivery.deliver(receiver);
+      } finally {
+        Systrace.endSection(Systrace.TRACE_TAG_REACT_JAVA_BRIDGE);
+        delivery.recycle();
+      }
+    }
+
+    private void recycle() {
+      mName = null;
+      mDelivery = null;
+      mReceiver = null;
+      mDeliveryTaskPool.release(this);
+    }
+  }
+
+  private DeliveryTask obtainDeliveryTask(int rootTag, String name, EventDelivery delivery) {
+    DeliveryTask task = mDeliveryTaskPool.acquire();
+    if (task == null) {
+      task = new DeliveryTask();
+    }
+    task.mRootTag = rootTag;
+    task.mName = name;
+    task.mDelivery = delivery;
+    task.mStartTime = mMetrics.startTime();
+    return task;
+  }
+
+  /**
+   * Resolves the receiver for the react tag and passes it to the delivery on the thread the receiver
+   * asked for, the main thread by default. Root views this module already resolved, as a listener was
+   * registered within them, are looked up directly and the event is delivered without waiting for the
+   * next UI batch. Any other root view is resolved in an UIBlock.
+   */
+  private void deliverEvent(int reactTag, String name, EventDelivery delivery) {
+    deliverEventToRoot(getUIManager().resolveRootTagFromReactTag(reactTag), name, delivery);
+  }
+
+  private void deliverEventToRoot(int rootTag, String name, EventDelivery delivery) {
+    DeliveryTask task = obtainDeliveryTask(rootTag, name, delivery);
+
+    View rootView = getRootView(rootTag);
+    if (rootView == null) {
+      getUIManager().addUIBlock(task);
+      return;
+    }
+
+    MSREventBridgeEventReceiver receiver = getEventReceiver(rootView);
+    if (receiver != null) {
+      task.executeDelivery(receiver);
+    } else {
+      task.onReceiverNotFound();
+    }
+  }
+
+  /**
+   * Returns the root view of this React instance with the given root tag, or null if it's not known yet
+   * and needs to be resolved in a UIBlock
+   */
+  @Nullable
+  private View getRootView(int rootTag) {
+    synchronized (mRootViews) {
+      RootViewReference rootView = mRootViews.get(rootTag);
+      return rootView != null ? rootView.get() : null;
+    }
+  }
+
+  /**
+   * Returns the receiver for events of the root view. That's either the root view itself or its context
+   */
+  @Nullable
+  private static MSREventBridgeEventReceiver getEventReceiver(@Nullable View rootView) {
+    if (rootView instanceof MSREventBridgeEventReceiver) {
+      return (MSREventBridgeEventReceiver) rootView;
+    }
+    if (rootView != null && rootView.getContext() instanceof MSREventBridgeEventReceiver) {
+      return (MSREventBridgeEventReceiver) rootView.getContext();
+    }
+    return null;
+  }
+
+  /**
+   * Returns the view with the tag, or null if there is none, e.g. as the root view was removed. The
+   * NativeViewHierarchyManager throws for unknown tags, which would crash the UI operation queue
+   */
+  @Nullable
+  private static View resolveView(NativeViewHierarchyManager nativeViewHierarchyManager, int tag) {
+    try {
+      return nativeViewHierarchyManager.resolveView(tag);
+    } catch (IllegalViewOperationException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Returns the UIManagerModule, the reference is cached after the first lookup
+   */
+  private UIManagerModule getUIManager() {
+    if (mUIManager == null) {
+      mUIManager = getReactApplicationContext().getNativeModule(UIManagerModule.class);
+    }
+    return mUIManager;
+  }
+
+  // Callback Tracking
+
+  /**
+   * Sets the time in milliseconds after which a callback that was not called by the receiver fails
+   * with a timeout error. Pass 0 to disable the timeout. Defaults to 30 seconds
+   */
+  public void setCallbackTimeout(long timeoutMs) {
+    mCallbackTimeout = timeoutMs;
+  }
+
+  /**
+   * Sets the maximum number of promise requests in flight per root view. Further requests are rejected
+   * until a request completes. Pass 0 for no limit. Defaults to 32
+   */
+  public void setMaxPendingRequestsPerRoot(int maxPendingRequests) {
+    mMaxPendingRequestsPerRoot = maxPendingRequests;
+  }
+
+  /**
+   * Returns the number of callbacks that were passed to a receiver and are not yet called
+   */
+  public int getPendingCallbackCount() {
+    return mCallbackTracker.getPendingCount();
+  }
+
+  /**
+   * Returns the number of callbacks that were called by the receiver
+   */
+  public long getCompletedCallbackCount() {
+    return mCallbackTracker.getCompletedCount();
+  }
+
+  /**
+   * Returns the number of callbacks that failed as the receiver didn't call them in time
+   */
+  public long getTimedOutCallbackCount() {
+    return mCallbackTracker.getTimedOutCount();
+  }
+
+  // Synchronous Queries
+
+  /**
+   * Registers the handler for synchronous queries with the given name from React Native. Only register
+   * handlers for small lookups that answer within the time budget
+   */
+  public void registerQueryHandler(String name, MSREventBridgeQueryHandler handler) {
+    mQueryRegistry.register(name, handler);
+  }
+
+  public void unregisterQueryHandler(String name) {
+    mQueryRegistry.unregister(name);
+  }
+
+  /**
+   * Sets the time budget in milliseconds of a synchronous query. Queries that take longer fail and the
+   * JavaScript thread continues. Defaults to 16 milliseconds
+   */
+  public void setQueryTimeout(long timeoutMs) {
+    mQueryTimeout = timeoutMs;
+  }
+
+  // Response Cache
+
+  /**
+   * Caches the responses of receivers for callback requests with the given event name for ttlMs
+   * milliseconds, up to maxEntries responses, per root view and info. Identical requests in flight are
+   * collapsed into one receiver call. Every root view has its own receiver, so identical requests from
+   * different root views don't share responses. Only use it for idempotent requests. Pass 0 as ttlMs to
+   * disable it
+   */
+  public void setEventCacheable(String name, long ttlMs, int maxEntries) {
+    mResponseCache.setCacheable(name, ttlMs, maxEntries);
+  }
+
+  /**
+   * Drops all cached responses for the event name
+   */
+  public void invalidateCachedResponses(String name) {
+    mResponseCache.invalidate(name);
+  }
+
+  /**
+   * Drops the cached responses for the event name and info
+   */
+  public void invalidateCachedResponse(String name, @Nullable ReadableMap info) {
+    mResponseCache.invalidate(name, info);
+  }
+
+  /**
+   * Returns the number of callback requests that were served from the cache
+   */
+  public long getCachedResponseHitCount() {
+    return mResponseCache.getHitCount();
+  }
+
+  /**
+   * Returns the number of callback requests for cacheable events that were not served from the cache,
+   * including requests that were collapsed with an identical request in flight
+   */
+  public long getCachedResponseMissCount() {
+    return mResponseCache.getMissCount();
+  }
+
+  /**
+   * Returns the number of callback requests that were collapsed with an identical request in flight
+   */
+  public long getCollapsedRequestCount() {
+    return mResponseCache.getCollapsedCount();
+  }
+
+  // Emit Events
+
+  /**
+   * Post an event to all event subscriber for the given name
+   * The event is delivered via the LocalBroadcastManager, prefer emitEvent on a module instance if
+   * you have access to it as it skips the Intent and Bundle conversion.
+   * Example: MSREventBridgeModule.emitEventContext(getApplicationContext(), "eventName", data);
+   */
+  static public void emitEventContext(Context context, final String name, @Nullable WritableMap info) {
+    emitEventContext(context, name, info, MSREventBridgeEventPriority.NORMAL);
+  }
+
+  /**
+   * Post an event with the given priority to all event subscriber for the given name
+   * Example: MSREventBridgeModule.emitEventContext(getApplicationContext(), "eventName", data, MSREventBridgeEventPriority.LOW);
+   */
+  static public void emitEventContext(Context context, final String name, @Nullable WritableMap info, MSREventBridgeEventPriority priority) {
+    Bundle bundle = new Bundle();
+    bundle.putString(EventBridgeModuleEventNameKey, name);
+    bundle.putString(EventBridgeModuleIntentEventPriorityKey, priority.name());
+    if (info != null) {
+      long conversionStartTime = System.nanoTime();
+      bundle.putBundle(EventBridgeModuleEventInfoKey, Arguments.toBundle(info));
+      bundle.putLong(EventBridgeModuleIntentEventConversionTimeKey, System.nanoTime() - conversionStartTime);
+    }
+    bundle.putLong(EventBridgeModuleIntentEventTimeKey, System.nanoTime());
+
+    LocalBroadcastManager localBroadcastManager = LocalBroadcastManager.getInstance(context);
+    Intent customEvent= new Intent(EventBridgeModuleIntentEventName);
+    customEvent.putExtra(EventBridgeModuleIntentEventDataKey, bundle);
+    localBroadcastManager.sendBroadcast(customEvent);
+  }
+
+  /**
+   * Post an event with a schema to all event subscriber for the event name of the schema
+   * Example: MSREventBridgeModule.emitEventValuesContext(getApplicationContext(), LocationSchema, new double[] { latitude, longitude });
+   */
+  static public void emitEventValuesContext(Context context, MSREventBridgeEventSchema schema, double[] values) {
+    schema.checkValues(values);
+
+    Bundle bundle = new Bundle();
+    bundle.putString(EventBridgeModuleEventNameKey, schema.getName());
+    bundle.putDoubleArray(EventBridgeModuleEventValuesKey, values);
+    bundle.putLong(EventBridgeModuleIntentEventTimeKey, System.nanoTime());
+
+    LocalBroadcastManager localBroadcastManager = LocalBroadcastManager.getInstance(context);
+    Intent customEvent= new Intent(EventBridgeModuleIntentEventName);
+    customEvent.putExtra(EventBridgeModuleIntentEventDataKey, bundle);
+    localBroadcastManager.sendBroadcast(customEvent);
+  }
+
+  /**
+   * Post an event to all event subscriber for the given name
+   * The event is dispatched directly to React Native and can be called from any thread
+   */
+  @Override
+  public void emitEvent(final String name, @Nullable WritableMap info) {
+    emitEvent(name, info, MSREventBridgeEventPriority.NORMAL);
+  }
+
+  /**
+   * Post an event with the given priority to all event subscriber for the given name
+   * High priority events are sent ahead of queued events, low priority events once the main thread is idle
+   */
+  @Override
+  public void emitEvent(final String name, @Nullable WritableMap info, MSREventBridgeEventPriority priority) {
+    emitEvent(name, info, false, priority);
+  }
+
+  /**
+   * Post an event to all event subscriber for the given name. Set hasValues if the info holds the values
+   * of an event with a schema
+   */
+  private void emitEvent(String name, @Nullable WritableMap info, boolean hasValues, MSREventBridgeEventPriority priority) {
+    if (mStickyEventCache.isSticky(name)) {
+      mStickyEventCache.put(name, MSREventBridgeStickyEventCache.AllRootTags, toBundle(info), hasValues);
+    }
+
+    // Skip the event if nobody is listening for it
+    if (!mListenerRegistry.hasListener(name)) {
+      return;
+    }
+
+    dispatchToAll(name, info, hasValues, priority);
+  }
+
+  /**
+   * Dispatches the event to all subscribers. If root views are suspended, the event is addressed to the
+   * listening root views that are not suspended only
+   */
+  private void dispatchToAll(String name, @Nullable WritableMap info, boolean hasValues, MSREventBridgeEventPriority priority) {
+    if (!mSuspensionController.isHoldingEvents()) {
+      mEventDispatcher.dispatch(name, info, hasValues, null, 0, priority);
+      return;
+    }
+
+    EmitBuffer buffer = sEmitBuffer.get();
+    int reactTagsCount = getListeningRootTags(name, buffer);
+    reactTagsCount = mSuspensionController.holdEvent(name, info, hasValues, buffer.rootTags, reactTagsCount, priority);
+    if (reactTagsCount > 0) {
+      mEventDispatcher.dispatch(name, info, hasValues, buffer.rootTags, reactTagsCount, priority);
+    }
+  }
+
+  /**
+   * Returns true if the activity is the current activity of this React instance
+   */
+  boolean isCurrentActivity(Activity activity) {
+    return mReactContext.getCurrentActivity() == activity;
+  }
+
+  /**
+   * Returns true if an event with the given name is listened for or kept for replay in this React instance
+   */
+  boolean isEventObserved(String name) {
+    return mListenerRegistry.hasListener(name) || mStickyEventCache.isSticky(name);
+  }
+
+  /**
+   * Emits and event to a an event subscriber within a component that lifes within the components tree
+   * managed by the passed activity
+   * The module is cached per ReactInstanceManager. If the React context is not created yet, the event
+   * is buffered and emitted once React Native registered a listener for it. The activity is only weakly
+   * referenced while the event is buffered, the event is dropped if the activity is gone by then.
+   * Example: EventBridgeModule.emitEventForActivity(this, (MSREventBridgeInstanceManagerProvider)this.getContext(), "eventName", data);
+   */
+  static public void emitEventForActivity(Activity activity, MSREventBridgeInstanceManagerProvider instanceManagerProvider, final String name, @Nullable final WritableMap info) {
+    final WeakReference<Activity> activityReference = new WeakReference<>(activity);
+    getEventBridgeModule(instanceManagerProvider, name, new MSREventBridgeModuleLocator.ModuleAction() {
+      @Override
+      public void run(MSREventBridgeModule module) {
+        Activity activity = activityReference.get();
+        if (activity != null && isActivityAlive(activity)) {
+          module.emitEventForActivity(activity, name, info);
+        }
+      }
+    });
+  }
+
+  /**
+   * Emits and event to a an event subscriber within a component that lifes within the components tree
+   * managed by the passed activity
+   * Example: EventBridgeModule.emitEventForActivity(this, "eventName", data);
+   */
+  @Override
+  public void emitEventForActivity(Activity activity, final String name, @Nullable WritableMap info)  {
+    emitEventForActivity(activity, name, info, MSREventBridgeEventPriority.NORMAL);
+  }
+
+  /**
+   * Emits and event with the given priority to a an event subscriber within a component that lifes
+   * within the components tree managed by the passed activity
+   * Example: EventBridgeModule.emitEventForActivity(this, "eventName", data, MSREventBridgeEventPriority.HIGH);
+   */
+  @Override
+  public void emitEventForActivity(Activity activity, final String name, @Nullable WritableMap info, MSREventBridgeEventPriority priority)  {
+    emitEventForActivity(activity, name, info, false, priority);
+  }
+
+  private void emitEventForActivity(Activity activity, String name, @Nullable WritableMap info, boolean hasValues, MSREventBridgeEventPriority priority) {
+    // The root views are looked up from the index instead of walking the view hierarchy on every emit
+    EmitBuffer buffer = sEmitBuffer.get();
+    MSREventBridgeRootViewIndex.getInstance().getRootViews(activity, buffer.rootViews);
+    emitEventForRootViews(buffer, name, info, hasValues, priority);
+  }
+
+  /**
+   * Emits an event to the subscribers addressed by the target
+   * Example: module.emitEvent(MSREventBridgeEventTarget.rootView(rootView), "eventName", data);
+   */
+  @Override
+  public void emitEvent(MSREventBridgeEventTarget target, final String name, @Nullable WritableMap info) {
+    emitEvent(target, name, info, MSREventBridgeEventPriority.NORMAL);
+  }
+
+  /**
+   * Emits an event with the given priority to the subscribers addressed by the target
+   */
+  @Override
+  public void emitEvent(MSREventBridgeEventTarget target, final String name, @Nullable WritableMap info, MSREventBridgeEventPriority priority) {
+    if (target.isAll()) {
+      emitEvent(name, info, priority);
+    } else if (target.isChannel()) {
+      String channelEventName = MSREventBridgeEventTarget.getChannelEventName(target.getChannel(), name);
+      EmitBuffer buffer = sEmitBuffer.get();
+      int reactTagsCount = getListeningRootTags(channelEventName, buffer);
+      reactTagsCount = mSuspensionController.holdEvent(channelEventName, info, false, buffer.rootTags, reactTagsCount, priority);
+      if (reactTagsCount > 0) {
+        mEventDispatcher.dispatch(channelEventName, info, buffer.rootTags, reactTagsCount, priority);
+      }
+    } else if (target.isActivities()) {
+      EmitBuffer buffer = sEmitBuffer.get();
+      for (Activity activity : target.getActivities()) {
+        MSREventBridgeRootViewIndex.getInstance().getRootViews(activity, buffer.rootViews);
+      }
+      emitEventForRootViews(buffer, name, info, false, priority);
+    } else {
+      // The root tags of the target are filtered in place, so they are copied first
+      int[] rootTags = target.getRootTags();
+      EmitBuffer buffer = sEmitBuffer.get();
+      System.arraycopy(rootTags, 0, buffer.ensureCapacity(rootTags.length), 0, rootTags.length);
+      emitEventForRootTags(buffer.rootTags, rootTags.length, name, info, priority);
+    }
+  }
+
+  /**
+   * Emits the event to the given root views of the activity, used by the event hub for the root views
+   * this React instance owns or that have no owner yet
+   */
+  void emitEventForRootViews(List<View> rootViews, String name, @Nullable WritableMap info, MSREventBridgeEventPriority priority) {
+    EmitBuffer buffer = sEmitBuffer.get();
+    buffer.rootViews.addAll(rootViews);
+    emitEventForRootViews(buffer, name, info, false, priority);
+  }
+
+  /**
+   * Emits the event to the root views in the buffer. Root tags are only unique within a React instance,
+   * so root views of other React instances with the same root tag as a root view of this instance are
+   * skipped
+   */
+  private void emitEventForRootViews(EmitBuffer buffer, String name, @Nullable WritableMap info, boolean hasValues, MSREventBridgeEventPriority priority) {
+    // Sticky events are kept for every root view, also for the ones that don't listen yet
+    boolean sticky = mStickyEventCache.isSticky(name);
+    Bundle stickyInfo = null;
+    if (sticky) {
+      removeCollectedRootViews();
+      stickyInfo = toBundle(info);
+    }
+
+    int count = 0;
+    int[] rootViewTags = buffer.ensureCapacity(buffer.rootViews.size());
+    for (int i = 0; i < buffer.rootViews.size(); i++) {
+      View rootView = buffer.rootViews.get(i);
+      View knownRootView = getRootView(rootView.getId());
+      if (knownRootView == rootView) {
+        rootViewTags[count++] = rootView.getId();
+        if (sticky) {
+          mStickyEventCache.put(name, rootView.getId(), stickyInfo, hasValues);
+        }
+      } else if (knownRootView == null) {
+        // The root view may belong to another React instance, so sticky events are kept for the root
+        // view itself until this instance registers it
+        rootViewTags[count++] = rootView.getId();
+        if (sticky) {
+          mStickyEventCache.putForRootView(name, rootView, stickyInfo, hasValues);
+        }
+      }
+    }
+    // Don't keep the root views alive
+    buffer.rootViews.clear();
+
+    dispatchToRootTags(rootViewTags, count, name, info, hasValues, priority);
+  }
+
+  /**
+   * Emits the event to the first rootViewTagsCount root tags of the array. Sticky events are only kept
+   * for the root views of this React instance that are known already. The array is filtered in place
+   */
+  private void emitEventForRootTags(int[] rootViewTags, int rootViewTagsCount, String name, @Nullable WritableMap info, MSREventBridgeEventPriority priority) {
+    if (mStickyEventCache.isSticky(name)) {
+      removeCollectedRootViews();
+      Bundle bundle = toBundle(info);
+      for (int i = 0; i < rootViewTagsCount; i++) {
+        if (getRootView(rootViewTags[i]) != null) {
+          mStickyEventCache.put(name, rootViewTags[i], bundle, false);
+        }
+      }
+    }
+
+    dispatchToRootTags(rootViewTags, rootViewTagsCount, name, info, false, priority);
+  }
+
+  /**
+   * Dispatches the event to the root tags among the first rootViewTagsCount root tags of the array that
+   * listen for it. The array is filtered in place
+   */
+  private void dispatchToRootTags(int[] rootViewTags, int rootViewTagsCount, String name, @Nullable WritableMap info, boolean hasValues, MSREventBridgeEventPriority priority) {
+    if (rootViewTagsCount == 0) {
+      return;
+    }
+
+    // React tags are the identifier to be able to detect in React Native which component should
+    // receive the event. All root views are addressed with one message, so the payload is only passed
+    // over the bridge once
+    int reactTagsCount = 0;
+    for (int i = 0; i < rootViewTagsCount; i++) {
+      // Skip root views that don't have a listener for the event
+      if (mListenerRegistry.hasListener(rootViewTags[i], name)) {
+        rootViewTags[reactTagsCount++] = rootViewTags[i];
+      }
+    }
+
+    // Hold the event for suspended root views
+    reactTagsCount = mSuspensionController.holdEvent(name, info, hasValues, rootViewTags, reactTagsCount, priority);
+    if (reactTagsCount == 0) {
+      return;
+    }
+
+    mEventDispatcher.dispatch(name, info, hasValues, rootViewTags, reactTagsCount, priority);
+  }
+
+  /**
+   * Copies the root tags that have a listener for the event name into the buffer and returns their count
+   */
+  private int getListeningRootTags(String name, EmitBuffer buffer) {
+    int count = mListenerRegistry.getRootTags(name, buffer.rootTags);
+    while (count > buffer.rootTags.length) {
+      count = mListenerRegistry.getRootTags(name, buffer.ensureCapacity(count));
+    }
+    return count;
+  }
+
+
+  /**
+   * Post an event with a schema to all event subscriber for the event name of the schema. Only the
+   * values are passed over the bridge, see {@link MSREventBridgeEventSchema}
+   */
+  @Override
+  public void emitEventValues(MSREventBridgeEventSchema schema, double[] values) {
+    // Skip the event, and encoding the values, if nobody is listening for it
+    String name = schema.getName();
+    if (!mListenerRegistry.hasListener(name) && !mStickyEventCache.isSticky(name)) {
+      return;
+    }
+
+    emitEvent(name, schema.encode(values), true, MSREventBridgeEventPriority.NORMAL);
+  }
+
+  /**
+   * Emits an event with a schema to an event subscriber within the components tree managed by the
+   * passed activity. Only the values are passed over the bridge, see {@link MSREventBridgeEventSchema}
+   */
+  @Override
+  public void emitEventValuesForActivity(Activity activity, MSREventBridgeEventSchema schema, double[] values) {
+    emitEventForActivity(activity, schema.getName(), schema.encode(values), true, MSREventBridgeEventPriority.NORMAL);
+  }
+
+  // Sticky Events
+
+  /**
+   * Makes events with the given name sticky. The last replayCount events are kept per root view and
+   * replayed to every listener for the name that is added within the root view later on. Pass 0 to
+   * make events with the name non sticky again
+   */
+  @Override
+  public void setEventSticky(String name, int replayCount) {
+    mStickyEventCache.setReplayCount(name, replayCount);
+  }
+
+  /**
+   * Drops the kept events with the given name, e.g. if the state they describe is not valid anymore
+   */
+  public void clearStickyEvents(String name) {
+    mStickyEventCache.clear(name);
+  }
+
+  // Batching
+
+  /**
+   * Enables or disables batching of emitted events. Batched events are flushed once per frame, or
+   * after the batching interval if one is set, as a single message to React Native
+   */
+  @Override
+  public void setEventBatchingEnabled(boolean enabled) {
+    mEventDispatcher.setBatchingEnabled(enabled);
+  }
+
+  /**
+   * Sets the interval in milliseconds batched events are flushed. Pass 0 to flush once per frame
+   */
+  @Override
+  public void setEventBatchingInterval(long intervalMs) {
+    mEventDispatcher.setBatchingInterval(intervalMs);
+  }
+
+  /**
+   * Enables or disables coalescing for events with the given name. Only the latest batched value of a
+   * coalesced event per root view is delivered
+   */
+  @Override
+  public void setEventCoalescingEnabled(String name, boolean enabled) {
+    mEventDispatcher.setCoalescingEnabled(name, enabled);
+  }
+
+  // Backpressure
+
+  /**
+   * Bounds the number of queued events per root view. An event for several root views counts for each of
+   * them, an event for all subscribers for every root view. If the queue of a root view is full, the
+   * overflow policy decides which event is dropped. Pass 0 for no limit
+   */
+  public void setEventQueueCapacity(int capacity, MSREventBridgeOverflowPolicy overflowPolicy) {
+    mEventDispatcher.setQueueCapacity(capacity, overflowPolicy);
+  }
+
+  /**
+   * Sets the maximum number of events that were sent but not yet acknowledged by React Native. Further
+   * events are queued until React Native caught up. Pass 0 for no limit
+   */
+  public void setMaxEventsInFlight(int maxEventsInFlight) {
+    mEventDispatcher.setMaxEventsInFlight(maxEventsInFlight);
+  }
+
+  /**
+   * Returns the number of events that are queued and not yet sent to React Native
+   */
+  public int getQueuedEventCount() {
+    return mEventDispatcher.getQueuedEventCount();
+  }
+
+  /**
+   * Returns the number of events that were sent but not yet acknowledged by React Native
+   */
+  public long getEventsInFlightCount() {
+    return mEventDispatcher.getEventsInFlightCount();
+  }
+
+  /**
+   * Returns the number of events that were dropped as a queue was full
+   */
+  public long getDroppedEventCount() {
+    return mEventDispatcher.getDroppedEventCount();
+  }
+
+  // Suspension
+
+  /**
+   * Sets what happens with events for root views of stopped activities and detached root views. Held
+   * events are sent once the root view resumes. Defaults to MSREventBridgeSuspensionPolicy.NONE
+   */
+  public void setSuspensionPolicy(MSREventBridgeSuspensionPolicy policy) {
+    setSuspensionPolicy(policy, MSREventBridgeSuspensionController.DefaultQueueCapacity);
+  }
+
+  /**
+   * Sets the suspension policy and the maximum number of events queued per suspended root view for
+   * MSREventBridgeSuspensionPolicy.QUEUE
+   */
+  public void setSuspensionPolicy(MSREventBridgeSuspensionPolicy policy, int queueCapacity) {
+    mSuspensionController.setPolicy(policy, queueCapacity);
+  }
+
+  // Metrics
+
+  /**
+   * Enables or disables recording of metrics. If disabled, recording costs close to nothing
+   */
+  @ReactMethod
+  public void setMetricsEnabled(boolean enabled) {
+    mMetrics.setEnabled(enabled);
+  }
+
+  /**
+   * Sets a listener that gets the timing of every event while metrics are enabled
+   */
+  public void setMetricsListener(@Nullable MSREventBridgeMetricsListener listener) {
+    mMetrics.setListener(listener);
+  }
+
+  /**
+   * Returns the recorded metrics
+   */
+  public MSREventBridgeMetrics getMetrics() {
+    return mMetrics;
+  }
+
+  /**
+   * Resolves with the recorded metrics and the current queue state
+   */
+  @ReactMethod
+  public void getMetricsSnapshot(Promise promise) {
+    WritableMap snapshot = mMetrics.toWritableMap();
+    snapshot.putInt("queuedEventCount", getQueuedEventCount());
+    snapshot.putDouble("eventsInFlightCount", getEventsInFlightCount());
+    snapshot.putDouble("droppedEventCount", getDroppedEventCount());
+    snapshot.putInt("pendingCallbackCount", getPendingCallbackCount());
+    snapshot.putDouble("completedCallbackCount", getCompletedCallbackCount());
+    snapshot.putDouble("timedOutCallbackCount", getTimedOutCallbackCount());
+    promise.resolve(snapshot);
+  }
+
+  // Helper methods
+
+  /**
+   * Returns true if the activity is neither finishing nor destroyed
+   */
+  private static boolean isActivityAlive(Activity activity) {
+    if (activity.isFinishing()) {
+      return false;
+    }
+    return Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN_MR1 || !activity.isDestroyed();
+  }
+
+  @Nullable
+  private static Bundle toBundle(@Nullable WritableMap info) {
+    return info != null ? Arguments.toBundle(info) : null;
+  }
+
+  /**
+   * Puts a value of a type that can be passed over the bridge into the map
+   */
+  private static void putValue(WritableMap map, String key, @Nullable Object value) {
+    if (value == null) {
+      map.putNull(key);
+    } else if (value instanceof String) {
+      map.putString(key, (String) value);
+    } else if (value instanceof Boolean) {
+      map.putBoolean(key, (Boolean) value);
+    } else if (value instanceof Integer) {
+      map.putInt(key, (Integer) value);
+    } else if (value instanceof Number) {
+      map.putDouble(key, ((Number) value).doubleValue());
+    } else if (value instanceof WritableMap) {
+      map.putMap(key, (WritableMap) value);
+    } else if (value instanceof WritableArray) {
+      map.putArray(key, (WritableArray) value);
+    } else {
+      throw new IllegalArgumentException("Unsupported type of value: " + value.getClass());
+    }
+  }
 
   /**
-   * Try to get the module from a given MSREventBridgeInstanceManagerProvider
+   * Runs the action for the event name with the module of the given MSREventBridgeInstanceManagerProvider,
+   * as soon as the module is available
    */
-  static private MSREventBridgeModule getEventBridgeModule(MSREventBridgeInstanceManagerProvider instanceManagerProvider) {
-    return instanceManagerProvider
-            .getEventBridgeReactInstanceManager()
-            .getCurrentReactContext()
-            .getNativeModule(MSREventBridgeModule.class);
+  static private void getEventBridgeModule(MSREventBridgeInstanceManagerProvider instanceManagerProvider, String name, MSREventBridgeModuleLocator.ModuleAction action) {
+    MSREventBridgeModuleLocator.getInstance()
+            .runWithModule(instanceManagerProvider.getEventBridgeReactInstanceManager(), name, action);
   }
 
 }
\ No newline at end of file
@@ -0,0 +1,127 @@
+package net.mischneider;
+
+import android.support.annotation.Nullable;
+
+import com.facebook.react.ReactInstanceManager;
+import com.facebook.react.bridge.ReactContext;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayDeque;
+import java.util.WeakHashMap;
+
+/**
+ * Caches the MSREventBridgeModule per ReactInstanceManager, so static emit helpers don't need to look
+ * up the module on every emit. Actions that are run while the React context is not created yet are
+ * buffered and handed to the module once the context is created. The module holds them until React
+ * Native registers a listener for their event name, as nothing listens right after the context is
+ * created.
+ */
+final class MSREventBridgeModuleLocator {
+
+    // Maximum number of buffered actions per ReactInstanceManager, the oldest action is dropped first
+    private static final int MaxBufferedActions = 64;
+
+    private static final MSREventBridgeModuleLocator sInstance = new MSREventBridgeModuleLocator();
+
+    /**
+     * Action that is run with the module
+     */
+    interface ModuleAction {
+        void run(MSREventBridgeModule module);
+    }
+
+    /**
+     * Action that was buffered until the module is available, for an event with the given name
+     */
+    static final class BufferedAction {
+        final String name;
+        final ModuleAction action;
+
+        BufferedAction(String name, ModuleAction action) {
+            this.name = name;
+            this.action = action;
+        }
+    }
+
+    private final class Entry implements ReactInstanceManager.ReactInstanceEventListener {
+        @Nullable WeakReference<MSREventBridgeModule> module;
+        final ArrayDeque<BufferedAction> bufferedActions = new ArrayDeque<>();
+
+        @Override
+        public void onReactContextInitialized(ReactContext context) {
+            MSREventBridgeModule module = context.getNativeModule(MSREventBridgeModule.class);
+            BufferedAction[] actions;
+            synchronized (MSREventBridgeModuleLocator.this) {
+                this.module = new WeakReference<>(module);
+                actions = bufferedActions.toArray(new BufferedAction[bufferedActions.size()]);
+                bufferedActions.clear();
+            }
+
+            for (BufferedAction action : actions) {
+                module.runWhenListening(action);
+            }
+        }
+    }
+
+    private final WeakHashMap<ReactInstanceManager, Entry> mEntries = new WeakHashMap<>();
+
+    static MSREventBridgeModuleLocator getInstance() {
+        return sInstance;
+    }
+
+    private MSREventBridgeModuleLocator() {
+    }
+
+    /**
+     * Runs the action for the event name with the module of the instance manager right away. If the
+     * React context is not created yet, the action is buffered and run once React Native listens for
+     * the event name.
+     */
+    void runWithModule(ReactInstanceManager instanceManager, String name, ModuleAction action) {
+        MSREventBridgeModule module;
+        synchronized (this) {
+            Entry entry = getOrCreateEntry(instanceManager);
+            module = entry.module != null ? entry.module.get() : null;
+            if (module == null) {
+                ReactContext reactContext = instanceManager.getCurrentReactContext();
+                if (reactContext != null) {
+                    module = reactContext.getNativeModule(MSREventBridgeModule.class);
+                    entry.module = new WeakReference<>(module);
+                }
+            }
+
+            if (module == null) {
+                if (entry.bufferedActions.size() >= MaxBufferedActions) {
+                    entry.bufferedActions.poll();
+                }
+                entry.bufferedActions.add(new BufferedAction(name, action));
+                return;
+            }
+        }
+
+        action.run(module);
+    }
+
+    /**
+     * Drops the cached module, e.g. if its React instance was destroyed
+     */
+    synchronized void removeModule(MSREventBridgeModule module) {
+        for (Entry entry : mEntries.values()) {
+            if (entry.module != null && entry.module.get() == module) {
+                entry.module = null;
+            }
+        }
+    }
+
+    private Entry getOrCreateEntry(ReactInstanceManager instanceManager) {
+        Entry entry = mEntries.get(instanceManager);
+        if (entry == null) {
+            entry = new Entry();
+            mEntries.put(instanceManager, entry);
+
+            // Keep listening, so the cache is updated if the context is recreated, e.g. on reload
+            instanceManager.addReactInstanceEventListener(entry);
+        }
+        return entry;
+    }
+}
@@ -0,0 +1,30 @@
+package net.mischneider;
+
+/**
+ * Defines what happens if an event is emitted while the outbound queue of one of its root views is full.
+ * An event for all subscribers is queued for every root view
+ */
+public enum MSREventBridgeOverflowPolicy {
+    /**
+     * The oldest queued event of the root view is dropped
+     */
+    DROP_OLDEST,
+
+    /**
+     * The emitted event is dropped
+     */
+    DROP_NEWEST,
+
+    /**
+     * The emitted event replaces a queued event with the same name of the root view. If there is no such
+     * event, the oldest queued event of the root view is dropped
+     */
+    COALESCE_BY_NAME,
+
+    /**
+     * The emitting thread is blocked until there is space in the queue. If there is still no space after
+     * the block timeout, the emitted event is dropped. The queue is flushed on the main thread, so events
+     * emitted on the main thread are dropped right away like with DROP_NEWEST.
+     */
+    BLOCK
+}
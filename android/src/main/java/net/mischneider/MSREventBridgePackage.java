@@ -18,6 +18,7 @@ public class MSREventBridgePackage implements ReactPackage {
     }
 
     @Override
+    @SuppressWarnings("rawtypes")
     public List<ViewManager> createViewManagers(ReactApplicationContext reactContext) {
         return Collections.emptyList();
     }
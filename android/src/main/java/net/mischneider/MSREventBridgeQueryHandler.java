@@ -0,0 +1,18 @@
+package net.mischneider;
+
+import android.support.annotation.Nullable;
+
+import com.facebook.react.bridge.ReadableMap;
+
+/**
+ * Handler for synchronous queries from React Native, e.g. if a feature is enabled. Queries block the
+ * JavaScript thread, so the handler must answer fast and must not wait for the main thread.
+ */
+public interface MSREventBridgeQueryHandler {
+    /**
+     * Returns the value for the query. Supported are null, String, Boolean, Number, WritableMap and
+     * WritableArray values.
+     */
+    @Nullable
+    Object onQuery(String name, @Nullable ReadableMap info);
+}
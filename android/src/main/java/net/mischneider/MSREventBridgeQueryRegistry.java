@@ -0,0 +1,154 @@
+package net.mischneider;
+
+import android.support.annotation.Nullable;
+
+import com.facebook.react.bridge.ReadableMap;
+
+import java.util.HashSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keeps the handlers for synchronous queries and runs them within a time budget. Handlers are run on a
+ * query thread, so a slow handler can be abandoned once the budget is exceeded and the JavaScript thread
+ * is not blocked any longer.
+ *
+ * The number of query threads is bounded. A query fails right away if all threads are busy, or if the
+ * handler of an earlier query with the same name is still running, e.g. as it was abandoned.
+ */
+final class MSREventBridgeQueryRegistry {
+
+    // Query threads that are shared by all modules. Idle threads are stopped after a while
+    private static final int MaxQueryThreads = 4;
+    private static final long QueryThreadKeepAliveMs = 30000;
+    private static final ThreadPoolExecutor sQueryExecutor = new ThreadPoolExecutor(
+            MaxQueryThreads,
+            MaxQueryThreads,
+            QueryThreadKeepAliveMs,
+            TimeUnit.MILLISECONDS,
+            new SynchronousQueue<Runnable>(),
+            new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "MSREventBridgeQuery");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+
+    static {
+        sQueryExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Thrown if a query could not be answered
+     */
+    static final class QueryException extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        QueryException(String message) {
+            super(message);
+        }
+
+        QueryException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+
+    private final ConcurrentHashMap<String, MSREventBridgeQueryHandler> mHandlers = new ConcurrentHashMap<>();
+
+    // Names of the queries whose handler is running
+    private final HashSet<String> mRunningQueries = new HashSet<>();
+
+    void register(String name, MSREventBridgeQueryHandler handler) {
+        mHandlers.put(name, handler);
+    }
+
+    void unregister(String name) {
+        mHandlers.remove(name);
+    }
+
+    void clear() {
+        mHandlers.clear();
+    }
+
+    /**
+     * Returns the value of the handler that is registered for the name. Throws if no handler is registered,
+     * the handler failed or it didn't answer within timeoutMs milliseconds.
+     */
+    @Nullable
+    Object query(final String name, @Nullable final ReadableMap info, long timeoutMs) throws QueryException {
+        final MSREventBridgeQueryHandler handler = mHandlers.get(name);
+        if (handler == null) {
+            throw new QueryException("No query handler registered for: " + name);
+        }
+
+        synchronized (mRunningQueries) {
+            if (!mRunningQueries.add(name)) {
+                throw new QueryException("Query '" + name + "' is still running");
+            }
+        }
+
+        // Set once the handler started or the query was given up before, whichever happens first
+        final AtomicBoolean started = new AtomicBoolean(false);
+        Future<Object> future;
+        try {
+            future = sQueryExecutor.submit(new Callable<Object>() {
+                @Override
+                public Object call() throws Exception {
+                    if (!started.compareAndSet(false, true)) {
+                        return null;
+                    }
+                    try {
+                        return handler.onQuery(name, info);
+                    } finally {
+                        removeRunningQuery(name);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            removeRunningQuery(name);
+            throw new QueryException("Query '" + name + "' was rejected, too many queries are running", e);
+        }
+
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            cancel(name, future, started);
+            throw new QueryException("Query '" + name + "' exceeded its time budget of " + timeoutMs + "ms");
+        } catch (ExecutionException e) {
+            throw new QueryException("Query '" + name + "' failed: " + e.getCause(), e.getCause());
+        } catch (InterruptedException e) {
+            cancel(name, future, started);
+            Thread.currentThread().interrupt();
+            throw new QueryException("Query '" + name + "' was interrupted", e);
+        }
+    }
+
+    // Helper
+
+    /**
+     * Gives up the query. The name stays running until the handler returns, if it started already
+     */
+    private void cancel(String name, Future<Object> future, AtomicBoolean started) {
+        future.cancel(true);
+        if (started.compareAndSet(false, true)) {
+            removeRunningQuery(name);
+        }
+    }
+
+    private void removeRunningQuery(String name) {
+        synchronized (mRunningQueries) {
+            mRunningQueries.remove(name);
+        }
+    }
+}
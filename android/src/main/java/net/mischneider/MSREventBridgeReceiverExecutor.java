@@ -0,0 +1,173 @@
+package net.mischneider;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.util.SparseArray;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs the delivery of events from React Native on the thread a receiver asked for. High priority
+ * events are run ahead of queued events, low priority events on the main thread wait until the main
+ * thread is idle.
+ */
+final class MSREventBridgeReceiverExecutor {
+
+    // Background thread pool that is shared by all modules
+    private static final ExecutorService sBackgroundExecutor =
+            Executors.newFixedThreadPool(Math.max(2, Runtime.getRuntime().availableProcessors()));
+
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+
+    // Serial queues per root tag
+    private final SparseArray<SerialExecutor> mSerialExecutors = new SparseArray<>();
+
+    // Low priority runnables for the main thread that are run once the main thread is idle
+    private final ArrayList<Runnable> mIdleRunnables = new ArrayList<>();
+
+    private final MessageQueue.IdleHandler mIdleHandler = new MessageQueue.IdleHandler() {
+        @Override
+        public boolean queueIdle() {
+            ArrayList<Runnable> runnables;
+            synchronized (MSREventBridgeReceiverExecutor.this) {
+                runnables = new ArrayList<>(mIdleRunnables);
+                mIdleRunnables.clear();
+            }
+            for (Runnable runnable : runnables) {
+                runnable.run();
+            }
+            return false;
+        }
+    };
+
+    private final Runnable mAddIdleHandlerRunnable = new Runnable() {
+        @Override
+        public void run() {
+            Looper.myQueue().addIdleHandler(mIdleHandler);
+        }
+    };
+
+    /**
+     * Runs the runnables one after the other on the background thread pool
+     */
+    private static class SerialExecutor implements Executor {
+        private final ArrayDeque<Runnable> mRunnables = new ArrayDeque<>();
+        private boolean mRunning = false;
+
+        @Override
+        public void execute(final Runnable runnable) {
+            execute(runnable, false);
+        }
+
+        /**
+         * Queues the runnable. If first is true it's run ahead of the runnables that are already queued.
+         */
+        synchronized void execute(final Runnable runnable, boolean first) {
+            if (first) {
+                mRunnables.addFirst(runnable);
+            } else {
+                mRunnables.add(runnable);
+            }
+            if (!mRunning) {
+                scheduleNext();
+            }
+        }
+
+        synchronized void clear() {
+            mRunnables.clear();
+        }
+
+        private synchronized void scheduleNext() {
+            final Runnable runnable = mRunnables.poll();
+            mRunning = runnable != null;
+            if (runnable == null) {
+                return;
+            }
+
+            sBackgroundExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        runnable.run();
+                    } finally {
+                        scheduleNext();
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Returns the thread the receiver asked for to receive the event with the given name
+     */
+    static MSREventBridgeReceiverThread getReceiverThread(MSREventBridgeEventReceiver receiver, String name) {
+        if (receiver instanceof MSREventBridgeReceiverThreadProvider) {
+            MSREventBridgeReceiverThread thread =
+                    ((MSREventBridgeReceiverThreadProvider) receiver).getReceiverThread(name);
+            if (thread != null) {
+                return thread;
+            }
+        }
+        return MSREventBridgeReceiverThread.MAIN;
+    }
+
+    /**
+     * Runs the runnable on the given thread. Runnables for the main thread are run right away if called
+     * on the main thread, unless they have a low priority.
+     */
+    void execute(int rootTag, MSREventBridgeReceiverThread thread, MSREventBridgeEventPriority priority, Runnable runnable) {
+        switch (thread) {
+            case BACKGROUND:
+                sBackgroundExecutor.execute(runnable);
+                break;
+            case SERIAL:
+                getSerialExecutor(rootTag).execute(runnable, priority == MSREventBridgeEventPriority.HIGH);
+                break;
+            case MAIN:
+            default:
+                if (priority == MSREventBridgeEventPriority.LOW) {
+                    executeWhenIdle(runnable);
+                } else if (Looper.myLooper() == Looper.getMainLooper()) {
+                    runnable.run();
+                } else if (priority == MSREventBridgeEventPriority.HIGH) {
+                    mMainHandler.postAtFrontOfQueue(runnable);
+                } else {
+                    mMainHandler.post(runnable);
+                }
+                break;
+        }
+    }
+
+    /**
+     * Drops all runnables that are not yet running
+     */
+    synchronized void clear() {
+        for (int i = 0; i < mSerialExecutors.size(); i++) {
+            mSerialExecutors.valueAt(i).clear();
+        }
+        mSerialExecutors.clear();
+        mIdleRunnables.clear();
+        mMainHandler.removeCallbacksAndMessages(null);
+    }
+
+    private synchronized void executeWhenIdle(Runnable runnable) {
+        mIdleRunnables.add(runnable);
+        if (mIdleRunnables.size() == 1) {
+            mMainHandler.post(mAddIdleHandlerRunnable);
+        }
+    }
+
+    private synchronized SerialExecutor getSerialExecutor(int rootTag) {
+        SerialExecutor executor = mSerialExecutors.get(rootTag);
+        if (executor == null) {
+            executor = new SerialExecutor();
+            mSerialExecutors.put(rootTag, executor);
+        }
+        return executor;
+    }
+}
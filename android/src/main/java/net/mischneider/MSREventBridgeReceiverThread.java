@@ -0,0 +1,23 @@
+package net.mischneider;
+
+/**
+ * Thread an event from React Native is delivered to the receiver on
+ */
+public enum MSREventBridgeReceiverThread {
+    /**
+     * The main thread. Events are delivered in order.
+     */
+    MAIN,
+
+    /**
+     * A shared background thread pool. Events can be delivered concurrently and out of order, use it
+     * for heavy handlers that don't depend on the order of events.
+     */
+    BACKGROUND,
+
+    /**
+     * A serial queue per root view that runs on the shared background thread pool. Events of a root
+     * view are delivered in order, one after the other.
+     */
+    SERIAL
+}
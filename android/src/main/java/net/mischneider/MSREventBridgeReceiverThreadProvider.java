@@ -0,0 +1,12 @@
+package net.mischneider;
+
+/**
+ * Implemented by a {@link MSREventBridgeEventReceiver} that would like to receive events from React
+ * Native on another thread than the main thread. The event bridge module takes care of the thread hop.
+ */
+public interface MSREventBridgeReceiverThreadProvider {
+    /**
+     * Returns the thread the event with the given name should be delivered on
+     */
+    MSREventBridgeReceiverThread getReceiverThread(String name);
+}
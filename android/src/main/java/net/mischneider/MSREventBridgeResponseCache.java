@@ -0,0 +1,361 @@
+package net.mischneider;
+
+import android.os.Bundle;
+import android.os.SystemClock;
+import android.support.annotation.Nullable;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caches the responses of receivers for idempotent callback requests. Responses are cached per event
+ * name, root tag and info for a given time and the number of responses per event name is bounded, the
+ * least recently used response is dropped first. Identical requests that arrive while the receiver is
+ * still working on the first one are collapsed and get the response of the first request.
+ *
+ * The root tag is part of the key, as the response comes from the receiver of the root view. Identical
+ * requests from different root views, e.g. two screens loading the same configuration, don't share
+ * responses and each call their receiver once.
+ *
+ * Responses are kept as copies, as a WritableMap or WritableArray can only be passed over the bridge once.
+ * Failures are not cached.
+ */
+final class MSREventBridgeResponseCache {
+
+    private static final class Policy {
+        final long ttlMs;
+        final int maxEntries;
+
+        Policy(long ttlMs, int maxEntries) {
+            this.ttlMs = ttlMs;
+            this.maxEntries = maxEntries;
+        }
+    }
+
+    private static final class Key {
+        final int rootTag;
+        final String name;
+        @Nullable final HashMap<String, Object> info;
+        final int hashCode;
+
+        Key(int rootTag, String name, @Nullable ReadableMap info) {
+            this.rootTag = rootTag;
+            this.name = name;
+            this.info = info != null ? info.toHashMap() : null;
+            this.hashCode = 31 * (31 * rootTag + name.hashCode()) + (this.info != null ? this.info.hashCode() : 0);
+        }
+
+        @Override
+        public boolean equals(Object object) {
+            if (!(object instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) object;
+            return rootTag == key.rootTag
+                    && name.equals(key.name)
+                    && (info == null ? key.info == null : info.equals(key.info));
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    private static final class Entry {
+        @Nullable final Object value;
+        final long expirationTime;
+
+        Entry(@Nullable Object value, long expirationTime) {
+            this.value = value;
+            this.expirationTime = expirationTime;
+        }
+    }
+
+    /**
+     * Entries of an event name in least recently used order
+     */
+    private static final class Entries extends LinkedHashMap<Key, Entry> {
+        private static final long serialVersionUID = 1L;
+
+        private final int mMaxEntries;
+
+        Entries(int maxEntries) {
+            super(16, 0.75f, true);
+            mMaxEntries = maxEntries;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+            return size() > mMaxEntries;
+        }
+    }
+
+    private final HashMap<String, Policy> mPolicies = new HashMap<>();
+    private final HashMap<String, Entries> mEntries = new HashMap<>();
+
+    // Callbacks of requests that wait for the response of an identical request in flight
+    private final HashMap<Key, ArrayList<MSREventBridgeReceiverCallback>> mInFlightRequests = new HashMap<>();
+
+    // Incremented on invalidation, so responses of requests in flight before are not cached
+    private long mGeneration = 0;
+
+    // Counters
+    private final AtomicLong mHitCount = new AtomicLong();
+    private final AtomicLong mMissCount = new AtomicLong();
+    private final AtomicLong mCollapsedCount = new AtomicLong();
+
+    /**
+     * Caches the responses for the event name for ttlMs milliseconds, up to maxEntries responses. Pass a ttlMs
+     * of 0 to stop caching the event name.
+     */
+    synchronized void setCacheable(String name, long ttlMs, int maxEntries) {
+        mEntries.remove(name);
+        if (ttlMs <= 0 || maxEntries <= 0) {
+            mPolicies.remove(name);
+            return;
+        }
+        mPolicies.put(name, new Policy(ttlMs, maxEntries));
+    }
+
+    synchronized boolean isCacheable(String name) {
+        return mPolicies.containsKey(name);
+    }
+
+    /**
+     * Serves the request from the cache or adds it to an identical request in flight and returns null in
+     * both cases. Otherwise returns the callback the request must be delivered to the receiver with.
+     */
+    @Nullable
+    MSREventBridgeReceiverCallback request(int rootTag, String name, @Nullable ReadableMap info, MSREventBridgeReceiverCallback callback) {
+        Key key = new Key(rootTag, name, info);
+        Entry entry;
+        synchronized (this) {
+            Entries entries = mEntries.get(name);
+            entry = entries != null ? entries.get(key) : null;
+            if (entry != null && entry.expirationTime <= SystemClock.uptimeMillis()) {
+                entries.remove(key);
+                entry = null;
+            }
+
+            if (entry == null) {
+                mMissCount.incrementAndGet();
+                ArrayList<MSREventBridgeReceiverCallback> callbacks = mInFlightRequests.get(key);
+                if (callbacks != null) {
+                    mCollapsedCount.incrementAndGet();
+                    callbacks.add(callback);
+                    return null;
+                }
+
+                callbacks = new ArrayList<>();
+                callbacks.add(callback);
+                mInFlightRequests.put(key, callbacks);
+                return new CachingCallback(key, callbacks, mGeneration);
+            }
+        }
+
+        mHitCount.incrementAndGet();
+        callback.onSuccess(copyValue(entry.value));
+        return null;
+    }
+
+    /**
+     * The request the callback was returned for by {@link #request} is not answered anymore, e.g. as it
+     * timed out. Identical requests don't wait for it anymore, the ones that already do still get the
+     * response if the receiver calls the callback late
+     */
+    void abandon(MSREventBridgeReceiverCallback callback) {
+        if (callback instanceof CachingCallback) {
+            ((CachingCallback) callback).abandon();
+        }
+    }
+
+    /**
+     * Drops all cached responses for the event name. Identical requests don't wait for requests in flight
+     * anymore, as their response may be outdated
+     */
+    synchronized void invalidate(String name) {
+        mGeneration++;
+        mEntries.remove(name);
+
+        Iterator<Key> keys = mInFlightRequests.keySet().iterator();
+        while (keys.hasNext()) {
+            if (keys.next().name.equals(name)) {
+                keys.remove();
+            }
+        }
+    }
+
+    /**
+     * Drops the cached responses for the event name and info in all root views
+     */
+    synchronized void invalidate(String name, @Nullable ReadableMap info) {
+        mGeneration++;
+        HashMap<String, Object> infoMap = info != null ? info.toHashMap() : null;
+        removeKeys(mInFlightRequests.keySet().iterator(), name, infoMap);
+
+        Entries entries = mEntries.get(name);
+        if (entries != null) {
+            removeKeys(entries.keySet().iterator(), name, infoMap);
+        }
+    }
+
+    synchronized void clear() {
+        mGeneration++;
+        mEntries.clear();
+        mInFlightRequests.clear();
+    }
+
+    // Counters
+
+    long getHitCount() {
+        return mHitCount.get();
+    }
+
+    long getMissCount() {
+        return mMissCount.get();
+    }
+
+    long getCollapsedCount() {
+        return mCollapsedCount.get();
+    }
+
+    /**
+     * Callback that is passed to the receiver for the first of identical requests. It caches the response
+     * and passes it on to all requests that waited for it.
+     */
+    private final class CachingCallback implements MSREventBridgeReceiverCallback {
+        private final Key mKey;
+        private final ArrayList<MSREventBridgeReceiverCallback> mCallbacks;
+        private final long mGeneration;
+        private boolean mDone = false;
+
+        CachingCallback(Key key, ArrayList<MSREventBridgeReceiverCallback> callbacks, long generation) {
+            mKey = key;
+            mCallbacks = callbacks;
+            mGeneration = generation;
+        }
+
+        /**
+         * Identical requests that arrive from now on don't wait for this request anymore
+         */
+        void abandon() {
+            synchronized (MSREventBridgeResponseCache.this) {
+                removeInFlightRequest();
+            }
+        }
+
+        /**
+         * Returns the callbacks to call with the response or null if they were called already
+         */
+        @Nullable
+        private List<MSREventBridgeReceiverCallback> complete() {
+            removeInFlightRequest();
+            if (mDone) {
+                return null;
+            }
+            mDone = true;
+            return mCallbacks;
+        }
+
+        private void removeInFlightRequest() {
+            if (mInFlightRequests.get(mKey) == mCallbacks) {
+                mInFlightRequests.remove(mKey);
+            }
+        }
+
+        @Override
+        public void onSuccess(Object data) {
+            Object value = toCachedValue(data);
+            List<MSREventBridgeReceiverCallback> callbacks;
+            synchronized (MSREventBridgeResponseCache.this) {
+                callbacks = complete();
+                if (callbacks == null) {
+                    return;
+                }
+
+                Policy policy = mPolicies.get(mKey.name);
+                if (policy != null && mGeneration == MSREventBridgeResponseCache.this.mGeneration) {
+                    Entries entries = mEntries.get(mKey.name);
+                    if (entries == null) {
+                        entries = new Entries(policy.maxEntries);
+                        mEntries.put(mKey.name, entries);
+                    }
+                    entries.put(mKey, new Entry(value, SystemClock.uptimeMillis() + policy.ttlMs));
+                }
+            }
+
+            // The first request gets the original data, all others a copy
+            callbacks.get(0).onSuccess(data);
+            for (int i = 1; i < callbacks.size(); i++) {
+                callbacks.get(i).onSuccess(copyValue(value));
+            }
+        }
+
+        @Override
+        public void onFailure(Object error) {
+            List<MSREventBridgeReceiverCallback> callbacks;
+            synchronized (MSREventBridgeResponseCache.this) {
+                callbacks = complete();
+            }
+            if (callbacks == null) {
+                return;
+            }
+
+            for (MSREventBridgeReceiverCallback callback : callbacks) {
+                callback.onFailure(error);
+            }
+        }
+    }
+
+    // Helper
+
+    /**
+     * Removes the keys with the event name and info
+     */
+    private static void removeKeys(Iterator<Key> keys, String name, @Nullable HashMap<String, Object> info) {
+        while (keys.hasNext()) {
+            Key key = keys.next();
+            if (key.name.equals(name) && (info == null ? key.info == null : info.equals(key.info))) {
+                keys.remove();
+            }
+        }
+    }
+
+    /**
+     * Returns a copy of the value that can be kept, without consuming the value
+     */
+    @Nullable
+    private static Object toCachedValue(@Nullable Object value) {
+        if (value instanceof ReadableMap) {
+            return Arguments.toBundle((ReadableMap) value);
+        }
+        if (value instanceof ReadableArray) {
+            return Arguments.toList((ReadableArray) value);
+        }
+        return value;
+    }
+
+    /**
+     * Returns a value that can be passed over the bridge from a cached value
+     */
+    @Nullable
+    private static Object copyValue(@Nullable Object cachedValue) {
+        if (cachedValue instanceof Bundle) {
+            return Arguments.fromBundle((Bundle) cachedValue);
+        }
+        if (cachedValue instanceof List) {
+            return Arguments.fromList((List) cachedValue);
+        }
+        return cachedValue;
+    }
+}
@@ -0,0 +1,183 @@
+package net.mischneider;
+
+import android.app.Activity;
+import android.content.Context;
+import android.content.ContextWrapper;
+import android.support.annotation.Nullable;
+import android.support.v4.view.ViewCompat;
+import android.view.View;
+import android.view.ViewGroup;
+
+import com.facebook.react.uimanager.RootView;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.WeakHashMap;
+
+/**
+ * Process wide index of the React root views that live within an activity. Activities and root views
+ * are only weakly referenced so they can still be collected.
+ *
+ * {@link MSREventBridgeAwareReactRootView} instances add and remove themselves on attach and detach.
+ * Any other root view is added by the module as soon as React Native registers a listener within it.
+ * Root views that existed before the first lookup are found by walking the content view of the
+ * activity. The walk is repeated whenever a lookup finds no attached root view, so a plain root view
+ * that is added later is found before a listener is registered within it.
+ */
+final class MSREventBridgeRootViewIndex {
+
+    private static final MSREventBridgeRootViewIndex sInstance = new MSREventBridgeRootViewIndex();
+
+    static MSREventBridgeRootViewIndex getInstance() {
+        return sInstance;
+    }
+
+    /**
+     * Root views of a single activity
+     */
+    private static class ActivityEntry {
+        final ArrayList<WeakReference<View>> rootViews = new ArrayList<>();
+        boolean needsScan = true;
+    }
+
+    private final WeakHashMap<Activity, ActivityEntry> mEntries = new WeakHashMap<>();
+
+    private MSREventBridgeRootViewIndex() {}
+
+    /**
+     * Adds a root view to the index of the activity it lives in
+     */
+    synchronized void addRootView(View rootView) {
+        Activity activity = getActivity(rootView.getContext());
+        if (activity == null) {
+            return;
+        }
+
+        ActivityEntry entry = getEntry(activity);
+        if (indexOf(entry.rootViews, rootView) < 0) {
+            entry.rootViews.add(new WeakReference<>(rootView));
+        }
+    }
+
+    /**
+     * Removes a root view from the index of the activity it lives in
+     */
+    synchronized void removeRootView(View rootView) {
+        Activity activity = getActivity(rootView.getContext());
+        if (activity == null) {
+            return;
+        }
+
+        ActivityEntry entry = mEntries.get(activity);
+        if (entry == null) {
+            return;
+        }
+
+        int index = indexOf(entry.rootViews, rootView);
+        if (index >= 0) {
+            entry.rootViews.remove(index);
+        }
+    }
+
+    /**
+     * Adds all attached root views within the given activity to the list
+     */
+    synchronized void getRootViews(Activity activity, ArrayList<View> rootViews) {
+        ActivityEntry entry = getEntry(activity);
+        boolean scanned = entry.needsScan;
+        if (scanned) {
+            scan(activity, entry);
+        }
+
+        // A root view that doesn't add itself may have been added since the last walk
+        if (addAttachedRootViews(entry, rootViews) == 0 && !scanned) {
+            scan(activity, entry);
+            addAttachedRootViews(entry, rootViews);
+        }
+    }
+
+    // Helper
+
+    /**
+     * Adds the attached root views of the entry to the list and returns their count
+     */
+    private static int addAttachedRootViews(ActivityEntry entry, ArrayList<View> rootViews) {
+        int count = 0;
+        for (int i = 0; i < entry.rootViews.size(); i++) {
+            View rootView = entry.rootViews.get(i).get();
+            if (rootView == null) {
+                entry.rootViews.remove(i--);
+                continue;
+            }
+            if (rootView.getId() == View.NO_ID || !ViewCompat.isAttachedToWindow(rootView)) {
+                continue;
+            }
+            rootViews.add(rootView);
+            count++;
+        }
+        return count;
+    }
+
+    private ActivityEntry getEntry(Activity activity) {
+        ActivityEntry entry = mEntries.get(activity);
+        if (entry == null) {
+            entry = new ActivityEntry();
+            mEntries.put(activity, entry);
+        }
+        return entry;
+    }
+
+    /**
+     * Walks the content view of the activity and adds the root views that are not indexed yet. The
+     * hierarchy change listener of the content view belongs to the app, so changes are not followed;
+     * later root views add themselves, are added by the module or are found by the next walk.
+     */
+    private void scan(Activity activity, ActivityEntry entry) {
+        ArrayList<View> rootViews = new ArrayList<>();
+        findAllReactRootView(activity.findViewById(android.R.id.content), rootViews);
+
+        for (View rootView : rootViews) {
+            if (indexOf(entry.rootViews, rootView) < 0) {
+                entry.rootViews.add(new WeakReference<>(rootView));
+            }
+        }
+
+        entry.needsScan = false;
+    }
+
+    private static void findAllReactRootView(View view, ArrayList<View> rootViews) {
+        if (view instanceof RootView) {
+            rootViews.add(view);
+            return;
+        }
+
+        if (!(view instanceof ViewGroup)) {
+            return;
+        }
+
+        ViewGroup viewGroup = (ViewGroup) view;
+        for (int i = 0; i < viewGroup.getChildCount(); i++) {
+            findAllReactRootView(viewGroup.getChildAt(i), rootViews);
+        }
+    }
+
+    private static int indexOf(ArrayList<WeakReference<View>> rootViews, View rootView) {
+        for (int i = 0; i < rootViews.size(); i++) {
+            if (rootViews.get(i).get() == rootView) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Nullable
+    static Activity getActivity(Context context) {
+        while (context instanceof ContextWrapper) {
+            if (context instanceof Activity) {
+                return (Activity) context;
+            }
+            context = ((ContextWrapper) context).getBaseContext();
+        }
+        return null;
+    }
+}
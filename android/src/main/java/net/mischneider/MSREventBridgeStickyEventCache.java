@@ -0,0 +1,249 @@
+package net.mischneider;
+
+import android.os.Bundle;
+import android.support.annotation.Nullable;
+import android.view.View;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Keeps the latest events for sticky event names, so they can be replayed to root views that register
+ * a listener after the events were emitted. The number of events kept is bounded per name and root
+ * view. The info is kept as Bundle, as a WritableMap can only be passed over the bridge once.
+ *
+ * Events are kept by root tag for root views of this React instance only. Events for a root view that
+ * is not known to belong to this instance yet are kept by the root view itself and taken over once the
+ * root view is added, so they go away with the root view if another instance owns it.
+ */
+final class MSREventBridgeStickyEventCache {
+
+    // Root tag for events that are directed to all root views
+    static final int AllRootTags = -1;
+
+    /**
+     * A cached event
+     */
+    static final class Entry {
+        final String name;
+        @Nullable final Bundle info;
+        final boolean hasValues;
+        final long sequenceNumber;
+
+        Entry(String name, @Nullable Bundle info, boolean hasValues, long sequenceNumber) {
+            this.name = name;
+            this.info = info;
+            this.hasValues = hasValues;
+            this.sequenceNumber = sequenceNumber;
+        }
+    }
+
+    // Sticky event names and the number of events kept per root view
+    private final HashMap<String, Integer> mReplayCounts = new HashMap<>();
+
+    // Cached events by event name and root tag
+    private final HashMap<String, HashMap<Integer, ArrayDeque<Entry>>> mEntries = new HashMap<>();
+
+    // Cached events by root view and event name, for root views that were not added yet
+    private final WeakHashMap<View, HashMap<String, ArrayDeque<Entry>>> mRootViewEntries = new WeakHashMap<>();
+
+    // Keeps the order of events across root tags
+    private long mSequenceNumber = 0;
+
+    synchronized void setReplayCount(String name, int replayCount) {
+        if (replayCount <= 0) {
+            mReplayCounts.remove(name);
+            clear(name);
+            return;
+        }
+
+        mReplayCounts.put(name, replayCount);
+        HashMap<Integer, ArrayDeque<Entry>> entriesByRootTag = mEntries.get(name);
+        if (entriesByRootTag != null) {
+            for (ArrayDeque<Entry> entries : entriesByRootTag.values()) {
+                trim(entries, replayCount);
+            }
+        }
+        for (HashMap<String, ArrayDeque<Entry>> entriesByName : mRootViewEntries.values()) {
+            ArrayDeque<Entry> entries = entriesByName.get(name);
+            if (entries != null) {
+                trim(entries, replayCount);
+            }
+        }
+    }
+
+    synchronized boolean isSticky(String name) {
+        return mReplayCounts.containsKey(name);
+    }
+
+    /**
+     * Caches the event for the given root tag or for all root tags. Does nothing if the event is not
+     * sticky. Set hasValues if the info holds the values of an event with a schema
+     */
+    synchronized void put(String name, int rootTag, @Nullable Bundle info, boolean hasValues) {
+        if (!mReplayCounts.containsKey(name)) {
+            return;
+        }
+        put(name, rootTag, new Entry(name, info, hasValues, mSequenceNumber++));
+    }
+
+    /**
+     * Caches the event for a root view that was not added yet. Does nothing if the event is not sticky
+     */
+    synchronized void putForRootView(String name, View rootView, @Nullable Bundle info, boolean hasValues) {
+        Integer replayCount = mReplayCounts.get(name);
+        if (replayCount == null) {
+            return;
+        }
+
+        HashMap<String, ArrayDeque<Entry>> entriesByName = mRootViewEntries.get(rootView);
+        if (entriesByName == null) {
+            entriesByName = new HashMap<>();
+            mRootViewEntries.put(rootView, entriesByName);
+        }
+
+        ArrayDeque<Entry> entries = entriesByName.get(name);
+        if (entries == null) {
+            entries = new ArrayDeque<>();
+            entriesByName.put(name, entries);
+        }
+        entries.add(new Entry(name, info, hasValues, mSequenceNumber++));
+        trim(entries, replayCount);
+    }
+
+    /**
+     * The root view belongs to this React instance, its cached events are kept by its root tag from now on
+     */
+    synchronized void addRootView(View rootView, int rootTag) {
+        HashMap<String, ArrayDeque<Entry>> entriesByName = mRootViewEntries.remove(rootView);
+        if (entriesByName == null) {
+            return;
+        }
+
+        for (Map.Entry<String, ArrayDeque<Entry>> rootViewEntries : entriesByName.entrySet()) {
+            String name = rootViewEntries.getKey();
+            for (Entry entry : rootViewEntries.getValue()) {
+                put(name, rootTag, entry);
+            }
+        }
+    }
+
+    /**
+     * The root view with the given root tag is gone, drops its cached events
+     */
+    synchronized void removeRootTag(int rootTag) {
+        Iterator<HashMap<Integer, ArrayDeque<Entry>>> entries = mEntries.values().iterator();
+        while (entries.hasNext()) {
+            HashMap<Integer, ArrayDeque<Entry>> entriesByRootTag = entries.next();
+            entriesByRootTag.remove(rootTag);
+            if (entriesByRootTag.isEmpty()) {
+                entries.remove();
+            }
+        }
+    }
+
+    /**
+     * Returns the cached events with the given name for the root tag in the order they were emitted. Use
+     * MSREventBridgeListenerRegistry.AllEventsName as name to get the cached events of all names.
+     */
+    synchronized List<Entry> get(int rootTag, String name) {
+        ArrayList<Entry> result = new ArrayList<>();
+        if (MSREventBridgeListenerRegistry.AllEventsName.equals(name)) {
+            for (HashMap<Integer, ArrayDeque<Entry>> entriesByRootTag : mEntries.values()) {
+                addEntries(result, entriesByRootTag, rootTag);
+            }
+        } else {
+            HashMap<Integer, ArrayDeque<Entry>> entriesByRootTag = mEntries.get(name);
+            if (entriesByRootTag != null) {
+                addEntries(result, entriesByRootTag, rootTag);
+            }
+        }
+
+        // Merge events for the root tag and for all root tags in the order they were emitted
+        sort(result);
+        return result;
+    }
+
+    synchronized void clear(String name) {
+        mEntries.remove(name);
+        for (HashMap<String, ArrayDeque<Entry>> entriesByName : mRootViewEntries.values()) {
+            entriesByName.remove(name);
+        }
+    }
+
+    synchronized void clear() {
+        mEntries.clear();
+        mRootViewEntries.clear();
+    }
+
+    // Helper
+
+    /**
+     * Adds the entry to the entries of the root tag, keeping the order in which the events were emitted
+     */
+    private void put(String name, int rootTag, Entry entry) {
+        Integer replayCount = mReplayCounts.get(name);
+        if (replayCount == null) {
+            return;
+        }
+
+        HashMap<Integer, ArrayDeque<Entry>> entriesByRootTag = mEntries.get(name);
+        if (entriesByRootTag == null) {
+            entriesByRootTag = new HashMap<>();
+            mEntries.put(name, entriesByRootTag);
+        }
+
+        ArrayDeque<Entry> entries = entriesByRootTag.get(rootTag);
+        if (entries == null) {
+            entries = new ArrayDeque<>();
+            entriesByRootTag.put(rootTag, entries);
+        }
+        if (entries.isEmpty() || entries.peekLast().sequenceNumber < entry.sequenceNumber) {
+            entries.add(entry);
+        } else {
+            ArrayList<Entry> sortedEntries = new ArrayList<>(entries);
+            sortedEntries.add(entry);
+            sort(sortedEntries);
+            entries.clear();
+            entries.addAll(sortedEntries);
+        }
+        trim(entries, replayCount);
+    }
+
+    private static void addEntries(List<Entry> result, HashMap<Integer, ArrayDeque<Entry>> entriesByRootTag, int rootTag) {
+        ArrayDeque<Entry> entries = entriesByRootTag.get(rootTag);
+        if (entries != null) {
+            result.addAll(entries);
+        }
+        ArrayDeque<Entry> allRootsEntries = entriesByRootTag.get(AllRootTags);
+        if (allRootsEntries != null) {
+            result.addAll(allRootsEntries);
+        }
+    }
+
+    private static void sort(List<Entry> entries) {
+        if (entries.size() <= 1) {
+            return;
+        }
+        Collections.sort(entries, new Comparator<Entry>() {
+            @Override
+            public int compare(Entry entry1, Entry entry2) {
+                return entry1.sequenceNumber < entry2.sequenceNumber
+                        ? -1 : (entry1.sequenceNumber == entry2.sequenceNumber ? 0 : 1);
+            }
+        });
+    }
+
+    private static void trim(ArrayDeque<Entry> entries, int replayCount) {
+        while (entries.size() > replayCount) {
+            entries.poll();
+        }
+    }
+}
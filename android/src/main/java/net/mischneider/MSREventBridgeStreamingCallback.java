@@ -0,0 +1,18 @@
+package net.mischneider;
+
+/**
+ * Callback for a request from React Native that expects a stream of partial results. Every chunk passed
+ * to onNext is sent to React Native right away, so the first results can be shown before the whole
+ * result is loaded. The stream must be finished with onComplete, onSuccess or onFailure.
+ */
+public interface MSREventBridgeStreamingCallback extends MSREventBridgeCancellableCallback {
+    /**
+     * Sends a partial result to React Native
+     */
+    void onNext(Object chunk);
+
+    /**
+     * Finishes the stream
+     */
+    void onComplete();
+}
@@ -0,0 +1,355 @@
+package net.mischneider;
+
+import android.app.Activity;
+import android.app.Application;
+import android.os.Bundle;
+import android.support.annotation.Nullable;
+import android.support.v4.view.ViewCompat;
+import android.util.SparseArray;
+import android.view.View;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableMap;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.WeakHashMap;
+
+/**
+ * Follows the lifecycle of activities and the attachment of root views. Root views of stopped activities
+ * and detached root views are suspended. Events for suspended root views are held according to the
+ * suspension policy and sent once the root view resumes, so screens nobody can see don't keep the
+ * JavaScript thread busy.
+ */
+final class MSREventBridgeSuspensionController
+        implements Application.ActivityLifecycleCallbacks, View.OnAttachStateChangeListener {
+
+    static final int DefaultQueueCapacity = 32;
+
+    /**
+     * An event that is held for a suspended root view
+     */
+    private static final class HeldEvent {
+        final String name;
+        @Nullable final Bundle info;
+        final boolean hasValues;
+        final MSREventBridgeEventPriority priority;
+
+        HeldEvent(String name, @Nullable Bundle info, boolean hasValues, MSREventBridgeEventPriority priority) {
+            this.name = name;
+            this.info = info;
+            this.hasValues = hasValues;
+            this.priority = priority;
+        }
+    }
+
+    /**
+     * Notified once a root view is gone for good, as its activity was destroyed
+     */
+    interface OnRootViewRemovedListener {
+        void onRootViewRemoved(int rootTag);
+    }
+
+    private final MSREventBridgeEventDispatcher mEventDispatcher;
+    private final OnRootViewRemovedListener mOnRootViewRemovedListener;
+
+    private volatile MSREventBridgeSuspensionPolicy mPolicy = MSREventBridgeSuspensionPolicy.NONE;
+    private int mQueueCapacity = DefaultQueueCapacity;
+
+    // Root views of the React instance by root tag
+    private final SparseArray<WeakReference<View>> mRootViews = new SparseArray<>();
+
+    // Activities that are stopped
+    private final WeakHashMap<Activity, Boolean> mStoppedActivities = new WeakHashMap<>();
+
+    // Held events of suspended root tags, a root tag is suspended if it has an entry
+    private final SparseArray<ArrayDeque<HeldEvent>> mSuspendedRootTags = new SparseArray<>();
+
+    // Read without lock to skip the check on the hot path if no root view is suspended
+    private volatile boolean mHasSuspendedRootTags = false;
+
+    MSREventBridgeSuspensionController(MSREventBridgeEventDispatcher eventDispatcher, OnRootViewRemovedListener onRootViewRemovedListener) {
+        mEventDispatcher = eventDispatcher;
+        mOnRootViewRemovedListener = onRootViewRemovedListener;
+    }
+
+    synchronized void setPolicy(MSREventBridgeSuspensionPolicy policy, int queueCapacity) {
+        mPolicy = policy;
+        mQueueCapacity = Math.max(1, queueCapacity);
+        if (policy == MSREventBridgeSuspensionPolicy.NONE || policy == MSREventBridgeSuspensionPolicy.DROP) {
+            for (int i = 0; i < mSuspendedRootTags.size(); i++) {
+                mSuspendedRootTags.valueAt(i).clear();
+            }
+        }
+    }
+
+    /**
+     * Returns true if events for some root views are held or dropped
+     */
+    boolean isHoldingEvents() {
+        return mHasSuspendedRootTags && mPolicy != MSREventBridgeSuspensionPolicy.NONE;
+    }
+
+    /**
+     * Tracks the root view of the React instance, needs to be called on the main thread
+     */
+    void addRootView(int rootTag, View rootView) {
+        boolean suspended;
+        synchronized (this) {
+            WeakReference<View> rootViewReference = mRootViews.get(rootTag);
+            if (rootViewReference != null && rootViewReference.get() == rootView) {
+                return;
+            }
+            mRootViews.put(rootTag, new WeakReference<>(rootView));
+            Activity activity = MSREventBridgeRootViewIndex.getActivity(rootView.getContext());
+            suspended = !ViewCompat.isAttachedToWindow(rootView) || (activity != null && mStoppedActivities.containsKey(activity));
+        }
+
+        rootView.addOnAttachStateChangeListener(this);
+        if (suspended) {
+            suspend(rootTag);
+        }
+    }
+
+    /**
+     * Holds the event for the suspended root tags among the first rootTagsCount root tags. The root tags
+     * that are not suspended are moved to the front of the array in place and their count is returned
+     */
+    int holdEvent(String name, @Nullable WritableMap info, boolean hasValues, int[] rootTags, int rootTagsCount, MSREventBridgeEventPriority priority) {
+        if (!isHoldingEvents()) {
+            return rootTagsCount;
+        }
+
+        synchronized (this) {
+            if (mPolicy == MSREventBridgeSuspensionPolicy.NONE) {
+                return rootTagsCount;
+            }
+            removeCollectedRootViews();
+
+            int count = 0;
+            HeldEvent heldEvent = null;
+            for (int i = 0; i < rootTagsCount; i++) {
+                int rootTag = rootTags[i];
+                ArrayDeque<HeldEvent> heldEvents = mSuspendedRootTags.get(rootTag);
+                if (heldEvents == null) {
+                    rootTags[count++] = rootTag;
+                    continue;
+                }
+                if (mPolicy == MSREventBridgeSuspensionPolicy.DROP) {
+                    continue;
+                }
+
+                // The info is copied once and shared by all suspended root views
+                if (heldEvent == null) {
+                    heldEvent = new HeldEvent(name, info != null ? Arguments.toBundle(info) : null, hasValues, priority);
+                }
+                hold(heldEvents, heldEvent);
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Stops following the root view with the root tag and drops the events held for it
+     */
+    void removeRootTag(int rootTag) {
+        View rootView;
+        synchronized (this) {
+            WeakReference<View> rootViewReference = mRootViews.get(rootTag);
+            rootView = rootViewReference != null ? rootViewReference.get() : null;
+            mRootViews.remove(rootTag);
+            mSuspendedRootTags.remove(rootTag);
+            mHasSuspendedRootTags = mSuspendedRootTags.size() > 0;
+        }
+        if (rootView != null) {
+            rootView.removeOnAttachStateChangeListener(this);
+        }
+    }
+
+    void clear() {
+        // Root views can outlive the React instance, they must not keep the controller alive
+        ArrayList<View> rootViews = new ArrayList<>();
+        synchronized (this) {
+            for (int i = 0; i < mRootViews.size(); i++) {
+                View rootView = mRootViews.valueAt(i).get();
+                if (rootView != null) {
+                    rootViews.add(rootView);
+                }
+            }
+            mSuspendedRootTags.clear();
+            mRootViews.clear();
+            mHasSuspendedRootTags = false;
+        }
+
+        for (View rootView : rootViews) {
+            rootView.removeOnAttachStateChangeListener(this);
+        }
+    }
+
+    // Application.ActivityLifecycleCallbacks
+
+    @Override
+    public void onActivityStarted(Activity activity) {
+        for (int rootTag : setActivityStopped(activity, false)) {
+            resume(rootTag);
+        }
+    }
+
+    @Override
+    public void onActivityStopped(Activity activity) {
+        for (int rootTag : setActivityStopped(activity, true)) {
+            suspend(rootTag);
+        }
+    }
+
+    @Override
+    public void onActivityDestroyed(Activity activity) {
+        // Held events of root views of the activity are not needed anymore
+        ArrayList<Integer> removedRootTags = new ArrayList<>();
+        synchronized (this) {
+            mStoppedActivities.remove(activity);
+            for (int i = 0; i < mRootViews.size(); i++) {
+                View rootView = mRootViews.valueAt(i).get();
+                if (rootView != null && MSREventBridgeRootViewIndex.getActivity(rootView.getContext()) == activity) {
+                    removedRootTags.add(mRootViews.keyAt(i));
+                }
+            }
+        }
+
+        for (int rootTag : removedRootTags) {
+            removeRootTag(rootTag);
+            mOnRootViewRemovedListener.onRootViewRemoved(rootTag);
+        }
+    }
+
+    @Override
+    public void onActivityCreated(Activity activity, Bundle savedInstanceState) {}
+
+    @Override
+    public void onActivityResumed(Activity activity) {}
+
+    @Override
+    public void onActivityPaused(Activity activity) {}
+
+    @Override
+    public void onActivitySaveInstanceState(Activity activity, Bundle outState) {}
+
+    // View.OnAttachStateChangeListener
+
+    @Override
+    public void onViewAttachedToWindow(View rootView) {
+        Integer rootTag;
+        synchronized (this) {
+            rootTag = getRootTag(rootView);
+            Activity activity = MSREventBridgeRootViewIndex.getActivity(rootView.getContext());
+            if (rootTag == null || (activity != null && mStoppedActivities.containsKey(activity))) {
+                return;
+            }
+        }
+        resume(rootTag);
+    }
+
+    @Override
+    public void onViewDetachedFromWindow(View rootView) {
+        Integer rootTag;
+        synchronized (this) {
+            rootTag = getRootTag(rootView);
+        }
+        if (rootTag != null) {
+            suspend(rootTag);
+        }
+    }
+
+    // Helper
+
+    /**
+     * Updates the stopped state of the activity and returns the root tags of its root views
+     */
+    private synchronized ArrayList<Integer> setActivityStopped(Activity activity, boolean stopped) {
+        if (stopped) {
+            mStoppedActivities.put(activity, true);
+        } else {
+            mStoppedActivities.remove(activity);
+        }
+
+        ArrayList<Integer> rootTags = new ArrayList<>();
+        for (int i = 0; i < mRootViews.size(); i++) {
+            View rootView = mRootViews.valueAt(i).get();
+            if (rootView != null
+                    && MSREventBridgeRootViewIndex.getActivity(rootView.getContext()) == activity
+                    && (stopped || ViewCompat.isAttachedToWindow(rootView))) {
+                rootTags.add(mRootViews.keyAt(i));
+            }
+        }
+        return rootTags;
+    }
+
+    @Nullable
+    private Integer getRootTag(View rootView) {
+        for (int i = 0; i < mRootViews.size(); i++) {
+            if (mRootViews.valueAt(i).get() == rootView) {
+                return mRootViews.keyAt(i);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Drops root views that were garbage collected, including the events held for them, as they will
+     * never resume
+     */
+    private void removeCollectedRootViews() {
+        for (int i = mRootViews.size() - 1; i >= 0; i--) {
+            if (mRootViews.valueAt(i).get() == null) {
+                mSuspendedRootTags.remove(mRootViews.keyAt(i));
+                mRootViews.removeAt(i);
+            }
+        }
+        mHasSuspendedRootTags = mSuspendedRootTags.size() > 0;
+    }
+
+    private synchronized void suspend(int rootTag) {
+        removeCollectedRootViews();
+        if (mSuspendedRootTags.get(rootTag) == null) {
+            mSuspendedRootTags.put(rootTag, new ArrayDeque<HeldEvent>());
+            mHasSuspendedRootTags = true;
+        }
+    }
+
+    /**
+     * Resumes the root tag and sends the events that were held for it in the order they were emitted
+     */
+    private void resume(int rootTag) {
+        ArrayDeque<HeldEvent> heldEvents;
+        synchronized (this) {
+            heldEvents = mSuspendedRootTags.get(rootTag);
+            if (heldEvents == null) {
+                return;
+            }
+            mSuspendedRootTags.remove(rootTag);
+            mHasSuspendedRootTags = mSuspendedRootTags.size() > 0;
+        }
+
+        for (HeldEvent heldEvent : heldEvents) {
+            WritableMap info = heldEvent.info != null ? Arguments.fromBundle(heldEvent.info) : null;
+            mEventDispatcher.dispatch(heldEvent.name, info, heldEvent.hasValues, new int[] { rootTag }, 1, heldEvent.priority);
+        }
+    }
+
+    private void hold(ArrayDeque<HeldEvent> heldEvents, HeldEvent heldEvent) {
+        if (mPolicy == MSREventBridgeSuspensionPolicy.KEEP_LATEST) {
+            Iterator<HeldEvent> iterator = heldEvents.iterator();
+            while (iterator.hasNext()) {
+                if (iterator.next().name.equals(heldEvent.name)) {
+                    iterator.remove();
+                    break;
+                }
+            }
+        } else if (heldEvents.size() >= mQueueCapacity) {
+            heldEvents.poll();
+        }
+        heldEvents.add(heldEvent);
+    }
+}
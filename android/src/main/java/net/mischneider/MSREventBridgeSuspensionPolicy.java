@@ -0,0 +1,28 @@
+package net.mischneider;
+
+/**
+ * Defines what happens with events that are emitted to a root view while it's suspended, i.e. while its
+ * activity is stopped or the root view is detached from the window
+ */
+public enum MSREventBridgeSuspensionPolicy {
+    /**
+     * Events are sent to suspended root views as well
+     */
+    NONE,
+
+    /**
+     * Events for suspended root views are dropped
+     */
+    DROP,
+
+    /**
+     * The latest event per name is kept for a suspended root view and sent once it resumes
+     */
+    KEEP_LATEST,
+
+    /**
+     * Events for a suspended root view are queued and sent once it resumes. If the queue is full, the
+     * oldest queued event is dropped
+     */
+    QUEUE
+}
@@ -8,14 +8,25 @@
 // and view hierarchy of a root view
 
 import React from 'react';
-import {
-  findNodeHandle,
-  NativeModules,
-  NativeEventEmitter,
-} from 'react-native';
+import { findNodeHandle, NativeModules } from 'react-native';
 import invariant from 'invariant';
 
-import type EmitterSubscription from 'EmitterSubscription';
+import addListener, {
+  AllEventsName,
+  getChannelEventName,
+  registerEventSchema,
+} from './react-native-event-bridge-dispatcher';
+import type {
+  MSREventBridgeListener,
+  MSREventBridgeSubscription,
+} from './react-native-event-bridge-dispatcher';
+
+import enqueueEvent, { flushEvents } from './react-native-event-bridge-batch';
+
+import startStream from './react-native-event-bridge-stream';
+import type {
+  MSREventBridgeChunkListener,
+} from './react-native-event-bridge-stream';
 
 import enhanceForEventsSupport, {
   enhanceForEventsSupportDecorator,
@@ -26,6 +37,24 @@ const { MSREventBridge } = NativeModules;
 
 export type MSREventBridgeCallback = (error: ?any, data: ?any) => void;
 
+// Priority of an event sent to the native side. High priority events are
+// delivered ahead of queued events, low priority events once the main thread
+// is idle.
+export type MSREventBridgePriority = 'high' | 'normal' | 'low';
+export type {
+  MSREventBridgeChunkListener,
+  MSREventBridgeListener,
+  MSREventBridgeSubscription,
+};
+
+// A request to the native side. The promise resolves with the response of the
+// native side, cancel lets the native side know the response is not needed
+// anymore, e.g. if the component unmounts
+export type MSREventBridgeRequest = {
+  promise: Promise<any>,
+  cancel: () => void,
+};
+
 // The react tag of the component acts as identifier to native. The native
 // side will figure out the root view and dispatches it either to
 // view / view controller or activity
@@ -34,7 +63,8 @@ export type MSREventBridgeCallback = (error: ?any, data: ?any) => void;
 const emitEvent = (
   component: React.Component<any, any, any>,
   eventName: string,
-  info: any
+  info: any,
+  priority: ?MSREventBridgePriority
 ) => {
   let reactTag;
   try {
@@ -43,6 +73,14 @@ const emitEvent = (
     return;
   }
 
+  // Keep the order of events that are still buffered
+  flushEvents();
+
+  if (priority && MSREventBridge.onEventWithPriority) {
+    MSREventBridge.onEventWithPriority(reactTag, eventName, info, priority);
+    return;
+  }
+
   MSREventBridge.onEvent(reactTag, eventName, info);
 };
 
@@ -60,15 +98,122 @@ const emitEventCallback = (
     return;
   }
 
+  flushEvents();
   MSREventBridge.onEventCallback(reactTag, eventName, info, callback);
 };
 
-// Event emitter to be able to emit events from the JavaScript side to native
-const MSREventBridgeEventEmitter = new NativeEventEmitter(MSREventBridge);
+// Emit an event to the native side with the next frame. Events that are
+// emitted within the same frame are sent in one batch
+const emitEventBatched = (
+  component: React.Component<any, any, any>,
+  eventName: string,
+  info: any
+) => {
+  let reactTag;
+  try {
+    reactTag = findNodeHandle(component);
+  } catch (err) {
+    return;
+  }
+
+  enqueueEvent(reactTag, eventName, info);
+};
+
+// Emit an event to the native side and expect a response. Every request has
+// an id to be able to cancel it
+let nextRequestId = 1;
+const emitEventRequest = (
+  component: React.Component<any, any, any>,
+  eventName: string,
+  info: any
+): MSREventBridgeRequest => {
+  let reactTag;
+  try {
+    reactTag = findNodeHandle(component);
+  } catch (err) {
+    return { promise: Promise.reject(err), cancel: () => {} };
+  }
+
+  if (!MSREventBridge.onEventPromise) {
+    return {
+      promise: Promise.reject(new Error('Requests are not supported')),
+      cancel: () => {},
+    };
+  }
+
+  flushEvents();
+  const requestId = nextRequestId;
+  nextRequestId += 1;
+  return {
+    promise: MSREventBridge.onEventPromise(
+      reactTag,
+      requestId,
+      eventName,
+      info
+    ),
+    cancel: () => {
+      MSREventBridge.cancelRequest(requestId);
+    },
+  };
+};
+
+// Emit an event to the native side and expect a stream of partial results.
+// Every chunk is passed to onChunk as soon as it arrives, the promise resolves
+// once the stream is complete
+const emitEventStream = (
+  component: React.Component<any, any, any>,
+  eventName: string,
+  info: any,
+  onChunk: MSREventBridgeChunkListener
+): MSREventBridgeRequest => {
+  let reactTag;
+  try {
+    reactTag = findNodeHandle(component);
+  } catch (err) {
+    return { promise: Promise.reject(err), cancel: () => {} };
+  }
+
+  if (!MSREventBridge.onEventStream) {
+    return {
+      promise: Promise.reject(new Error('Streams are not supported')),
+      cancel: () => {},
+    };
+  }
+
+  flushEvents();
+  const requestId = nextRequestId;
+  nextRequestId += 1;
+  return {
+    promise: startStream(reactTag, requestId, eventName, info, onChunk),
+    cancel: () => {
+      MSREventBridge.cancelRequest(requestId);
+    },
+  };
+};
+
+// Query a value from the native side synchronously. Throws if the native side
+// doesn't support queries, has no handler for the name or exceeded the time
+// budget of the query
+const query = (eventName: string, info: any): any => {
+  if (!MSREventBridge.query) {
+    throw new Error('Synchronous queries are not supported');
+  }
+
+  const result = MSREventBridge.query(eventName, info != null ? info : null);
+  const error = result[MSREventBridge.QueryErrorKey];
+  if (error != null) {
+    throw new Error(error);
+  }
+  return result[MSREventBridge.QueryValueKey];
+};
+
+// Subscribe to events from the native side. All listeners share one native
+// subscription and only get events that are directed to their root tag
 const addEventListener = (
   component: React.Component<any, any, any>,
-  callback: (string, any) => void
-): EmitterSubscription => {
+  eventName: string,
+  callback: MSREventBridgeListener
+): MSREventBridgeSubscription => {
   // Every component that would like to receive an event to native needs to have
   // a rootTag in it's context otherwise it would not be possible to identify
   // to which callback the event should be dispatched
@@ -79,24 +224,7 @@ const addEventListener = (
     component.constructor.name
   );
 
-  return MSREventBridgeEventEmitter.addListener(
-    MSREventBridge.EventName,
-    (body: any) => {
-      // Check if this event was directed to this subscritpion
-      const eventReactTag = body[MSREventBridge.EventReactTagKey];
-
-      // Check for react tag the same as the react tag passed in and dispatched to
-      // this means it was from the root node
-      if (componentReactTag !== eventReactTag) {
-        return;
-      }
-
-      // Let callback know about the event
-      const eventName = body[MSREventBridge.EventNameKey];
-      const eventInfo = body[MSREventBridge.EventInfoKey];
-      callback(eventName, eventInfo);
-    }
-  );
+  return addListener(componentReactTag, eventName, callback);
 };
 
 // Main handler that combines add a listener or emitting events from and to the
@@ -107,16 +235,53 @@ const EventBridge = {
   // remove the component will unmount
   addEventListener: (
     component: React.Component<any, any, any>,
-    callback: any => void
-  ): EmitterSubscription => addEventListener(component, callback),
+    callback: MSREventBridgeListener
+  ): MSREventBridgeSubscription =>
+    addEventListener(component, AllEventsName, callback),
+
+  // Add a listener for events with the given name that are dispatched from the
+  // native side. Events with another name don't reach the callback at all
+  addEventListenerForName: (
+    component: React.Component<any, any, any>,
+    eventName: string,
+    callback: MSREventBridgeListener
+  ): MSREventBridgeSubscription =>
+    addEventListener(component, eventName, callback),
+
+  // Add a listener for events with the given name that the native side emits
+  // to the given channel. Channel events are routed on the native side and
+  // don't reach listeners for all events
+  addEventListenerForChannel: (
+    component: React.Component<any, any, any>,
+    channel: string,
+    eventName: string,
+    callback: MSREventBridgeListener
+  ): MSREventBridgeSubscription =>
+    addEventListener(
+      component,
+      getChannelEventName(channel, eventName),
+      (name, info) => callback(eventName, info)
+    ),
 
   // Emit an event to the native side
   emitEvent: (
+    component: React.Component<any, any, any>,
+    eventName: string,
+    info: any,
+    priority: ?MSREventBridgePriority
+  ): void => {
+    emitEvent(component, eventName, info, priority);
+  },
+
+  // Emit an event to the native side with the next frame. All events that are
+  // emitted within a frame are sent in one batch, use it for bursts of events
+  // like scroll tracking or impressions
+  emitEventBatched: (
     component: React.Component<any, any, any>,
     eventName: string,
     info: any
   ): void => {
-    emitEvent(component, eventName, info);
+    emitEventBatched(component, eventName, info);
   },
 
   // Emit an event to the native side and expect a callback
@@ -137,6 +302,52 @@ const EventBridge = {
   ): void => {
     emitEventCallback(component, eventName, info, callback);
   },
+
+  // Emit an event to the native side and expect a response via a promise. The
+  // request can be cancelled, so the native side can abort work that is not
+  // needed anymore
+  emitEventRequest: (
+    component: React.Component<any, any, any>,
+    eventName: string,
+    info: any
+  ): MSREventBridgeRequest => emitEventRequest(component, eventName, info),
+
+  // Emit an event to the native side and expect a stream of partial results.
+  // Chunks are passed to onChunk as soon as they arrive, the promise of the
+  // request resolves once the stream is complete
+  emitEventStream: (
+    component: React.Component<any, any, any>,
+    eventName: string,
+    info: any,
+    onChunk: MSREventBridgeChunkListener
+  ): MSREventBridgeRequest =>
+    emitEventStream(component, eventName, info, onChunk),
+
+  // Query a small value from the native side synchronously (Android only),
+  // e.g. if a feature is enabled. The JavaScript thread is blocked until the
+  // native side answers, which fails if it takes longer than the time budget
+  query: (eventName: string, info: any): any => query(eventName, info),
+
+  // Register the field names of events with a schema (Android only). The
+  // native side only sends the values of these events, listeners receive them
+  // as object with the given field names in the same order as on the native
+  // side
+  registerEventSchema: (eventName: string, fieldNames: Array<string>): void =>
+    registerEventSchema(eventName, fieldNames),
+
+  // Enable or disable recording of metrics on the native side (Android only)
+  setMetricsEnabled: (enabled: boolean): void => {
+    if (MSREventBridge.setMetricsEnabled) {
+      MSREventBridge.setMetricsEnabled(enabled);
+    }
+  },
+
+  // Get the recorded metrics of the native side, e.g. latency histograms and
+  // event counts per name. Resolves with null if not supported
+  getMetrics: (): Promise<?Object> =>
+    MSREventBridge.getMetricsSnapshot
+      ? MSREventBridge.getMetricsSnapshot()
+      : Promise.resolve(null),
 };
 
 // Exports
@@ -78,6 +78,7 @@ RCT_EXPORT_METHOD(onEventCallback:(nonnull NSNumber *)reactTag name:(NSString *)
 // Static Identifier for events that are sent to React Native. These needs to be in sync with Android!
 static NSString * const MSREventBridgeModuleEventName = @"MSREventBridgeModuleEvent";
 static NSString * const MSREventBridgeModuleEventReactTagKey = @"reactTag";
+static NSString * const MSREventBridgeModuleEventReactTagsKey = @"reactTags";
 static NSString * const MSREventBridgeModuleEventNameKey = @"eventName";
 static NSString * const MSREventBridgeModuleEventInfoKey = @"info";
 
@@ -87,6 +88,7 @@ static NSString * const MSREventBridgeModuleEventInfoKey = @"info";
   return @{
     @"EventName": MSREventBridgeModuleEventName,
     @"EventReactTagKey" : MSREventBridgeModuleEventReactTagKey,
+    @"EventReactTagsKey" : MSREventBridgeModuleEventReactTagsKey,
     @"EventNameKey" : MSREventBridgeModuleEventNameKey,
     @"EventInfoKey" : MSREventBridgeModuleEventInfoKey
   };
@@ -0,0 +1,71 @@
+/**
+ * react-native-event-bridge-batch
+ * @flow
+ *
+ */
+
+// Buffers events that are sent to the native side and flushes them once per
+// frame as one bridge call, so bursts of events, e.g. while scrolling, don't
+// cost a bridge call and a native UI block each. Falls back to one call per
+// event if the native side doesn't support batches.
+
+import { NativeModules } from 'react-native';
+
+const { MSREventBridge } = NativeModules;
+
+// Buffered events, one entry per event in every array
+let reactTags: Array<number> = [];
+let eventNames: Array<string> = [];
+let eventInfos: Array<any> = [];
+
+let flushScheduled = false;
+
+// Send all buffered events to the native side. Called once per frame and
+// before any other event is sent, so events arrive in the order they were
+// emitted
+const flushEvents = () => {
+  if (reactTags.length === 0) {
+    return;
+  }
+
+  const batchReactTags = reactTags;
+  const batchEventNames = eventNames;
+  const batchEventInfos = eventInfos;
+  reactTags = [];
+  eventNames = [];
+  eventInfos = [];
+  MSREventBridge.onEventBatch(
+    batchReactTags,
+    batchEventNames,
+    batchEventInfos
+  );
+};
+
+const scheduleFlush = () => {
+  if (flushScheduled) {
+    return;
+  }
+  flushScheduled = true;
+
+  requestAnimationFrame(() => {
+    flushScheduled = false;
+    flushEvents();
+  });
+};
+
+// Add an event to the buffer that is sent to the native side with the next
+// frame
+const enqueueEvent = (reactTag: number, eventName: string, info: any) => {
+  if (!MSREventBridge.onEventBatch) {
+    MSREventBridge.onEvent(reactTag, eventName, info);
+    return;
+  }
+
+  reactTags.push(reactTag);
+  eventNames.push(eventName);
+  eventInfos.push(info != null ? info : null);
+  scheduleFlush();
+};
+
+export default enqueueEvent;
+export { flushEvents };
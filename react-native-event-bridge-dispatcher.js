@@ -0,0 +1,315 @@
+/**
+ * react-native-event-bridge-dispatcher
+ * @flow
+ *
+ */
+
+// Central dispatcher for events that are sent from the native side. There is
+// only one native subscription that is shared by all listeners. Listeners are
+// kept in a registry keyed by root tag and event name, so an event only reaches
+// the listeners it is directed to.
+
+import { NativeModules, NativeEventEmitter } from 'react-native';
+
+const { MSREventBridge } = NativeModules;
+
+// Event name used for listeners that would like to receive every event. This
+// needs to be in sync with the native side!
+const AllEventsName = '*';
+
+// Event names of channel listeners start with the reserved prefix, followed by
+// the channel and the event name separated by the separator. This needs to be
+// in sync with the native side!
+const ChannelEventNamePrefix = '__channel:';
+const ChannelSeparator = '#';
+
+// Returns the event name listeners for events of a channel are registered for
+const getChannelEventName = (channel: string, eventName: string) =>
+  `${ChannelEventNamePrefix}${channel}${ChannelSeparator}${eventName}`;
+
+export type MSREventBridgeListener = (name: string, info: any) => void;
+
+export type MSREventBridgeSubscription = {
+  remove: () => void,
+};
+
+type ListenersByEventName = Map<string, Array<MSREventBridgeListener>>;
+
+// rootTag -> eventName -> listeners
+const listenersByRootTag: Map<number, ListenersByEventName> = new Map();
+
+// listenerId -> listener, for events that are directed to a single listener
+const listenersById: Map<number, MSREventBridgeListener> = new Map();
+let lastListenerId = 0;
+
+let nativeSubscription = null;
+
+// eventName -> field names of events with a schema. This needs to be in sync
+// with the schema on the native side!
+const fieldNamesByEventName: Map<string, Array<string>> = new Map();
+
+// Register the field names of events with a schema. The values of these events
+// arrive as array in field order and are passed to listeners as object.
+const registerEventSchema = (eventName: string, fieldNames: Array<string>) => {
+  fieldNamesByEventName.set(eventName, fieldNames.slice());
+};
+
+// Events with a schema are marked by the native side and only carry their
+// values. Turn them into an object with the registered field names, or pass the
+// values array on if the schema is not registered
+const decodeEventInfo = (body: any, eventName: string, eventInfo: any) => {
+  if (!eventInfo || !body[MSREventBridge.EventHasValuesKey]) {
+    return eventInfo;
+  }
+
+  const values = eventInfo[MSREventBridge.EventValuesKey];
+
+  const fieldNames = fieldNamesByEventName.get(eventName);
+  if (!fieldNames) {
+    return values;
+  }
+
+  const decodedInfo = {};
+  fieldNames.forEach((fieldName, index) => {
+    decodedInfo[fieldName] = values[index];
+  });
+  return decodedInfo;
+};
+
+// Let the native side know if a listener for a root tag and event name exists,
+// so it can skip emitting events nobody is listening for
+const setNativeListenerRegistered = (
+  rootTag: number,
+  eventName: string,
+  registered: boolean
+) => {
+  if (registered) {
+    if (MSREventBridge.addListenerForTag) {
+      MSREventBridge.addListenerForTag(rootTag, eventName);
+    }
+  } else if (MSREventBridge.removeListenerForTag) {
+    MSREventBridge.removeListenerForTag(rootTag, eventName);
+  }
+};
+
+// Ask the native side to replay the sticky events of the event name to the
+// listener that was just added
+const requestReplay = (
+  rootTag: number,
+  eventName: string,
+  listenerId: number
+) => {
+  if (MSREventBridge.replayEventsForListener) {
+    MSREventBridge.replayEventsForListener(rootTag, eventName, listenerId);
+  }
+};
+
+const notifyListeners = (
+  listeners: ?Array<MSREventBridgeListener>,
+  eventName: string,
+  eventInfo: any
+) => {
+  if (!listeners) {
+    return;
+  }
+
+  // Copy the listeners as a listener could remove itself while being notified
+  listeners.slice().forEach(listener => {
+    listener(eventName, eventInfo);
+  });
+};
+
+const dispatchToRootTag = (
+  rootTag: number,
+  eventName: string,
+  eventInfo: any
+) => {
+  const listenersByEventName = listenersByRootTag.get(rootTag);
+  if (!listenersByEventName) {
+    return;
+  }
+
+  notifyListeners(listenersByEventName.get(eventName), eventName, eventInfo);
+
+  // Events of a channel are directed to the subscribers of the channel only
+  if (eventName.indexOf(ChannelEventNamePrefix) === 0) {
+    return;
+  }
+  notifyListeners(
+    listenersByEventName.get(AllEventsName),
+    eventName,
+    eventInfo
+  );
+};
+
+const dispatchEvent = (body: any) => {
+  // Batched events from the native side arrive as one message, unpack them
+  // and dispatch every event on its own
+  const batch = body[MSREventBridge.EventBatchKey];
+  if (batch != null) {
+    batch.forEach(dispatchEvent);
+    return;
+  }
+
+  const eventName = body[MSREventBridge.EventNameKey];
+  const eventInfo = decodeEventInfo(
+    body,
+    eventName,
+    body[MSREventBridge.EventInfoKey]
+  );
+
+  // Replayed events are directed to the listener that was just added only
+  const eventListenerId = body[MSREventBridge.EventListenerIdKey];
+  if (eventListenerId != null) {
+    const listener = listenersById.get(eventListenerId);
+    if (listener) {
+      listener(eventName, eventInfo);
+    }
+    return;
+  }
+
+  // Events that target several root views at once carry all of their react tags
+  const eventReactTags = body[MSREventBridge.EventReactTagsKey];
+  if (eventReactTags != null) {
+    eventReactTags.forEach(rootTag => {
+      dispatchToRootTag(rootTag, eventName, eventInfo);
+    });
+    return;
+  }
+
+  const eventReactTag = body[MSREventBridge.EventReactTagKey];
+  if (eventReactTag != null) {
+    dispatchToRootTag(eventReactTag, eventName, eventInfo);
+    return;
+  }
+
+  // Events without a react tag are directed to all subscribers
+  Array.from(listenersByRootTag.keys()).forEach(rootTag => {
+    dispatchToRootTag(rootTag, eventName, eventInfo);
+  });
+};
+
+// Highest sequence number received from the native side that was not yet
+// acknowledged
+let pendingSequenceNumber = 0;
+let acknowledgeScheduled = false;
+
+// Let the native side know which events were processed, so it can send more
+// events if it limits the number of events in flight. Acknowledgements are
+// coalesced to one message per tick.
+const acknowledgeEvents = (sequenceNumber: ?number) => {
+  if (sequenceNumber == null || !MSREventBridge.acknowledgeEvents) {
+    return;
+  }
+
+  pendingSequenceNumber = Math.max(pendingSequenceNumber, sequenceNumber);
+  if (acknowledgeScheduled) {
+    return;
+  }
+  acknowledgeScheduled = true;
+
+  setTimeout(() => {
+    acknowledgeScheduled = false;
+    MSREventBridge.acknowledgeEvents(pendingSequenceNumber);
+  }, 0);
+};
+
+const handleNativeEvent = (body: any) => {
+  // Acknowledge the events even if a listener throws, otherwise the native
+  // side would wait for the acknowledgement forever
+  try {
+    dispatchEvent(body);
+  } finally {
+    acknowledgeEvents(body[MSREventBridge.EventSequenceNumberKey]);
+  }
+};
+
+const removeListener = (
+  rootTag: number,
+  eventName: string,
+  listener: MSREventBridgeListener
+) => {
+  const listenersByEventName = listenersByRootTag.get(rootTag);
+  if (!listenersByEventName) {
+    return;
+  }
+
+  const listeners = listenersByEventName.get(eventName);
+  if (!listeners) {
+    return;
+  }
+
+  const index = listeners.indexOf(listener);
+  if (index === -1) {
+    return;
+  }
+  listeners.splice(index, 1);
+
+  if (listeners.length > 0) {
+    return;
+  }
+
+  listenersByEventName.delete(eventName);
+  setNativeListenerRegistered(rootTag, eventName, false);
+
+  if (listenersByEventName.size > 0) {
+    return;
+  }
+
+  listenersByRootTag.delete(rootTag);
+
+  // Drop the native subscription if there is no listener left
+  if (listenersByRootTag.size === 0 && nativeSubscription) {
+    nativeSubscription.remove();
+    nativeSubscription = null;
+  }
+};
+
+// Add a listener for events with the given name directed to the given root tag.
+// Use AllEventsName as event name to receive every event.
+const addListener = (
+  rootTag: number,
+  eventName: string,
+  listener: MSREventBridgeListener
+): MSREventBridgeSubscription => {
+  if (!nativeSubscription) {
+    nativeSubscription = new NativeEventEmitter(MSREventBridge).addListener(
+      MSREventBridge.EventName,
+      handleNativeEvent
+    );
+  }
+
+  let listenersByEventName = listenersByRootTag.get(rootTag);
+  if (!listenersByEventName) {
+    listenersByEventName = new Map();
+    listenersByRootTag.set(rootTag, listenersByEventName);
+  }
+
+  let listeners = listenersByEventName.get(eventName);
+  if (!listeners) {
+    listeners = [];
+    listenersByEventName.set(eventName, listeners);
+    setNativeListenerRegistered(rootTag, eventName, true);
+  }
+  listeners.push(listener);
+
+  lastListenerId += 1;
+  const listenerId = lastListenerId;
+  listenersById.set(listenerId, listener);
+  requestReplay(rootTag, eventName, listenerId);
+
+  let removed = false;
+  return {
+    remove: () => {
+      if (removed) {
+        return;
+      }
+      removed = true;
+      listenersById.delete(listenerId);
+      removeListener(rootTag, eventName, listener);
+    },
+  };
+};
+
+export default addListener;
+export { AllEventsName, getChannelEventName, registerEventSchema };
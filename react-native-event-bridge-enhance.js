@@ -10,7 +10,7 @@
 
 import React from 'react';
 
-import type EmitterSubscription from 'EmitterSubscription';
+import type { MSREventBridgeSubscription } from './index';
 
 import EventBridge from './index';
 
@@ -35,7 +35,7 @@ const enhanceForEventsSupport = (ComposedComponent: React.Component<any>) => {
       this[_key] = null;
     }
 
-    registerEventListener(...listeners: Array<EmitterSubscription>) {
+    registerEventListener(...listeners: Array<MSREventBridgeSubscription>) {
       const { [_key]: listenerList } = this;
       if (!listenerList) {
         this[_key] = listeners;
@@ -53,7 +53,7 @@ export default enhanceForEventsSupport;
 /********************************/
 const enhanceForEventsSupportEnhanced = (ComposedComponent: any) =>
   class extends (ComposedComponent: any) {
-    _subscribableSubscriptions: ?Array<EmitterSubscription>;
+    _subscribableSubscriptions: ?Array<MSREventBridgeSubscription>;
 
     static contextTypes = {
       rootTag: React.PropTypes.number,
@@ -104,7 +104,7 @@ function enhanceForEventsSupportDecorator() {
         this[_key] = null;
       }
 
-      registerEventListener(...listeners: Array<EmitterSubscription>) {
+      registerEventListener(...listeners: Array<MSREventBridgeSubscription>) {
         const { [_key]: listenerList } = this;
         if (!listenerList) {
           this[_key] = listeners;
@@ -0,0 +1,85 @@
+/**
+ * react-native-event-bridge-stream
+ * @flow
+ *
+ */
+
+// Stream requests to the native side. The native side sends partial results
+// as chunks that are passed to a chunk listener as soon as they arrive. The
+// returned promise resolves once the stream is complete.
+
+import { NativeModules, NativeEventEmitter } from 'react-native';
+
+const { MSREventBridge } = NativeModules;
+
+export type MSREventBridgeChunkListener = (chunk: any) => void;
+
+type PendingStream = {
+  onChunk: MSREventBridgeChunkListener,
+  resolve: () => void,
+  reject: (error: Error) => void,
+};
+
+// requestId -> pending stream
+const pendingStreams: Map<number, PendingStream> = new Map();
+
+let nativeSubscription = null;
+
+const removeStream = (requestId: number) => {
+  pendingStreams.delete(requestId);
+
+  // Drop the native subscription if there is no stream left
+  if (pendingStreams.size === 0 && nativeSubscription) {
+    nativeSubscription.remove();
+    nativeSubscription = null;
+  }
+};
+
+const dispatchStreamEvent = (body: any) => {
+  const requestId = body[MSREventBridge.StreamEventRequestIdKey];
+  const pendingStream = pendingStreams.get(requestId);
+  if (!pendingStream) {
+    return;
+  }
+
+  const error = body[MSREventBridge.StreamEventErrorKey];
+  if (error != null) {
+    removeStream(requestId);
+    const streamError: any = new Error(error);
+    streamError.code = body[MSREventBridge.StreamEventErrorCodeKey];
+    pendingStream.reject(streamError);
+    return;
+  }
+
+  if (body[MSREventBridge.StreamEventChunkKey] !== undefined) {
+    pendingStream.onChunk(body[MSREventBridge.StreamEventChunkKey]);
+  }
+
+  if (body[MSREventBridge.StreamEventDoneKey]) {
+    removeStream(requestId);
+    pendingStream.resolve();
+  }
+};
+
+// Start a stream request on the native side. Returns a promise that resolves
+// once the native side completed the stream
+const startStream = (
+  reactTag: number,
+  requestId: number,
+  eventName: string,
+  info: any,
+  onChunk: MSREventBridgeChunkListener
+): Promise<void> =>
+  new Promise((resolve, reject) => {
+    if (!nativeSubscription) {
+      nativeSubscription = new NativeEventEmitter(MSREventBridge).addListener(
+        MSREventBridge.StreamEventName,
+        dispatchStreamEvent
+      );
+    }
+
+    pendingStreams.set(requestId, { onChunk, resolve, reject });
+    MSREventBridge.onEventStream(reactTag, requestId, eventName, info);
+  });
+
+export default startStream;